@@ -0,0 +1,58 @@
+package com.example;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Liberação com fila de espera: o detentor de um recurso de instância única
+ * o libera (o motor acorda o primeiro da fila em acordarProcessos) e volta a
+ * pedi-lo, entrando no fim da fila. A fila mantém sempre o mesmo tamanho.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AcordarBenchmark {
+
+    @Param({"1", "16", "256", "4096"})
+    int esperando;
+
+    @Param({"SEMAFORO_GLOBAL", "POR_RECURSO"})
+    ModoConcorrencia modo;
+
+    private MotorDeadlock motor;
+    private int numProcessos;
+    private int detentor;
+
+    @Setup
+    public void preparar() {
+        numProcessos = esperando + 1;
+        motor = SimulacaoHeadless.criarMotor(modo, numProcessos, 1, 1);
+        for (int p = 1; p <= numProcessos; p++) {
+            motor.solicitarRecurso(p, 0);
+        }
+        detentor = 1;
+    }
+
+    @Benchmark
+    public int liberarEAcordar() {
+        motor.liberarRecurso(detentor, 0);
+        motor.solicitarRecurso(detentor, 0);
+        // FIFO: quem recebeu o recurso é o processo seguinte.
+        detentor = detentor % numProcessos + 1;
+        return detentor;
+    }
+}
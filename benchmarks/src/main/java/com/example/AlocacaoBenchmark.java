@@ -0,0 +1,76 @@
+package com.example;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+/**
+ * Vazão de {@link MotorDeadlock#solicitarRecurso} seguido de
+ * {@link MotorDeadlock#liberarRecurso}, como em {@link SimulacaoHeadless}: cada
+ * thread JMH é um processo que segura no máximo um recurso por vez, portanto a
+ * carga nunca entra em deadlock. O número de processos é o de threads (-t).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class AlocacaoBenchmark {
+
+    @Param({"16", "256"})
+    int recursos;
+
+    @Param({"1", "4"})
+    int instancias;
+
+    @Param({"BAIXA", "ALTA"})
+    String contencao;
+
+    @Param({"SEMAFORO_GLOBAL", "POR_RECURSO"})
+    ModoConcorrencia modo;
+
+    private MotorDeadlock motor;
+    private int disputados;
+    private final AtomicInteger proximoProcesso = new AtomicInteger();
+
+    @Setup
+    public void preparar(BenchmarkParams parametros) {
+        motor = SimulacaoHeadless.criarMotor(modo, parametros.getThreads(), recursos, instancias);
+        disputados = CenarioBenchmark.recursosDisputados(recursos, contencao);
+    }
+
+    @State(Scope.Thread)
+    public static class ProcessoThread {
+        Processo processo;
+
+        @Setup
+        public void preparar(AlocacaoBenchmark benchmark) {
+            processo = benchmark.motor.getProcesso(benchmark.proximoProcesso.incrementAndGet());
+        }
+    }
+
+    @Benchmark
+    public void solicitarELiberar(ProcessoThread estado) throws InterruptedException {
+        int indice = ThreadLocalRandom.current().nextInt(disputados);
+        if (!motor.solicitarRecurso(estado.processo.idProcesso, indice)) {
+            estado.processo.aguardarDesbloqueio();
+        }
+        motor.liberarRecurso(estado.processo.idProcesso, indice);
+    }
+}
@@ -0,0 +1,41 @@
+package com.example;
+
+/**
+ * Estados sintéticos usados pelos benchmarks. Os processos são dirigidos sem
+ * threads: um pedido negado apenas deixa o processo bloqueado no motor.
+ */
+final class CenarioBenchmark {
+
+    private CenarioBenchmark() {
+    }
+
+    // BAIXA espalha os pedidos por todos os recursos; ALTA concentra em 1/16 deles (no mínimo 2).
+    static int recursosDisputados(int numRecursos, String contencao) {
+        return contencao.equals("ALTA") ? Math.max(2, numRecursos / 16) : numRecursos;
+    }
+
+    // SEM_DEADLOCK: cada detentor do recurso k espera pelo recurso k+1, formando uma cadeia cujo
+    // último elemento pode executar; a redução precisa desfazer a cadeia inteira.
+    // COM_DEADLOCK: o último detentor também espera pelo primeiro recurso, fechando o ciclo.
+    // Em ambos os casos os processos que sobram ficam na fila de algum recurso sem segurar nada.
+    static MotorDeadlock montar(ModoConcorrencia modo, int numProcessos, int numRecursos, int instancias,
+                                String contencao, boolean comDeadlock) {
+        MotorDeadlock motor = SimulacaoHeadless.criarMotor(modo, numProcessos, numRecursos, instancias);
+        int disputados = Math.max(2, Math.min(recursosDisputados(numRecursos, contencao), numProcessos / instancias));
+        disputados = Math.min(disputados, numRecursos);
+
+        for (int p = 1; p <= numProcessos; p++) {
+            motor.solicitarRecurso(p, (p - 1) % disputados);
+        }
+        int detentores = Math.min(numProcessos, disputados * instancias);
+        for (int p = 1; p <= detentores; p++) {
+            int proximo = (p - 1) % disputados + 1;
+            if (proximo < disputados) {
+                motor.solicitarRecurso(p, proximo);
+            } else if (comDeadlock) {
+                motor.solicitarRecurso(p, 0);
+            }
+        }
+        return motor;
+    }
+}
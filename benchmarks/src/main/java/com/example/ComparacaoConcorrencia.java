@@ -0,0 +1,38 @@
+package com.example;
+
+/**
+ * Compara a vazão de solicitações/liberações unitárias nos dois
+ * {@link ModoConcorrencia}s com 8, 32 e 128 processos concorrentes, cada um
+ * segurando no máximo um recurso por vez.
+ *
+ * Uso: java -cp target/benchmarks.jar com.example.ComparacaoConcorrencia [recursos] [instancias] [operacoes]
+ */
+public class ComparacaoConcorrencia {
+
+    private static final int[] PROCESSOS_COMPARACAO = {8, 32, 128};
+
+    public static void main(String[] args) throws InterruptedException {
+        int numRecursos = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+        int instancias = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+        long operacoes = args.length > 2 ? Long.parseLong(args[2]) : 1_000_000L;
+        comparar(numRecursos, instancias, operacoes);
+    }
+
+    static void comparar(int numRecursos, int instancias, long operacoes) throws InterruptedException {
+        System.out.printf("%d recursos x %d instâncias, %d ciclos por medição%n", numRecursos, instancias, operacoes);
+        System.out.printf("%-10s %18s %18s %10s%n", "processos", "SEMAFORO_GLOBAL", "POR_RECURSO", "ganho");
+        for (int numProcessos : PROCESSOS_COMPARACAO) {
+            long porProcesso = operacoes / numProcessos;
+            double[] vazao = new double[ModoConcorrencia.values().length];
+            for (ModoConcorrencia modo : ModoConcorrencia.values()) {
+                MotorDeadlock motor = SimulacaoHeadless.criarMotor(modo, numProcessos, numRecursos, instancias);
+                // Uma rodada de aquecimento para o JIT antes da medição.
+                SimulacaoHeadless.executar(motor, numRecursos, porProcesso / 10);
+                long duracaoNs = SimulacaoHeadless.executar(motor, numRecursos, porProcesso);
+                vazao[modo.ordinal()] = porProcesso * numProcessos * 2 / (duracaoNs / 1e9);
+            }
+            System.out.printf("%-10d %14.0f op/s %14.0f op/s %9.1fx%n", numProcessos,
+                    vazao[0], vazao[1], vazao[1] / vazao[0]);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.example;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Reparte os recursos entre 1, 2, 4 e 8 nós gerenciadores (ou os indicados)
+ * de um {@link GerenciadorDistribuido} e mede a detecção por sondagem em cada
+ * configuração contra a redução central sobre o mesmo estado.
+ *
+ * Uso: java -cp target/benchmarks.jar com.example.ComparacaoDistribuida [processos] [recursos] [instancias] [nos,...]
+ */
+public class ComparacaoDistribuida {
+
+    public static void main(String[] args) throws InterruptedException {
+        int numProcessos = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int numRecursos = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int instancias = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+        String nos = args.length > 3 ? args[3] : "1,2,4,8";
+        comparar(numProcessos, numRecursos, instancias,
+                Arrays.stream(nos.split(",")).mapToInt(Integer::parseInt).toArray());
+    }
+
+    // Os mesmos pedidos sorteados vão ao motor central e a cada configuração de nós; as decisões de
+    // alocação são as mesmas, então os conjuntos em deadlock devem coincidir.
+    static void comparar(int numProcessos, int numRecursos, int instancias, int[] configuracoesNos)
+            throws InterruptedException {
+        MotorDeadlock central = SimulacaoHeadless.criarMotor(ModoConcorrencia.SEMAFORO_GLOBAL, numProcessos,
+                numRecursos, instancias);
+        int[] pedidos = sortearPedidos(central, numProcessos, numRecursos);
+        long inicio = System.nanoTime();
+        List<Integer> esperado = central.detectarDeadlock();
+        long centralNs = System.nanoTime() - inicio;
+        System.out.printf("%d processos, %d recursos x %d instâncias, %d pedidos: redução central %.2f ms, "
+                        + "%d processos em deadlock%n",
+                numProcessos, numRecursos, instancias, pedidos.length / 2, centralNs / 1e6, esperado.size());
+
+        int[] totais = new int[numRecursos];
+        Arrays.fill(totais, instancias);
+        for (int numNos : configuracoesNos) {
+            GerenciadorDistribuido rede = new GerenciadorDistribuido(totais, numProcessos, numNos);
+            for (int k = 0; k < pedidos.length; k += 2) {
+                rede.solicitar(pedidos[k], pedidos[k + 1]);
+            }
+            // A primeira rodada aquece o JIT; a segunda é a medida.
+            rede.detectar();
+            long mensagensAntes = rede.mensagens.sum();
+            long entreNosAntes = rede.mensagensEntreNos.sum();
+            inicio = System.nanoTime();
+            int[] emDeadlock = rede.detectar();
+            long duracaoNs = System.nanoTime() - inicio;
+            rede.parar();
+            boolean iguais = emDeadlock.length == esperado.size();
+            for (int i = 0; i < emDeadlock.length && iguais; i++) {
+                iguais = emDeadlock[i] == esperado.get(i);
+            }
+            System.out.printf("%2d nós: sondagem %.2f ms, %d mensagens (%d entre nós), %d processos em deadlock (%s)%n",
+                    numNos, duracaoNs / 1e6, rede.mensagens.sum() - mensagensAntes,
+                    rede.mensagensEntreNos.sum() - entreNosAntes, emDeadlock.length, iguais ? "iguais" : "DIFERENTES");
+        }
+    }
+
+    // Duas rodadas de um pedido por processo ainda em execução; retorna os pares (processo, recurso).
+    private static int[] sortearPedidos(MotorDeadlock motor, int numProcessos, int numRecursos) {
+        Random sorteio = new Random(42);
+        int[] pedidos = new int[4 * numProcessos];
+        int n = 0;
+        for (int rodada = 0; rodada < 2; rodada++) {
+            for (int p = 1; p <= numProcessos; p++) {
+                if (motor.getProcesso(p).getStatus() == StatusProcesso.EXECUTANDO) {
+                    int r = sorteio.nextInt(numRecursos);
+                    motor.solicitarRecurso(p, r);
+                    pedidos[n++] = p;
+                    pedidos[n++] = r;
+                }
+            }
+        }
+        return Arrays.copyOf(pedidos, n);
+    }
+}
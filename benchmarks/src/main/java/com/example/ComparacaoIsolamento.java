@@ -0,0 +1,108 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Monta um estado grande (processos ociosos detendo uma unidade cada e um par
+ * em deadlock) e mede a espera pela trava dos processos ativos sem detecção e
+ * com uma thread detectando sem parar em cada {@link ModoIsolamento}, no
+ * semáforo global.
+ *
+ * Uso: java -cp target/benchmarks.jar com.example.ComparacaoIsolamento [ativos] [ociosos] [recursos] [ciclos]
+ */
+public class ComparacaoIsolamento {
+
+    public static void main(String[] args) throws InterruptedException {
+        int ativos = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int ociosos = args.length > 1 ? Integer.parseInt(args[1]) : 50_000;
+        int numRecursos = args.length > 2 ? Integer.parseInt(args[2]) : 50;
+        long ciclos = args.length > 3 ? Long.parseLong(args[3]) : 400_000L;
+        comparar(ativos, ociosos, numRecursos, ciclos);
+    }
+
+    static void comparar(int ativos, int ociosos, int numRecursos, long ciclos) throws InterruptedException {
+        int instancias = ociosos / numRecursos + ativos + 1;
+        System.out.printf("%d processos ativos, %d ociosos, %d recursos x %d instâncias, %d ciclos por medição%n",
+                ativos, ociosos, numRecursos, instancias, ciclos);
+        System.out.printf("%-18s %14s %12s %12s %12s %10s %14s %12s%n", "detecção", "ops/s", "espera p50",
+                "espera p99", "espera máx", "detecções", "trava det. p99", "descartadas");
+        long porProcesso = ciclos / ativos;
+        for (int k = 0; k <= ModoIsolamento.values().length; k++) {
+            MotorDeadlock motor = criarEstadoGrande(ativos, ociosos, numRecursos, instancias);
+            String nome = k == 0 ? "sem detecção" : ModoIsolamento.values()[k - 1].name();
+            if (k > 0) {
+                motor.setModoIsolamento(ModoIsolamento.values()[k - 1]);
+            }
+            // Aquecimento para o JIT; a espera só é medida depois.
+            executarAtivos(motor, ativos, numRecursos, porProcesso / 10);
+            MetricasMotor m = motor.getMetricas();
+            long[] esperaAntes = m.esperaTrava.copiarContagens();
+            long deteccoesAntes = m.getDeteccoes();
+            AtomicBoolean medindo = new AtomicBoolean(true);
+            Thread detector = new Thread(() -> {
+                while (medindo.get()) {
+                    motor.detectarDeadlock();
+                }
+            }, "detector");
+            if (k > 0) {
+                detector.start();
+            }
+            long duracaoNs = executarAtivos(motor, ativos, numRecursos, porProcesso);
+            medindo.set(false);
+            if (k > 0) {
+                detector.join();
+            }
+            long[] espera = m.esperaTrava.copiarContagens();
+            for (int f = 0; f < espera.length; f++) {
+                espera[f] -= esperaAntes[f];
+            }
+            System.out.printf("%-18s %14.0f %9.1f us %9.1f us %9.1f us %10d %11.1f us %12d%n", nome,
+                    porProcesso * ativos * 2 / (duracaoNs / 1e9), HistogramaLatencia.percentil(espera, 50) / 1e3,
+                    HistogramaLatencia.percentil(espera, 99) / 1e3, HistogramaLatencia.percentil(espera, 100) / 1e3,
+                    m.getDeteccoes() - deteccoesAntes, m.getTravaDeteccaoP99Us(), m.getDeteccoesDescartadas());
+            m.fechar();
+        }
+    }
+
+    // Processos 1..ativos ficam livres para os ciclos; cada ocioso detém uma unidade e os dois
+    // últimos disputam dois recursos de instância única, que os ativos não usam.
+    private static MotorDeadlock criarEstadoGrande(int ativos, int ociosos, int numRecursos, int instancias) {
+        MotorDeadlock motor = new MotorDeadlock();
+        for (int r = 0; r < numRecursos; r++) {
+            motor.adicionarRecurso("R" + (r + 1), r + 1, instancias);
+        }
+        motor.adicionarRecurso("X", numRecursos + 1, 1);
+        motor.adicionarRecurso("Y", numRecursos + 2, 1);
+        int total = ativos + ociosos + 2;
+        for (int p = 1; p <= total; p++) {
+            motor.adicionarProcesso(p, 0, 0);
+        }
+        motor.prepararAlocacao();
+        for (int p = ativos + 1; p <= ativos + ociosos; p++) {
+            motor.solicitarRecurso(p, p % numRecursos);
+        }
+        motor.solicitarRecurso(total - 1, numRecursos);
+        motor.solicitarRecurso(total, numRecursos + 1);
+        motor.solicitarRecurso(total - 1, numRecursos + 1);
+        motor.solicitarRecurso(total, numRecursos);
+        return motor;
+    }
+
+    private static long executarAtivos(MotorDeadlock motor, int ativos, int numRecursos, long ciclosPorProcesso)
+            throws InterruptedException {
+        List<Thread> threads = new ArrayList<>();
+        for (int id = 1; id <= ativos; id++) {
+            Processo p = motor.getProcesso(id);
+            threads.add(new Thread(() -> SimulacaoHeadless.executarCiclos(motor, p, numRecursos, ciclosPorProcesso),
+                    "P" + id));
+        }
+        long inicio = System.nanoTime();
+        threads.forEach(Thread::start);
+        for (Thread t : threads) {
+            t.join();
+        }
+        return System.nanoTime() - inicio;
+    }
+}
@@ -0,0 +1,123 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Compara trabalhos que precisam de vários tipos de recurso pedidos unidade a
+ * unidade (em ordem crescente de índice) com os mesmos trabalhos pedidos e
+ * devolvidos em lote ({@link MotorDeadlock#solicitarRecursos}), nos dois modos
+ * de concorrência, contando as aquisições de trava e os despertares por
+ * trabalho. Um lote é concedido inteiro ou nada, e o processo não detém nada
+ * enquanto espera; a detecção incremental e a preempção ficam ligadas como no
+ * unitário.
+ *
+ * Uso: java -cp target/benchmarks.jar com.example.ComparacaoLotes [processos] [recursos] [instancias] [trabalhos] [tipos]
+ */
+public class ComparacaoLotes {
+
+    public static void main(String[] args) throws InterruptedException {
+        int numProcessos = args.length > 0 ? Integer.parseInt(args[0]) : 32;
+        int numRecursos = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        int instancias = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+        long trabalhos = args.length > 3 ? Long.parseLong(args[3]) : 200_000L;
+        int tipos = args.length > 4 ? Integer.parseInt(args[4]) : 4;
+        comparar(numProcessos, numRecursos, instancias, trabalhos, tipos);
+    }
+
+    static void comparar(int numProcessos, int numRecursos, int instancias, long trabalhos, int tipos)
+            throws InterruptedException {
+        if (tipos > numRecursos) {
+            throw new IllegalArgumentException("Cada trabalho usa no máximo " + numRecursos + " tipos de recurso.");
+        }
+        System.out.printf("%d processos, %d recursos x %d instâncias, %d trabalhos de %d tipos%n",
+                numProcessos, numRecursos, instancias, trabalhos, tipos);
+        System.out.printf("%-16s %-9s %14s %14s %16s %10s%n", "concorrência", "pedido", "trabalhos/s",
+                "travas/trab.", "despertares/trab.", "vítimas");
+        long porProcesso = trabalhos / numProcessos;
+        for (ModoConcorrencia modo : ModoConcorrencia.values()) {
+            for (boolean lote : new boolean[] {false, true}) {
+                MotorDeadlock motor = SimulacaoHeadless.criarMotor(modo, numProcessos, numRecursos, instancias);
+                motor.setModoDeteccao(ModoDeteccao.INCREMENTAL);
+                motor.setModoRecuperacao(ModoRecuperacao.PREEMPCAO);
+                // Aquecimento para o JIT; as contagens só valem para a medição.
+                executarTrabalhos(motor, numRecursos, tipos, porProcesso / 10, lote);
+                MetricasMotor m = motor.getMetricas();
+                long travasAntes = HistogramaLatencia.total(m.esperaTrava.copiarContagens());
+                long despertaresAntes = HistogramaLatencia.total(m.tempoBloqueado.copiarContagens());
+                long vitimasAntes = m.getVitimas();
+                long duracaoNs = executarTrabalhos(motor, numRecursos, tipos, porProcesso, lote);
+                double medidos = (double) porProcesso * numProcessos;
+                System.out.printf("%-16s %-9s %14.0f %14.2f %16.2f %10d%n", modo, lote ? "lote" : "unitário",
+                        medidos / (duracaoNs / 1e9),
+                        (HistogramaLatencia.total(m.esperaTrava.copiarContagens()) - travasAntes) / medidos,
+                        (HistogramaLatencia.total(m.tempoBloqueado.copiarContagens()) - despertaresAntes) / medidos,
+                        m.getVitimas() - vitimasAntes);
+            }
+        }
+    }
+
+    // Roda os trabalhos de todos os processos em paralelo e retorna a duração em nanossegundos.
+    private static long executarTrabalhos(MotorDeadlock motor, int numRecursos, int tipos, long trabalhosPorProcesso,
+                                          boolean lote) throws InterruptedException {
+        List<Thread> threads = new ArrayList<>();
+        for (Processo p : motor.getProcessos()) {
+            threads.add(new Thread(() -> executarTrabalhos(motor, p, numRecursos, tipos, trabalhosPorProcesso, lote),
+                    "P" + p.idProcesso));
+        }
+        long inicio = System.nanoTime();
+        threads.forEach(Thread::start);
+        for (Thread t : threads) {
+            t.join();
+        }
+        return System.nanoTime() - inicio;
+    }
+
+    // Cada trabalho sorteia 'tipos' recursos distintos, uma unidade de cada, e devolve tudo ao terminar.
+    // Um trabalho preemptado já teve tudo devolvido pela recuperação e não chega a liberar.
+    private static void executarTrabalhos(MotorDeadlock motor, Processo p, int numRecursos, int tipos, long trabalhos,
+                                          boolean lote) {
+        SplittableRandom sorteio = new SplittableRandom(p.idProcesso);
+        int[] vetor = new int[numRecursos];
+        try {
+            for (long t = 0; t < trabalhos; t++) {
+                Arrays.fill(vetor, 0);
+                for (int k = 0; k < tipos; ) {
+                    int r = sorteio.nextInt(numRecursos);
+                    if (vetor[r] == 0) {
+                        vetor[r] = 1;
+                        k++;
+                    }
+                }
+                int reinicios = p.getReinicios();
+                if (lote) {
+                    if (!motor.solicitarRecursos(p.idProcesso, vetor)) {
+                        p.aguardarDesbloqueio();
+                    }
+                } else {
+                    for (int r = 0; r < numRecursos; r++) {
+                        if (vetor[r] > 0 && !motor.solicitarRecurso(p.idProcesso, r)) {
+                            p.aguardarDesbloqueio();
+                        }
+                    }
+                }
+                if (p.getReinicios() != reinicios) {
+                    continue;
+                }
+                if (lote) {
+                    motor.liberarRecursos(p.idProcesso, vetor);
+                } else {
+                    for (int r = 0; r < numRecursos; r++) {
+                        if (vetor[r] > 0) {
+                            motor.liberarRecurso(p.idProcesso, r);
+                        }
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.example;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Simula a mesma carga em tempo virtual com a detecção PERIODICA a cada dt
+ * segundos, PERIODICA a cada minimoMs e ADAPTATIVA entre os dois, com
+ * recuperação por preempção, e compara o número de reduções, o tempo total
+ * com a trava da detecção e a latência entre a formação de cada deadlock e a
+ * sua detecção.
+ *
+ * Uso: java -cp target/benchmarks.jar com.example.ComparacaoVerificacao [processos] [recursos] [instancias] [horas] [dt] [minimoMs]
+ */
+public class ComparacaoVerificacao {
+
+    public static void main(String[] args) {
+        int numProcessos = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int numRecursos = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        int instancias = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+        long horas = args.length > 3 ? Long.parseLong(args[3]) : 6;
+        long dt = args.length > 4 ? Long.parseLong(args[4]) : 60;
+        long minimoMs = args.length > 5 ? Long.parseLong(args[5]) : 100;
+        comparar(numProcessos, numRecursos, instancias, horas, dt, minimoMs);
+    }
+
+    static void comparar(int numProcessos, int numRecursos, int instancias, long horas, long dt, long minimoMs) {
+        System.out.printf("%d processos, %d recursos x %d instâncias, %d h simuladas, dt %d s, mínimo %d ms%n",
+                numProcessos, numRecursos, instancias, horas, dt, minimoMs);
+        System.out.printf("%-22s %10s %10s %10s %14s %14s %14s %10s%n", "detecção", "reduções", "antecip.",
+                "dispens.", "trava total", "latência p50", "latência p99", "deadlocks");
+        String[] nomes = {"PERIODICA " + dt + " s", "PERIODICA " + minimoMs + " ms", "ADAPTATIVA"};
+        for (int k = 0; k < nomes.length; k++) {
+            MotorDeadlock motor = new MotorDeadlock();
+            motor.setModoRecuperacao(ModoRecuperacao.PREEMPCAO);
+            motor.setModoDeteccao(k == 2 ? ModoDeteccao.ADAPTATIVA : ModoDeteccao.PERIODICA);
+            motor.configurarVerificacaoAdaptativa(minimoMs, SistemaOperacional.LIMIAR_BLOQUEIOS_PADRAO,
+                    SistemaOperacional.LIMIAR_ESPERA_PADRAO_MS);
+            for (int r = 0; r < numRecursos; r++) {
+                motor.adicionarRecurso("R" + (r + 1), r + 1, instancias);
+            }
+            Random sorteio = new Random(42);
+            for (int p = 1; p <= numProcessos; p++) {
+                motor.adicionarProcesso(p, 1 + sorteio.nextInt(60), 1 + sorteio.nextInt(120));
+            }
+            motor.simularTempoVirtual(k == 1 ? minimoMs : TimeUnit.SECONDS.toMillis(dt), TimeUnit.MILLISECONDS,
+                    TimeUnit.HOURS.toSeconds(horas), 42);
+            SistemaOperacional so = motor.getSistemaOperacional();
+            MetricasMotor m = motor.getMetricas();
+            long[] trava = m.travaDeteccao.copiarContagens();
+            System.out.printf("%-22s %10d %10d %10d %12.3f s %11.1f ms %11.1f ms %10d%n", nomes[k],
+                    so.getVerificacoes(), so.getAntecipadas(), so.getDispensadas(), somaAproximada(trava) / 1e9,
+                    m.getLatenciaDeteccaoP50Us() / 1e3, m.getLatenciaDeteccaoP99Us() / 1e3, m.getRecuperacoes());
+            m.fechar();
+        }
+    }
+
+    // Soma das durações registradas, tomando o limite superior de cada faixa.
+    private static long somaAproximada(long[] contagens) {
+        long soma = 0;
+        for (int f = 0; f < contagens.length; f++) {
+            soma += contagens[f] * HistogramaLatencia.maiorValor(f);
+        }
+        return soma;
+    }
+}
@@ -0,0 +1,67 @@
+package com.example;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Custo de {@link MotorDeadlock#detectarDeadlock()} (captura do estado mais
+ * redução) sobre estados sem deadlock e com deadlock.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeteccaoBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    int processos;
+
+    @Param({"16", "256"})
+    int recursos;
+
+    @Param({"1", "4"})
+    int instancias;
+
+    @Param({"BAIXA", "ALTA"})
+    String contencao;
+
+    @Param({"SEM_DEADLOCK", "COM_DEADLOCK"})
+    String estado;
+
+    @Param({"SEMAFORO_GLOBAL", "POR_RECURSO"})
+    ModoConcorrencia modo;
+
+    @Param({"REDUCAO", "LISTA_TRABALHO", "PARALELO"})
+    AlgoritmoDeteccao algoritmo;
+
+    private MotorDeadlock motor;
+
+    @Setup
+    public void preparar() {
+        motor = CenarioBenchmark.montar(modo, processos, recursos, instancias, contencao, estado.equals("COM_DEADLOCK"));
+        motor.setAlgoritmoDeteccao(algoritmo);
+        boolean encontrou = !motor.detectarDeadlock().isEmpty();
+        if (encontrou != estado.equals("COM_DEADLOCK")) {
+            throw new IllegalStateException("Cenário " + estado + " montado incorretamente.");
+        }
+    }
+
+    @Benchmark
+    public List<Integer> detectar() {
+        return motor.detectarDeadlock();
+    }
+}
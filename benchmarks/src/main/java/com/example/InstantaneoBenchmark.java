@@ -0,0 +1,75 @@
+package com.example;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Leitura de um instantâneo binário ({@link ArquivoInstantaneo}) e detecção
+ * direto sobre o estado lido. Com {@code -p arquivo=caminho} usa um
+ * instantâneo gravado antes (por {@link MotorDeadlock#salvarEstado}); senão
+ * grava o cenário COM_DEADLOCK do {@link CenarioBenchmark} num temporário.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InstantaneoBenchmark {
+
+    @Param({""})
+    String arquivo;
+
+    @Param({"100000", "1000000"})
+    int processos;
+
+    private Path caminho;
+    private boolean temporario;
+    private InstantaneoAlocacao lido;
+
+    @Setup
+    public void preparar() throws IOException {
+        if (arquivo.isEmpty()) {
+            caminho = Files.createTempFile("instantaneo", ".bin");
+            temporario = true;
+            MotorDeadlock motor = CenarioBenchmark.montar(ModoConcorrencia.SEMAFORO_GLOBAL, processos, 256, 4, "BAIXA", true);
+            motor.salvarEstado(caminho);
+        } else {
+            caminho = Paths.get(arquivo);
+        }
+        lido = ArquivoInstantaneo.ler(caminho).estado;
+    }
+
+    @TearDown
+    public void encerrar() throws IOException {
+        if (temporario) {
+            Files.deleteIfExists(caminho);
+        }
+    }
+
+    @Benchmark
+    public ArquivoInstantaneo ler() throws IOException {
+        return ArquivoInstantaneo.ler(caminho);
+    }
+
+    @Benchmark
+    public int[] detectarLido() {
+        return new DetectorListaTrabalho().detectar(lido);
+    }
+}
@@ -0,0 +1,51 @@
+package com.example;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Roda a simulação completa (eventos de {@link Processo} no pool do
+ * agendador) pelos segundos indicados e mostra a vazão, o pico de threads da
+ * JVM e a memória residente do processo. Há instâncias de sobra em cada
+ * recurso: a medição é do custo das threads, não da contenção.
+ *
+ * Uso: java -cp target/benchmarks.jar com.example.MedicaoExecucao [processos] [segundos]
+ */
+public class MedicaoExecucao {
+
+    public static void main(String[] args) throws InterruptedException {
+        int numProcessos = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int segundos = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        medir(numProcessos, segundos);
+    }
+
+    static void medir(int numProcessos, int segundos) throws InterruptedException {
+        int numRecursos = Math.max(1, numProcessos / 10);
+        MotorDeadlock motor = new MotorDeadlock();
+        motor.setModoConcorrencia(ModoConcorrencia.POR_RECURSO);
+        motor.setModoDeteccao(ModoDeteccao.INCREMENTAL);
+        motor.getMetricas().exportar("headless");
+        for (int r = 0; r < numRecursos; r++) {
+            motor.adicionarRecurso("R" + (r + 1), r + 1, numProcessos);
+        }
+        for (int p = 1; p <= numProcessos; p++) {
+            motor.adicionarProcesso(p, 0, 0);
+        }
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        threads.resetPeakThreadCount();
+        long inicio = System.nanoTime();
+        motor.iniciarSimulacao(1);
+        TimeUnit.SECONDS.sleep(segundos);
+        long operacoes = motor.getOperacoes();
+        long duracaoNs = System.nanoTime() - inicio;
+        String memoria = SimulacaoHeadless.memoriaResidente();
+        motor.pararSimulacao();
+
+        System.out.printf("%d processos: %d operações em %.1f s (%.0f ops/s), pico de %d threads, %s%n",
+                numProcessos, operacoes, duracaoNs / 1e9, operacoes / (duracaoNs / 1e9),
+                threads.getPeakThreadCount(), memoria);
+        SimulacaoHeadless.imprimirMetricas(motor.getMetricas());
+    }
+}
@@ -0,0 +1,76 @@
+package com.example;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Monta um estado grande (até 4 rodadas de pedidos sorteados), grava-o no
+ * arquivo como {@link ArquivoInstantaneo}, carrega-o num motor novo e mede a
+ * gravação, a leitura mapeada, a carga e a detecção sobre o estado lido.
+ *
+ * Uso: java -cp target/benchmarks.jar com.example.MedicaoInstantaneo arquivo [processos] [recursos] [instancias]
+ */
+public class MedicaoInstantaneo {
+
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.err.println("Uso: MedicaoInstantaneo arquivo [processos] [recursos] [instancias]");
+            return;
+        }
+        int numProcessos = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+        int numRecursos = args.length > 2 ? Integer.parseInt(args[2]) : 10_000;
+        int instancias = args.length > 3 ? Integer.parseInt(args[3]) : 50;
+        try {
+            medir(Paths.get(args[0]), numProcessos, numRecursos, instancias);
+        } catch (IOException e) {
+            System.err.println("Falha no instantâneo: " + e.getMessage());
+        }
+    }
+
+    static void medir(Path arquivo, int numProcessos, int numRecursos, int instancias) throws IOException {
+        MotorDeadlock motor = SimulacaoHeadless.criarMotor(ModoConcorrencia.SEMAFORO_GLOBAL, numProcessos, numRecursos,
+                instancias);
+        // Em rodadas, para que os primeiros processos também esperem pelos que vieram depois.
+        Random sorteio = new Random(42);
+        for (int rodada = 0; rodada < 4; rodada++) {
+            for (int p = 1; p <= numProcessos; p++) {
+                if (motor.getProcesso(p).getStatus() == StatusProcesso.EXECUTANDO) {
+                    motor.solicitarRecurso(p, sorteio.nextInt(numRecursos));
+                }
+            }
+        }
+        List<Integer> original = motor.detectarDeadlock();
+
+        long inicio = System.nanoTime();
+        motor.salvarEstado(arquivo);
+        long gravacaoNs = System.nanoTime() - inicio;
+
+        inicio = System.nanoTime();
+        ArquivoInstantaneo lido = ArquivoInstantaneo.ler(arquivo);
+        long leituraNs = System.nanoTime() - inicio;
+
+        inicio = System.nanoTime();
+        int[] emDeadlock = new DetectorListaTrabalho().detectar(lido.estado);
+        long deteccaoNs = System.nanoTime() - inicio;
+
+        MotorDeadlock recarregado = new MotorDeadlock();
+        inicio = System.nanoTime();
+        recarregado.carregarEstado(arquivo);
+        long cargaNs = System.nanoTime() - inicio;
+        List<Integer> depois = recarregado.detectarDeadlock();
+
+        System.out.printf("%d processos, %d recursos x %d instâncias: %d alocações, %d requisições, %.1f MB%n",
+                numProcessos, numRecursos, instancias, lido.estado.recursosAlocados.length,
+                lido.estado.recursosRequisitados.length, Files.size(arquivo) / 1e6);
+        System.out.printf("Gravação %.1f ms, leitura mapeada %.1f ms, detecção sobre o lido %.1f ms, "
+                        + "carga no motor %.1f ms%n",
+                gravacaoNs / 1e6, leituraNs / 1e6, deteccaoNs / 1e6, cargaNs / 1e6);
+        System.out.printf("Processos em deadlock: %d no original, %d no lido, %d no motor recarregado (%s)%n",
+                original.size(), emDeadlock.length, depois.size(),
+                original.equals(depois) && emDeadlock.length == original.size() ? "iguais" : "DIFERENTES");
+    }
+}
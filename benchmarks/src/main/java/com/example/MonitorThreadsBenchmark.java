@@ -0,0 +1,90 @@
+package com.example;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Custo de uma amostra de {@link MonitorThreads} na própria JVM, com um ciclo
+ * de três threads em deadlock e outras esperando numa trava detida. As arestas
+ * não mudam entre amostras, então o custo é o de getThreadInfo mais a
+ * comparação com a amostra anterior, o regime de um deadlock parado. As
+ * threads são daemon e ficam presas até o fim do fork.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MonitorThreadsBenchmark {
+
+    @Param({"0", "100", "1000"})
+    int esperando;
+
+    private MonitorThreads monitor;
+
+    @Setup
+    public void preparar() throws InterruptedException {
+        ReentrantLock[] ciclo = {new ReentrantLock(), new ReentrantLock(), new ReentrantLock()};
+        CountDownLatch primeiras = new CountDownLatch(ciclo.length);
+        for (int i = 0; i < ciclo.length; i++) {
+            ReentrantLock primeira = ciclo[i];
+            ReentrantLock segunda = ciclo[(i + 1) % ciclo.length];
+            iniciar(() -> {
+                primeira.lock();
+                primeiras.countDown();
+                try {
+                    primeiras.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                segunda.lock();
+            });
+        }
+        ReentrantLock disputada = new ReentrantLock();
+        disputada.lock();
+        for (int i = 0; i < esperando; i++) {
+            iniciar(() -> {
+                disputada.lock();
+                disputada.unlock();
+            });
+        }
+        while (disputada.getQueueLength() < esperando) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        monitor = MonitorThreads.local(new MotorDeadlock());
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        do {
+            TimeUnit.MILLISECONDS.sleep(10);
+            monitor.amostrar();
+        } while (monitor.getEmDeadlock().size() != ciclo.length && System.nanoTime() < limite);
+        if (monitor.getEmDeadlock().size() != ciclo.length) {
+            throw new IllegalStateException("O ciclo de " + ciclo.length + " threads não foi detectado.");
+        }
+    }
+
+    @Benchmark
+    public long amostrar() {
+        monitor.amostrar();
+        return monitor.getMudancas();
+    }
+
+    private static void iniciar(Runnable corpo) {
+        Thread t = new Thread(corpo);
+        t.setDaemon(true);
+        t.start();
+    }
+}
@@ -0,0 +1,35 @@
+package com.example;
+
+import java.util.SplittableRandom;
+
+/**
+ * Agendador compartilhado pelos processos simulados. Cada processo registra o
+ * instante do seu próximo evento (solicitação ou liberação); processos ociosos
+ * não ocupam thread nem CPU. Os instantes são em nanossegundos na base de
+ * {@link #agora()}.
+ */
+interface AgendadorProcessos {
+
+    long agora();
+
+    void agendar(long instanteNs, Runnable acao);
+
+    // Executa a ação no instante atual, depois das que já estão prontas.
+    void despachar(Runnable acao);
+
+    // Fonte de números aleatórios do processo, reusada por ele a cada sorteio. Com semente, depende
+    // só dela e do ID.
+    SplittableRandom criarAleatorio(int idProcesso);
+
+    void iniciar();
+
+    void parar();
+
+    // Mistura de Stafford (a mesma do SplittableRandom) para separar as sequências dos processos.
+    static long misturar(long semente, int idProcesso) {
+        long z = semente + idProcesso * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,105 @@
+package com.example;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Uma única thread espera na DelayQueue e entrega os eventos vencidos a um pool
+ * pequeno de trabalhadores.
+ */
+class AgendadorTempoReal implements AgendadorProcessos {
+
+    private final DelayQueue<EventoTempoReal> fila = new DelayQueue<>();
+    private final ExecutorService trabalhadores;
+    private final Thread despachante;
+    // Desempate FIFO para eventos com o mesmo instante.
+    private final AtomicLong sequencia = new AtomicLong();
+    private final Long semente;
+
+    // Sem semente (null) cada execução sorteia sequências diferentes.
+    AgendadorTempoReal(ExecutorService trabalhadores, Long semente) {
+        this.trabalhadores = trabalhadores;
+        this.semente = semente;
+        this.despachante = new Thread(this::despacharVencidos, "agendador-processos");
+        this.despachante.setDaemon(true);
+    }
+
+    @Override
+    public void iniciar() {
+        despachante.start();
+    }
+
+    @Override
+    public void agendar(long instanteNs, Runnable acao) {
+        fila.put(new EventoTempoReal(instanteNs, sequencia.getAndIncrement(), acao));
+    }
+
+    @Override
+    public void despachar(Runnable acao) {
+        try {
+            trabalhadores.execute(acao);
+        } catch (RejectedExecutionException e) {
+            // Agendador já parado: o evento é descartado.
+        }
+    }
+
+    @Override
+    public long agora() {
+        return System.nanoTime();
+    }
+
+    @Override
+    public SplittableRandom criarAleatorio(int idProcesso) {
+        return semente != null ? new SplittableRandom(AgendadorProcessos.misturar(semente, idProcesso)) : new SplittableRandom();
+    }
+
+    @Override
+    public void parar() {
+        despachante.interrupt();
+        trabalhadores.shutdownNow();
+        fila.clear();
+    }
+
+    private void despacharVencidos() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                despachar(fila.take().acao);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class EventoTempoReal implements Delayed {
+        final long instanteNs;
+        final long ordem;
+        final Runnable acao;
+
+        EventoTempoReal(long instanteNs, long ordem, Runnable acao) {
+            this.instanteNs = instanteNs;
+            this.ordem = ordem;
+            this.acao = acao;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unidade) {
+            return unidade.convert(instanteNs - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed outro) {
+            EventoTempoReal e = (EventoTempoReal) outro;
+            // Subtração para comparar corretamente mesmo com overflow do nanoTime.
+            long diferenca = instanteNs - e.instanteNs;
+            if (diferenca != 0) {
+                return diferenca < 0 ? -1 : 1;
+            }
+            return Long.compare(ordem, e.ordem);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.example;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+
+/**
+ * Simulação de eventos discretos: o relógio salta direto para o próximo evento e
+ * tudo roda na thread que chamou executarAte, na ordem (instante, ordem de
+ * agendamento). Com a mesma semente e a mesma configuração o resultado é sempre
+ * o mesmo.
+ */
+class AgendadorVirtual implements AgendadorProcessos {
+
+    private final PriorityQueue<EventoVirtual> fila;
+    // Eventos já executados, reusados pelos próximos agendamentos: no regime estável não se aloca.
+    private EventoVirtual[] livres;
+    private int numLivres;
+    private final long semente;
+    private long agora;
+    private long sequencia;
+    private boolean parado;
+
+    // 'capacidade' é o número esperado de eventos pendentes ao mesmo tempo (um por processo, mais
+    // a verificação); a fila e os eventos livres já nascem desse tamanho.
+    AgendadorVirtual(long semente, int capacidade) {
+        this.semente = semente;
+        this.fila = new PriorityQueue<>(Math.max(1, capacidade));
+        this.livres = new EventoVirtual[Math.max(1, capacidade)];
+        for (; numLivres < capacidade; numLivres++) {
+            livres[numLivres] = new EventoVirtual();
+        }
+    }
+
+    @Override
+    public long agora() {
+        return agora;
+    }
+
+    @Override
+    public void agendar(long instanteNs, Runnable acao) {
+        EventoVirtual e = numLivres > 0 ? livres[--numLivres] : new EventoVirtual();
+        e.instanteNs = Math.max(instanteNs, agora);
+        e.ordem = sequencia++;
+        e.acao = acao;
+        fila.add(e);
+    }
+
+    @Override
+    public void despachar(Runnable acao) {
+        agendar(agora, acao);
+    }
+
+    @Override
+    public SplittableRandom criarAleatorio(int idProcesso) {
+        return new SplittableRandom(AgendadorProcessos.misturar(semente, idProcesso));
+    }
+
+    @Override
+    public void iniciar() {
+        parado = false;
+    }
+
+    @Override
+    public void parar() {
+        parado = true;
+        fila.clear();
+    }
+
+    // Processa os eventos até o instante indicado (inclusive) e deixa o relógio nele.
+    // Retorna o número de eventos executados.
+    long executarAte(long instanteNs) {
+        long executados = 0;
+        while (!parado && !fila.isEmpty() && fila.peek().instanteNs <= instanteNs) {
+            EventoVirtual e = fila.poll();
+            agora = e.instanteNs;
+            Runnable acao = e.acao;
+            e.acao = null;
+            if (numLivres == livres.length) {
+                livres = Arrays.copyOf(livres, numLivres * 2);
+            }
+            livres[numLivres++] = e;
+            acao.run();
+            executados++;
+        }
+        if (!parado) {
+            agora = instanteNs;
+        }
+        return executados;
+    }
+
+    private static class EventoVirtual implements Comparable<EventoVirtual> {
+        long instanteNs;
+        long ordem;
+        Runnable acao;
+
+        @Override
+        public int compareTo(EventoVirtual e) {
+            int c = Long.compare(instanteNs, e.instanteNs);
+            return c != 0 ? c : Long.compare(ordem, e.ordem);
+        }
+    }
+}
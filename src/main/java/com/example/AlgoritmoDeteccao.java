@@ -0,0 +1,15 @@
+package com.example;
+
+/**
+ * Algoritmo usado por {@link MotorDeadlock#detectarDeadlock()} sobre a cópia do
+ * estado. Todos devolvem o mesmo conjunto de processos.
+ */
+public enum AlgoritmoDeteccao {
+    // Passadas repetidas sobre todos os processos até nenhum mais poder executar (algoritmo original).
+    REDUCAO,
+    // Cada processo é reexaminado só quando cresce o trabalho de um recurso de que ainda precisa.
+    LISTA_TRABALHO,
+    // Redução com a busca por processos executáveis dividida em tarefas ForkJoin. Escala com os
+    // núcleos em estados largos; longas cadeias de espera entre blocos custam uma rodada por bloco.
+    PARALELO
+}
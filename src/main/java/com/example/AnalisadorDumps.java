@@ -0,0 +1,585 @@
+package com.example;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Analisa arquivos com thread dumps no formato de {@code jstack -l} e
+ * {@code jcmd <pid> Thread.print -l}, quantos dumps houver em cada arquivo, e
+ * roda a detecção do projeto em cada um: a thread é um processo, cada monitor
+ * ("- locked") ou sincronizador ("Locked ownable synchronizers") vira um
+ * recurso de uma instância detido por ela, e "waiting to lock" ou "parking to
+ * wait for" viram a requisição.
+ *
+ * Os arquivos são lidos por janelas mapeadas, byte a byte, sem decodificar as
+ * linhas: os endereços são lidos direto em hexadecimal e nomes só viram String
+ * para as threads em deadlock. Cada arquivo é dividido em trechos, e cada
+ * trecho analisa os dumps que começam nele (indo além do fim, se preciso), de
+ * modo que arquivos grandes também se dividem entre os núcleos.
+ *
+ * O relatório de deadlock que o próprio jstack acrescenta ao fim do dump é
+ * ignorado na análise e só anotado, para comparação. Sem {@code -l} o dump não
+ * lista os sincronizadores detidos, e esperas em ReentrantLock ficam sem dono.
+ */
+final class AnalisadorDumps {
+
+    static final int TAMANHO_TRECHO = 64 << 20;
+    private static final int TAMANHO_JANELA = 64 << 20;
+
+    private static final byte[] CABECALHO_DUMP = bytes("Full thread dump");
+    private static final byte[] RELATORIO_JVM = bytes("Found ");
+    private static final byte[] DETIDO = bytes("- locked <");
+    private static final byte[] SINCRONIZADOR_DETIDO = bytes("- <");
+    private static final byte[] ESPERA_MONITOR = bytes("- waiting to lock <");
+    private static final byte[] ESPERA_REENTRADA = bytes("- waiting to re-lock in wait() <");
+    private static final byte[] ESPERA_SINCRONIZADOR = bytes("- parking to wait for ");
+    private static final byte[] ESPERA_NOTIFICACAO = bytes("- waiting on <");
+
+    private final int numThreads;
+    private final int tamanhoTrecho;
+
+    private volatile long bytesLidos;
+    private volatile long tempoNs;
+
+    AnalisadorDumps(int numThreads) {
+        this(numThreads, TAMANHO_TRECHO);
+    }
+
+    AnalisadorDumps(int numThreads, int tamanhoTrecho) {
+        if (numThreads <= 0 || tamanhoTrecho <= 0) {
+            throw new IllegalArgumentException("Número de threads e tamanho do trecho devem ser positivos.");
+        }
+        this.numThreads = numThreads;
+        this.tamanhoTrecho = tamanhoTrecho;
+    }
+
+    // Resumos de todos os dumps, na ordem dos arquivos e, dentro de cada um, na ordem em que aparecem.
+    List<ResumoDump> analisar(List<Path> arquivos) throws IOException {
+        long inicio = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads, r -> {
+            Thread t = new Thread(r, "analisador-dumps");
+            t.setDaemon(true);
+            return t;
+        });
+        List<Future<List<ResumoDump>>> tarefas = new ArrayList<>();
+        long total = 0;
+        try {
+            for (int a = 0; a < arquivos.size(); a++) {
+                Path arquivo = arquivos.get(a);
+                long tamanho;
+                try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+                    tamanho = canal.size();
+                }
+                total += tamanho;
+                int ordem = a;
+                for (long t = 0; t < tamanho; t += tamanhoTrecho) {
+                    long inicioTrecho = t;
+                    long fimTrecho = Math.min(tamanho, t + tamanhoTrecho);
+                    tarefas.add(executor.submit(() -> new AnaliseTrecho(arquivo, ordem).analisar(inicioTrecho, fimTrecho)));
+                }
+            }
+            List<ResumoDump> resumos = new ArrayList<>();
+            for (Future<List<ResumoDump>> tarefa : tarefas) {
+                resumos.addAll(tarefa.get());
+            }
+            // Os trechos já saem em ordem; a ordenação só garante o contrato.
+            resumos.sort(Comparator.comparingInt((ResumoDump r) -> r.ordemArquivo).thenComparingLong(r -> r.deslocamento));
+            bytesLidos = total;
+            tempoNs = System.nanoTime() - inicio;
+            return resumos;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Análise interrompida.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IllegalStateException("Falha na análise dos dumps.", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    long getBytesLidos() {
+        return bytesLidos;
+    }
+
+    long getTempoNs() {
+        return tempoNs;
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    // =================================================================================
+    // ANÁLISE DE UM TRECHO
+    // =================================================================================
+    // Estado de um dump em montagem; os vetores são reusados de um dump para o próximo.
+    private static final class AnaliseTrecho {
+        private final Path arquivo;
+        private final int ordemArquivo;
+        private final DetectorDeadlock detector = new DetectorListaTrabalho();
+        private FileChannel canal;
+        private LeitorLinhas leitor;
+
+        private long inicioDump = -1;
+        private long inicioInstante = -1;
+        private int tamanhoInstante;
+        private boolean relatorioJvm;
+        private boolean ignorando;
+
+        // Threads do dump: posição e tamanho do nome no arquivo.
+        private int numThreadsDump;
+        private long[] inicioNome = new long[64];
+        private int[] tamanhoNome = new int[64];
+        // Travas detidas, como pares (thread, endereço); as da thread atual começam em detidasDaAtual.
+        private int numDetidas;
+        private int detidasDaAtual;
+        private int[] threadDetentora = new int[64];
+        private long[] enderecoDetido = new long[64];
+        // Espera da thread atual e esperas já fechadas; a linha da espera fica para o resumo.
+        private long esperaAtual;
+        private long linhaEsperaAtual;
+        private int tamanhoLinhaEsperaAtual;
+        private int numEsperas;
+        private int[] threadEsperando = new int[64];
+        private long[] enderecoEsperado = new long[64];
+        private long[] inicioLinhaEspera = new long[64];
+        private int[] tamanhoLinhaEspera = new int[64];
+        private long esperaNotificacao;
+
+        private final MapaEnderecos indiceTrava = new MapaEnderecos();
+
+        AnaliseTrecho(Path arquivo, int ordemArquivo) {
+            this.arquivo = arquivo;
+            this.ordemArquivo = ordemArquivo;
+        }
+
+        // Analisa os dumps cujo cabeçalho começa em [inicio, fim).
+        List<ResumoDump> analisar(long inicio, long fim) throws IOException {
+            List<ResumoDump> resumos = new ArrayList<>();
+            try (FileChannel c = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+                canal = c;
+                leitor = new LeitorLinhas(c, inicio);
+                // Um trecho que não começa no arquivo pode cair no meio de uma linha.
+                if (inicio > 0 && !leitor.aposQuebra()) {
+                    leitor.proxima();
+                }
+                long anterior = -1;
+                int tamanhoAnterior = 0;
+                while (leitor.proxima()) {
+                    int a = leitor.inicio;
+                    int b = leitor.fim;
+                    if (inicioDump < 0 && leitor.posicao() >= fim) {
+                        // Nenhum dump começa neste trecho; o que vem depois é de outro trecho.
+                        return resumos;
+                    }
+                    if (leitor.comeca(a, b, CABECALHO_DUMP)) {
+                        long posicao = leitor.posicao();
+                        if (inicioDump >= 0) {
+                            resumos.add(fecharDump());
+                        }
+                        if (posicao >= fim) {
+                            return resumos;
+                        }
+                        abrirDump(posicao, anterior, tamanhoAnterior);
+                        continue;
+                    }
+                    if (b > a) {
+                        anterior = leitor.posicao();
+                        tamanhoAnterior = b - a;
+                    }
+                    if (inicioDump >= 0 && !ignorando) {
+                        interpretar(a, b);
+                    }
+                }
+                if (inicioDump >= 0) {
+                    resumos.add(fecharDump());
+                }
+            }
+            return resumos;
+        }
+
+        private void abrirDump(long posicao, long linhaAnterior, int tamanhoAnterior) {
+            inicioDump = posicao;
+            // jstack e jcmd escrevem a data e a hora na linha de cima.
+            boolean data = linhaAnterior >= 0 && tamanhoAnterior >= 10 && linhaAnterior >= leitor.base
+                    && ehDigito(leitor.janela.get((int) (linhaAnterior - leitor.base)))
+                    && leitor.janela.get((int) (linhaAnterior - leitor.base) + 4) == '-';
+            inicioInstante = data ? linhaAnterior : -1;
+            tamanhoInstante = tamanhoAnterior;
+            relatorioJvm = false;
+            ignorando = false;
+            numThreadsDump = 0;
+            numDetidas = 0;
+            detidasDaAtual = 0;
+            numEsperas = 0;
+            esperaAtual = 0;
+            esperaNotificacao = 0;
+        }
+
+        private void interpretar(int a, int b) {
+            while (a < b && (leitor.janela.get(a) == ' ' || leitor.janela.get(a) == '\t')) {
+                a++;
+            }
+            if (a == b) {
+                return;
+            }
+            switch (leitor.janela.get(a)) {
+                case 'a':
+                    // "at ...": a maior parte das linhas.
+                    return;
+                case '"':
+                    fecharThread();
+                    novaThread(a + 1, b);
+                    return;
+                case '-':
+                    interpretarTrava(a, b);
+                    return;
+                case 'F':
+                    if (leitor.comeca(a, b, RELATORIO_JVM)) {
+                        // "Found one Java-level deadlock:" e o resto do relatório do jstack.
+                        fecharThread();
+                        relatorioJvm = true;
+                        ignorando = true;
+                    }
+                    return;
+                default:
+            }
+        }
+
+        private void novaThread(int a, int b) {
+            int fimNome = a;
+            while (fimNome < b && leitor.janela.get(fimNome) != '"') {
+                fimNome++;
+            }
+            if (numThreadsDump == inicioNome.length) {
+                inicioNome = Arrays.copyOf(inicioNome, numThreadsDump * 2);
+                tamanhoNome = Arrays.copyOf(tamanhoNome, numThreadsDump * 2);
+            }
+            inicioNome[numThreadsDump] = leitor.base + a;
+            tamanhoNome[numThreadsDump] = fimNome - a;
+            numThreadsDump++;
+            detidasDaAtual = numDetidas;
+        }
+
+        private void interpretarTrava(int a, int b) {
+            if (numThreadsDump == 0) {
+                return;
+            }
+            if (leitor.comeca(a, b, DETIDO)) {
+                adicionarDetida(enderecoApos(a + DETIDO.length - 1, b));
+            } else if (leitor.comeca(a, b, SINCRONIZADOR_DETIDO)) {
+                adicionarDetida(enderecoApos(a + SINCRONIZADOR_DETIDO.length - 1, b));
+            } else if (leitor.comeca(a, b, ESPERA_MONITOR)) {
+                esperar(enderecoApos(a + ESPERA_MONITOR.length - 1, b), a, b);
+            } else if (leitor.comeca(a, b, ESPERA_REENTRADA)) {
+                esperar(enderecoApos(a + ESPERA_REENTRADA.length - 1, b), a, b);
+            } else if (leitor.comeca(a, b, ESPERA_SINCRONIZADOR)) {
+                int c = a + ESPERA_SINCRONIZADOR.length;
+                while (c < b && leitor.janela.get(c) != '<') {
+                    c++;
+                }
+                esperar(enderecoApos(c, b), a, b);
+            } else if (leitor.comeca(a, b, ESPERA_NOTIFICACAO)) {
+                esperaNotificacao = enderecoApos(a + ESPERA_NOTIFICACAO.length - 1, b);
+            }
+        }
+
+        private void adicionarDetida(long endereco) {
+            if (endereco == 0) {
+                return;
+            }
+            if (numDetidas == threadDetentora.length) {
+                threadDetentora = Arrays.copyOf(threadDetentora, numDetidas * 2);
+                enderecoDetido = Arrays.copyOf(enderecoDetido, numDetidas * 2);
+            }
+            threadDetentora[numDetidas] = numThreadsDump - 1;
+            enderecoDetido[numDetidas++] = endereco;
+        }
+
+        private void esperar(long endereco, int a, int b) {
+            if (endereco != 0 && esperaAtual == 0) {
+                esperaAtual = endereco;
+                linhaEsperaAtual = leitor.base + a;
+                tamanhoLinhaEsperaAtual = b - a;
+            }
+        }
+
+        // Fecha a thread atual. Quem está em Object.wait() aparece com "- locked" do próprio objeto no
+        // quadro de cima, mas já o soltou; o mesmo vale para a trava que a thread espera retomar.
+        private void fecharThread() {
+            if (numThreadsDump == 0) {
+                return;
+            }
+            int t = numThreadsDump - 1;
+            int k = detidasDaAtual;
+            for (int i = detidasDaAtual; i < numDetidas; i++) {
+                long endereco = enderecoDetido[i];
+                if (endereco != esperaNotificacao && endereco != esperaAtual) {
+                    enderecoDetido[k] = endereco;
+                    threadDetentora[k++] = t;
+                }
+            }
+            numDetidas = k;
+            detidasDaAtual = k;
+            if (esperaAtual != 0) {
+                if (numEsperas == threadEsperando.length) {
+                    int capacidade = numEsperas * 2;
+                    threadEsperando = Arrays.copyOf(threadEsperando, capacidade);
+                    enderecoEsperado = Arrays.copyOf(enderecoEsperado, capacidade);
+                    inicioLinhaEspera = Arrays.copyOf(inicioLinhaEspera, capacidade);
+                    tamanhoLinhaEspera = Arrays.copyOf(tamanhoLinhaEspera, capacidade);
+                }
+                threadEsperando[numEsperas] = t;
+                enderecoEsperado[numEsperas] = esperaAtual;
+                inicioLinhaEspera[numEsperas] = linhaEsperaAtual;
+                tamanhoLinhaEspera[numEsperas++] = tamanhoLinhaEsperaAtual;
+            }
+            esperaAtual = 0;
+            esperaNotificacao = 0;
+        }
+
+        // Monta o estado do dump (disponível = 1 para trava sem dono) e detecta.
+        private ResumoDump fecharDump() throws IOException {
+            fecharThread();
+            indiceTrava.limpar();
+            int numTravas = 0;
+            int[] dono = new int[numDetidas + numEsperas];
+            int[] travaDetida = new int[numDetidas];
+            int unicas = 0;
+            for (int k = 0; k < numDetidas; k++) {
+                int l = indiceTrava.obter(enderecoDetido[k], numTravas);
+                // Repetida é o mesmo monitor em dois quadros da mesma thread (reentrada).
+                if (l == numTravas) {
+                    dono[numTravas++] = threadDetentora[k];
+                    threadDetentora[unicas] = threadDetentora[k];
+                    travaDetida[unicas++] = l;
+                }
+            }
+            int[] travaEsperada = new int[numEsperas];
+            for (int k = 0; k < numEsperas; k++) {
+                int l = indiceTrava.obter(enderecoEsperado[k], numTravas);
+                if (l == numTravas) {
+                    dono[numTravas++] = -1;
+                }
+                travaEsperada[k] = l;
+            }
+
+            // Linhas de alocação por thread: as detidas já estão agrupadas por thread, em ordem.
+            int[] disponivel = new int[numTravas];
+            for (int l = 0; l < numTravas; l++) {
+                disponivel[l] = dono[l] < 0 ? 1 : 0;
+            }
+            InstantaneoAlocacao.Construtor construtor = new InstantaneoAlocacao.Construtor(disponivel);
+            int d = 0;
+            int e = 0;
+            while (d < unicas || e < numEsperas) {
+                int t = Math.min(d < unicas ? threadDetentora[d] : Integer.MAX_VALUE,
+                        e < numEsperas ? threadEsperando[e] : Integer.MAX_VALUE);
+                // IDs de processo começam em 1: a ordem da thread no dump mais um.
+                construtor.novoProcesso(t + 1);
+                while (d < unicas && threadDetentora[d] == t) {
+                    construtor.alocacao(travaDetida[d++], 1);
+                }
+                if (e < numEsperas && threadEsperando[e] == t) {
+                    construtor.requisicao(travaEsperada[e++], 1);
+                }
+            }
+            int[] emDeadlock = detector.detectar(construtor.construir());
+
+            List<String> descricoes = new ArrayList<>(emDeadlock.length);
+            for (int id : emDeadlock) {
+                int t = id - 1;
+                int k = Arrays.binarySearch(threadEsperando, 0, numEsperas, t);
+                int l = travaEsperada[k];
+                descricoes.add("'" + ler(inicioNome[t], tamanhoNome[t]) + "' " + ler(inicioLinhaEspera[k], tamanhoLinhaEspera[k]).substring(2)
+                        + (dono[l] >= 0 ? ", detida por '" + ler(inicioNome[dono[l]], tamanhoNome[dono[l]]) + "'" : ""));
+            }
+            ResumoDump resumo = new ResumoDump(arquivo, ordemArquivo, inicioDump,
+                    inicioInstante >= 0 ? ler(inicioInstante, tamanhoInstante) : "", numThreadsDump, numTravas,
+                    numEsperas, relatorioJvm, descricoes);
+            inicioDump = -1;
+            return resumo;
+        }
+
+        // Só para o resumo: lê do canal, já que a janela pode ter mudado.
+        private String ler(long posicao, int tamanho) throws IOException {
+            ByteBuffer destino = ByteBuffer.allocate(tamanho);
+            while (destino.hasRemaining() && canal.read(destino, posicao + destino.position()) > 0) {
+                // Lê até completar.
+            }
+            return new String(destino.array(), 0, destino.position(), StandardCharsets.UTF_8);
+        }
+
+        // Endereço hexadecimal a partir do '<' em 'c' ("<0x00000007...>"); 0 se não houver.
+        private long enderecoApos(int c, int b) {
+            if (c >= b || leitor.janela.get(c) != '<') {
+                return 0;
+            }
+            c++;
+            if (c + 1 < b && leitor.janela.get(c) == '0' && (leitor.janela.get(c + 1) == 'x' || leitor.janela.get(c + 1) == 'X')) {
+                c += 2;
+            }
+            long valor = 0;
+            for (; c < b; c++) {
+                int digito = Character.digit(leitor.janela.get(c), 16);
+                if (digito < 0) {
+                    break;
+                }
+                valor = valor << 4 | digito;
+            }
+            return valor;
+        }
+
+        private static boolean ehDigito(byte b) {
+            return b >= '0' && b <= '9';
+        }
+    }
+
+    // =================================================================================
+    // LEITOR DE LINHAS
+    // =================================================================================
+    // Percorre o arquivo por janelas mapeadas. Uma linha cortada pelo fim da janela faz a próxima
+    // janela começar no início dela.
+    private static final class LeitorLinhas {
+        private final FileChannel canal;
+        private final long tamanhoArquivo;
+        MappedByteBuffer janela;
+        long base;
+        private int limite;
+        private int proximo;
+        // Linha atual, sem o '\n' (nem '\r'), em posições da janela.
+        int inicio;
+        int fim;
+
+        LeitorLinhas(FileChannel canal, long posicao) throws IOException {
+            this.canal = canal;
+            this.tamanhoArquivo = canal.size();
+            mapear(posicao);
+        }
+
+        private void mapear(long posicao) throws IOException {
+            base = posicao;
+            limite = (int) Math.min(tamanhoArquivo - posicao, TAMANHO_JANELA);
+            janela = canal.map(MapMode.READ_ONLY, posicao, limite);
+            proximo = 0;
+        }
+
+        // Se a posição inicial é o começo de uma linha.
+        boolean aposQuebra() throws IOException {
+            if (base == 0) {
+                return true;
+            }
+            ByteBuffer anterior = ByteBuffer.allocate(1);
+            canal.read(anterior, base - 1);
+            return anterior.get(0) == '\n';
+        }
+
+        boolean proxima() throws IOException {
+            while (true) {
+                if (proximo >= limite) {
+                    if (base + limite >= tamanhoArquivo) {
+                        return false;
+                    }
+                    mapear(base + limite);
+                }
+                int i = proximo;
+                while (i < limite && janela.get(i) != '\n') {
+                    i++;
+                }
+                if (i == limite && base + limite < tamanhoArquivo && proximo > 0) {
+                    mapear(base + proximo);
+                    continue;
+                }
+                inicio = proximo;
+                fim = i > inicio && janela.get(i - 1) == '\r' ? i - 1 : i;
+                proximo = i + 1;
+                return true;
+            }
+        }
+
+        long posicao() {
+            return base + inicio;
+        }
+
+        boolean comeca(int a, int b, byte[] prefixo) {
+            if (b - a < prefixo.length) {
+                return false;
+            }
+            for (int k = 0; k < prefixo.length; k++) {
+                if (janela.get(a + k) != prefixo[k]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    // =================================================================================
+    // MAPA DE ENDEREÇOS
+    // =================================================================================
+    // Endereço de trava (nunca 0) -> índice denso, no mesmo esquema de MapaIntInt.
+    private static final class MapaEnderecos {
+        private long[] chaves = new long[64];
+        private int[] valores = new int[64];
+        private int tamanho;
+
+        // Índice do endereço; se ausente, associa 'novo' e o retorna.
+        int obter(long chave, int novo) {
+            if ((tamanho + 1) * 2 > chaves.length) {
+                redimensionar(chaves.length * 2);
+            }
+            int mascara = chaves.length - 1;
+            int i = espalhar(chave) & mascara;
+            while (chaves[i] != 0) {
+                if (chaves[i] == chave) {
+                    return valores[i];
+                }
+                i = (i + 1) & mascara;
+            }
+            chaves[i] = chave;
+            valores[i] = novo;
+            tamanho++;
+            return novo;
+        }
+
+        void limpar() {
+            Arrays.fill(chaves, 0L);
+            tamanho = 0;
+        }
+
+        private void redimensionar(int capacidade) {
+            long[] antigasChaves = chaves;
+            int[] antigosValores = valores;
+            chaves = new long[capacidade];
+            valores = new int[capacidade];
+            tamanho = 0;
+            for (int i = 0; i < antigasChaves.length; i++) {
+                if (antigasChaves[i] != 0) {
+                    obter(antigasChaves[i], antigosValores[i]);
+                }
+            }
+        }
+
+        private static int espalhar(long chave) {
+            long h = chave * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
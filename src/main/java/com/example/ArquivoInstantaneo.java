@@ -0,0 +1,264 @@
+package com.example;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Instantâneo binário do motor: recursos, processos, disponíveis e as linhas de
+ * alocação e requisição no mesmo formato CSR de {@link InstantaneoAlocacao}.
+ * Os vetores são copiados em bloco por janelas de {@link FileChannel#map}, sem
+ * conversão entrada a entrada, então estados com milhões de entradas são
+ * gravados e lidos em milissegundos.
+ *
+ * Layout, em little-endian:
+ *   cabeçalho:  8 ints — "DLKS", versão, recursos (m), processos (n), alocações (a),
+ *               requisições (r), bytes dos nomes, reservado
+ *   processos:  ΔTs[n] e ΔTu[n] (longs), id[n]
+ *   recursos:   id[m], total[m], disponivel[m], fim do nome[m]
+ *   alocação:   inicio[n + 1], recurso[a], quantidade[a]
+ *   requisição: inicio[n + 1], recurso[r], quantidade[r]
+ *   nomes:      nomes dos recursos em UTF-8, concatenados
+ */
+final class ArquivoInstantaneo {
+
+    private static final int MAGICO = 0x534B4C44; // "DLKS" em little-endian
+    private static final int VERSAO = 1;
+    private static final int TAMANHO_CABECALHO = 8 * Integer.BYTES;
+    // Cada janela mapeada fica bem abaixo do limite de 2 GB de um MappedByteBuffer.
+    private static final int BLOCO_BYTES = 1 << 28;
+
+    final List<Recurso> recursos;
+    final long[] temposSolicitacao;
+    final long[] temposUtilizacao;
+    final InstantaneoAlocacao estado;
+
+    private ArquivoInstantaneo(List<Recurso> recursos, long[] temposSolicitacao, long[] temposUtilizacao,
+                               InstantaneoAlocacao estado) {
+        this.recursos = recursos;
+        this.temposSolicitacao = temposSolicitacao;
+        this.temposUtilizacao = temposUtilizacao;
+        this.estado = estado;
+    }
+
+    // ΔTs e ΔTu seguem a ordem de estado.ids.
+    static void gravar(Path caminho, List<Recurso> recursos, long[] temposSolicitacao, long[] temposUtilizacao,
+                       InstantaneoAlocacao estado) throws IOException {
+        int m = recursos.size();
+        int n = estado.numProcessos();
+        int[] idsRecurso = new int[m];
+        int[] totais = new int[m];
+        int[] fimNome = new int[m];
+        TabelaNomes nomes = new TabelaNomes();
+        for (int i = 0; i < m; i++) {
+            Recurso r = recursos.get(i);
+            idsRecurso[i] = r.id;
+            totais[i] = r.quantidadeTotal;
+            fimNome[i] = nomes.acrescentar(r.nome);
+        }
+
+        try (FileChannel canal = FileChannel.open(caminho, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer cabecalho = canal.map(MapMode.READ_WRITE, 0, TAMANHO_CABECALHO);
+            cabecalho.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().put(new int[]{
+                    MAGICO, VERSAO, m, n, estado.recursosAlocados.length, estado.recursosRequisitados.length,
+                    nomes.tamanho, 0});
+            long posicao = TAMANHO_CABECALHO;
+            posicao = escrever(canal, posicao, temposSolicitacao);
+            posicao = escrever(canal, posicao, temposUtilizacao);
+            posicao = escrever(canal, posicao, estado.ids);
+            posicao = escrever(canal, posicao, idsRecurso);
+            posicao = escrever(canal, posicao, totais);
+            posicao = escrever(canal, posicao, estado.disponivel);
+            posicao = escrever(canal, posicao, fimNome);
+            posicao = escrever(canal, posicao, estado.inicioAlocacao);
+            posicao = escrever(canal, posicao, estado.recursosAlocados);
+            posicao = escrever(canal, posicao, estado.quantidadesAlocadas);
+            posicao = escrever(canal, posicao, estado.inicioRequisicao);
+            posicao = escrever(canal, posicao, estado.recursosRequisitados);
+            posicao = escrever(canal, posicao, estado.quantidadesRequisitadas);
+            if (nomes.tamanho > 0) {
+                canal.map(MapMode.READ_WRITE, posicao, nomes.tamanho).put(nomes.bytes, 0, nomes.tamanho);
+            }
+        }
+    }
+
+    static ArquivoInstantaneo ler(Path caminho) throws IOException {
+        try (FileChannel canal = FileChannel.open(caminho, StandardOpenOption.READ)) {
+            if (canal.size() < TAMANHO_CABECALHO) {
+                throw new IOException("Arquivo de instantâneo inválido: " + caminho);
+            }
+            int[] cabecalho = new int[8];
+            canal.map(MapMode.READ_ONLY, 0, TAMANHO_CABECALHO).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().get(cabecalho);
+            if (cabecalho[0] != MAGICO) {
+                throw new IOException("Arquivo de instantâneo inválido: " + caminho);
+            }
+            if (cabecalho[1] != VERSAO) {
+                throw new IOException("Versão de instantâneo não suportada: " + cabecalho[1]);
+            }
+            int m = cabecalho[2];
+            int n = cabecalho[3];
+            int a = cabecalho[4];
+            int r = cabecalho[5];
+            int bytesNomes = cabecalho[6];
+            long esperado = TAMANHO_CABECALHO + 2L * n * Long.BYTES
+                    + ((long) n + 4L * m + 2L * (n + 1) + 2L * a + 2L * r) * Integer.BYTES + bytesNomes;
+            if (m < 0 || n < 0 || a < 0 || r < 0 || bytesNomes < 0 || canal.size() != esperado) {
+                throw new IOException("Arquivo de instantâneo truncado ou corrompido: " + caminho);
+            }
+
+            long posicao = TAMANHO_CABECALHO;
+            long[] temposSolicitacao = new long[n];
+            long[] temposUtilizacao = new long[n];
+            int[] ids = new int[n];
+            int[] idsRecurso = new int[m];
+            int[] totais = new int[m];
+            int[] disponivel = new int[m];
+            int[] fimNome = new int[m];
+            int[] inicioAlocacao = new int[n + 1];
+            int[] recursosAlocados = new int[a];
+            int[] quantidadesAlocadas = new int[a];
+            int[] inicioRequisicao = new int[n + 1];
+            int[] recursosRequisitados = new int[r];
+            int[] quantidadesRequisitadas = new int[r];
+            posicao = ler(canal, posicao, temposSolicitacao);
+            posicao = ler(canal, posicao, temposUtilizacao);
+            posicao = ler(canal, posicao, ids);
+            posicao = ler(canal, posicao, idsRecurso);
+            posicao = ler(canal, posicao, totais);
+            posicao = ler(canal, posicao, disponivel);
+            posicao = ler(canal, posicao, fimNome);
+            posicao = ler(canal, posicao, inicioAlocacao);
+            posicao = ler(canal, posicao, recursosAlocados);
+            posicao = ler(canal, posicao, quantidadesAlocadas);
+            posicao = ler(canal, posicao, inicioRequisicao);
+            posicao = ler(canal, posicao, recursosRequisitados);
+            posicao = ler(canal, posicao, quantidadesRequisitadas);
+            byte[] nomes = new byte[bytesNomes];
+            if (bytesNomes > 0) {
+                canal.map(MapMode.READ_ONLY, posicao, bytesNomes).get(nomes);
+            }
+
+            List<Recurso> recursos = new ArrayList<>(m);
+            int inicioNome = 0;
+            for (int i = 0; i < m; i++) {
+                if (fimNome[i] < inicioNome || fimNome[i] > bytesNomes) {
+                    throw new IOException("Arquivo de instantâneo corrompido: nomes de recursos inválidos.");
+                }
+                recursos.add(new Recurso(new String(nomes, inicioNome, fimNome[i] - inicioNome, StandardCharsets.UTF_8),
+                        idsRecurso[i], totais[i]));
+                inicioNome = fimNome[i];
+            }
+            for (int livre : disponivel) {
+                if (livre < 0) {
+                    throw new IOException("Arquivo de instantâneo corrompido: quantidade disponível negativa.");
+                }
+            }
+            validarLinhas(inicioAlocacao, recursosAlocados, a, m);
+            validarLinhas(inicioRequisicao, recursosRequisitados, r, m);
+            InstantaneoAlocacao estado = new InstantaneoAlocacao(ids, disponivel,
+                    inicioAlocacao, recursosAlocados, quantidadesAlocadas,
+                    inicioRequisicao, recursosRequisitados, quantidadesRequisitadas);
+            return new ArquivoInstantaneo(Collections.unmodifiableList(recursos), temposSolicitacao, temposUtilizacao, estado);
+        }
+    }
+
+    // Os detectores indexam os vetores sem verificar limites; um arquivo corrompido não pode chegar a eles.
+    private static void validarLinhas(int[] inicio, int[] recursos, int numEntradas, int numRecursos) throws IOException {
+        if (inicio[0] != 0 || inicio[inicio.length - 1] != numEntradas) {
+            throw new IOException("Arquivo de instantâneo corrompido: linhas fora dos limites.");
+        }
+        for (int i = 1; i < inicio.length; i++) {
+            if (inicio[i] < inicio[i - 1]) {
+                throw new IOException("Arquivo de instantâneo corrompido: linhas fora de ordem.");
+            }
+        }
+        for (int recurso : recursos) {
+            if (recurso < 0 || recurso >= numRecursos) {
+                throw new IOException("Arquivo de instantâneo corrompido: recurso " + recurso + " inexistente.");
+            }
+        }
+        // Dentro de cada linha os recursos vêm em ordem estritamente crescente, como em LinhaEsparsa.
+        for (int i = 1; i < inicio.length; i++) {
+            for (int k = inicio[i - 1] + 1; k < inicio[i]; k++) {
+                if (recursos[k] <= recursos[k - 1]) {
+                    throw new IOException("Arquivo de instantâneo corrompido: recurso " + recursos[k]
+                            + " repetido ou fora de ordem na linha " + (i - 1) + ".");
+                }
+            }
+        }
+    }
+
+    private static long escrever(FileChannel canal, long posicao, int[] v) throws IOException {
+        for (int feito = 0; feito < v.length; ) {
+            int qtd = Math.min(v.length - feito, BLOCO_BYTES / Integer.BYTES);
+            janela(canal, MapMode.READ_WRITE, posicao, (long) qtd * Integer.BYTES).asIntBuffer().put(v, feito, qtd);
+            posicao += (long) qtd * Integer.BYTES;
+            feito += qtd;
+        }
+        return posicao;
+    }
+
+    private static long escrever(FileChannel canal, long posicao, long[] v) throws IOException {
+        for (int feito = 0; feito < v.length; ) {
+            int qtd = Math.min(v.length - feito, BLOCO_BYTES / Long.BYTES);
+            janela(canal, MapMode.READ_WRITE, posicao, (long) qtd * Long.BYTES).asLongBuffer().put(v, feito, qtd);
+            posicao += (long) qtd * Long.BYTES;
+            feito += qtd;
+        }
+        return posicao;
+    }
+
+    private static long ler(FileChannel canal, long posicao, int[] v) throws IOException {
+        for (int feito = 0; feito < v.length; ) {
+            int qtd = Math.min(v.length - feito, BLOCO_BYTES / Integer.BYTES);
+            janela(canal, MapMode.READ_ONLY, posicao, (long) qtd * Integer.BYTES).asIntBuffer().get(v, feito, qtd);
+            posicao += (long) qtd * Integer.BYTES;
+            feito += qtd;
+        }
+        return posicao;
+    }
+
+    private static long ler(FileChannel canal, long posicao, long[] v) throws IOException {
+        for (int feito = 0; feito < v.length; ) {
+            int qtd = Math.min(v.length - feito, BLOCO_BYTES / Long.BYTES);
+            janela(canal, MapMode.READ_ONLY, posicao, (long) qtd * Long.BYTES).asLongBuffer().get(v, feito, qtd);
+            posicao += (long) qtd * Long.BYTES;
+            feito += qtd;
+        }
+        return posicao;
+    }
+
+    private static ByteBuffer janela(FileChannel canal, MapMode modo, long posicao, long tamanho) throws IOException {
+        return canal.map(modo, posicao, tamanho).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    // =================================================================================
+    // NOMES DOS RECURSOS
+    // =================================================================================
+    // Acumula os nomes em UTF-8 num único vetor; cada recurso guarda onde o seu nome termina.
+    private static class TabelaNomes {
+        byte[] bytes = new byte[64];
+        int tamanho;
+
+        int acrescentar(String nome) {
+            byte[] b = nome.getBytes(StandardCharsets.UTF_8);
+            if (tamanho + b.length > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, tamanho + b.length));
+            }
+            System.arraycopy(b, 0, bytes, tamanho, b.length);
+            tamanho += b.length;
+            return tamanho;
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package com.example;
+
+import java.util.Arrays;
+
+/**
+ * Verificação de estado seguro do algoritmo do banqueiro, usada pelo modo
+ * {@link ModoAlocacao#BANQUEIRO}. Em vez de refazer o algoritmo inteiro a cada
+ * concessão, guarda uma sequência segura do estado atual (lista duplamente
+ * ligada de slots) e tenta, nesta ordem:
+ *
+ * 1. o processo consegue terminar já com o que sobra após a concessão: passa
+ *    para o início da sequência, que continua segura;
+ * 2. só o recurso concedido muda, então basta revalidar esse recurso nos
+ *    processos que vêm antes do requerente na sequência;
+ * 3. recalcular a sequência com a lista de trabalho.
+ *
+ * Liberações e remoções nunca tornam uma sequência segura insegura, por isso
+ * não exigem verificação. Quem chama segura a exclusão total do motor.
+ */
+class AvaliadorBanqueiro {
+
+    private final EstadoAlocacao estado;
+    private final int numRecursos;
+
+    // Necessidade máxima declarada por slot; null equivale a uma unidade de cada tipo.
+    private int[][] maximos = new int[16][];
+
+    // Sequência segura atual.
+    private int[] anterior = new int[16];
+    private int[] proximo = new int[16];
+    private int cabeca = -1;
+    private int cauda = -1;
+    private int tamanho;
+    // Falsa depois de um máximo ser redeclarado: a próxima concessão recalcula tudo.
+    private boolean valida = true;
+
+    long verificacoesImediatas;
+    long verificacoesPorPrefixo;
+    long verificacoesCompletas;
+    long recusas;
+
+    AvaliadorBanqueiro(EstadoAlocacao estado, int numRecursos) {
+        this.estado = estado;
+        this.numRecursos = numRecursos;
+    }
+
+    // Novos processos não detêm nada e o máximo não passa do total, então entram no fim da sequência.
+    void registrar(int slot, int[] maximo) {
+        if (slot >= maximos.length) {
+            int capacidade = Math.max(slot + 1, maximos.length * 2);
+            maximos = Arrays.copyOf(maximos, capacidade);
+            anterior = Arrays.copyOf(anterior, capacidade);
+            proximo = Arrays.copyOf(proximo, capacidade);
+        }
+        maximos[slot] = maximo;
+        anterior[slot] = cauda;
+        proximo[slot] = -1;
+        if (cauda >= 0) {
+            proximo[cauda] = slot;
+        } else {
+            cabeca = slot;
+        }
+        cauda = slot;
+        tamanho++;
+    }
+
+    void remover(int slot) {
+        desligar(slot);
+        maximos[slot] = null;
+        tamanho--;
+    }
+
+    void definirMaximo(int slot, int[] maximo) {
+        maximos[slot] = maximo;
+        valida = false;
+    }
+
+    void invalidar() {
+        valida = false;
+    }
+
+    int maximo(int slot, int indiceRecurso) {
+        int[] m = maximos[slot];
+        return m == null ? 1 : m[indiceRecurso];
+    }
+
+    // Decide se conceder uma unidade do recurso ao slot mantém o estado seguro; se sim, ajusta a
+    // sequência para o estado após a concessão. Chamado antes de alterar o estado, com
+    // disponivel[indiceRecurso] > 0.
+    boolean concederSeSeguro(int slot, int indiceRecurso) {
+        return concederSeSeguro(slot, indiceRecurso, true);
+    }
+
+    // Sem permissão para recalcular, responde só pelas verificações baratas; um "não" aqui não é
+    // definitivo e não conta como recusa.
+    boolean concederSeSeguro(int slot, int indiceRecurso, boolean permitirRecalculo) {
+        int[] disponivel = estado.disponivel();
+        if (valida) {
+            if (podeTerminarAgora(slot, indiceRecurso, disponivel)) {
+                verificacoesImediatas++;
+                desligar(slot);
+                ligarNoInicio(slot);
+                return true;
+            }
+            if (prefixoContinuaSeguro(slot, indiceRecurso, disponivel)) {
+                verificacoesPorPrefixo++;
+                return true;
+            }
+        }
+        if (!permitirRecalculo) {
+            return false;
+        }
+        verificacoesCompletas++;
+        if (recalcular(slot, indiceRecurso, disponivel)) {
+            return true;
+        }
+        recusas++;
+        return false;
+    }
+
+    private boolean podeTerminarAgora(int slot, int indiceRecurso, int[] disponivel) {
+        LinhaEsparsa linha = estado.alocacao(slot);
+        synchronized (linha) {
+            int pos = 0;
+            for (int r = 0; r < numRecursos; r++) {
+                int alocado = 0;
+                if (pos < linha.tamanho() && linha.recursoNa(pos) == r) {
+                    alocado = linha.quantidadeNa(pos++);
+                }
+                // A concessão tira uma unidade da necessidade e uma do disponível: a comparação não muda.
+                if (maximo(slot, r) - alocado > disponivel[r]) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    // Após a concessão só o recurso concedido muda: o trabalho diminui de uma unidade para quem vem
+    // antes do requerente e fica igual do requerente em diante (a unidade volta com ele).
+    private boolean prefixoContinuaSeguro(int slot, int indiceRecurso, int[] disponivel) {
+        int trabalho = disponivel[indiceRecurso] - 1;
+        for (int s = cabeca; s != slot; s = proximo[s]) {
+            int alocado = estado.alocacao(s).get(indiceRecurso);
+            if (maximo(s, indiceRecurso) - alocado > trabalho) {
+                return false;
+            }
+            trabalho += alocado;
+        }
+        return true;
+    }
+
+    // Algoritmo de segurança completo sobre o estado com a concessão hipotética, pela mesma lista
+    // de trabalho do DetectorListaTrabalho. Se o estado é seguro, a ordem encontrada vira a sequência.
+    private boolean recalcular(int slotConcedido, int recursoConcedido, int[] disponivel) {
+        int[] slots = new int[tamanho];
+        int n = 0;
+        for (int s = cabeca; s >= 0; s = proximo[s]) {
+            slots[n++] = s;
+        }
+        int[] trabalho = disponivel.clone();
+        trabalho[recursoConcedido]--;
+
+        // Necessidades e alocações densas por processo (n × m), no mesmo formato contíguo.
+        int[] necessidade = new int[n * numRecursos];
+        int[] alocacao = new int[n * numRecursos];
+        for (int i = 0; i < n; i++) {
+            int s = slots[i];
+            LinhaEsparsa linha = estado.alocacao(s);
+            synchronized (linha) {
+                for (int pos = 0; pos < linha.tamanho(); pos++) {
+                    alocacao[i * numRecursos + linha.recursoNa(pos)] = linha.quantidadeNa(pos);
+                }
+            }
+            if (s == slotConcedido) {
+                alocacao[i * numRecursos + recursoConcedido]++;
+            }
+            for (int r = 0; r < numRecursos; r++) {
+                necessidade[i * numRecursos + r] = maximo(s, r) - alocacao[i * numRecursos + r];
+            }
+        }
+
+        int[] pendentes = new int[n];
+        int[] inicioEspera = new int[numRecursos + 1];
+        int[] lista = new int[n];
+        int topo = 0;
+        for (int i = 0; i < n; i++) {
+            for (int r = 0; r < numRecursos; r++) {
+                if (necessidade[i * numRecursos + r] > trabalho[r]) {
+                    pendentes[i]++;
+                    inicioEspera[r + 1]++;
+                }
+            }
+            if (pendentes[i] == 0) {
+                lista[topo++] = i;
+            }
+        }
+        for (int r = 0; r < numRecursos; r++) {
+            inicioEspera[r + 1] += inicioEspera[r];
+        }
+        long[] espera = new long[inicioEspera[numRecursos]];
+        int[] cursor = Arrays.copyOf(inicioEspera, numRecursos);
+        for (int i = 0; i < n; i++) {
+            for (int r = 0; r < numRecursos; r++) {
+                if (necessidade[i * numRecursos + r] > trabalho[r]) {
+                    espera[cursor[r]++] = (long) necessidade[i * numRecursos + r] << 32 | i;
+                }
+            }
+        }
+        for (int r = 0; r < numRecursos; r++) {
+            Arrays.sort(espera, inicioEspera[r], inicioEspera[r + 1]);
+            cursor[r] = inicioEspera[r];
+        }
+
+        int[] ordem = new int[n];
+        int terminados = 0;
+        while (topo > 0) {
+            int i = lista[--topo];
+            ordem[terminados++] = i;
+            for (int r = 0; r < numRecursos; r++) {
+                int a = alocacao[i * numRecursos + r];
+                if (a == 0) {
+                    continue;
+                }
+                int t = trabalho[r] += a;
+                int c = cursor[r];
+                while (c < inicioEspera[r + 1] && (espera[c] >>> 32) <= t) {
+                    int p = (int) espera[c++];
+                    if (--pendentes[p] == 0) {
+                        lista[topo++] = p;
+                    }
+                }
+                cursor[r] = c;
+            }
+        }
+        if (terminados < n) {
+            return false;
+        }
+
+        cabeca = -1;
+        cauda = -1;
+        tamanho = 0;
+        for (int k = 0; k < n; k++) {
+            registrar(slots[ordem[k]], maximos[slots[ordem[k]]]);
+        }
+        valida = true;
+        return true;
+    }
+
+    private void desligar(int slot) {
+        int a = anterior[slot];
+        int p = proximo[slot];
+        if (a >= 0) {
+            proximo[a] = p;
+        } else {
+            cabeca = p;
+        }
+        if (p >= 0) {
+            anterior[p] = a;
+        } else {
+            cauda = a;
+        }
+    }
+
+    private void ligarNoInicio(int slot) {
+        anterior[slot] = -1;
+        proximo[slot] = cabeca;
+        if (cabeca >= 0) {
+            anterior[cabeca] = slot;
+        } else {
+            cauda = slot;
+        }
+        cabeca = slot;
+    }
+}
@@ -0,0 +1,28 @@
+package com.example;
+
+/**
+ * Modelos de custo prontos para {@link MotorDeadlock#setCustoVitima}.
+ */
+public enum CriterioVitima implements CustoVitima {
+    // Unidades que terão de ser pedidas de novo; poupa quem já acumulou muitos recursos.
+    UNIDADES_DETIDAS {
+        @Override
+        public long custo(int idProcesso, int unidadesDetidas, long idadeNs, int reinicios) {
+            return unidadesDetidas;
+        }
+    },
+    // Trabalho perdido desde o último início; sacrifica os processos mais novos.
+    IDADE {
+        @Override
+        public long custo(int idProcesso, int unidadesDetidas, long idadeNs, int reinicios) {
+            return idadeNs;
+        }
+    },
+    // Quem já foi vítima mais vezes custa mais, para que o mesmo processo não seja sempre escolhido.
+    REINICIOS {
+        @Override
+        public long custo(int idProcesso, int unidadesDetidas, long idadeNs, int reinicios) {
+            return reinicios;
+        }
+    }
+}
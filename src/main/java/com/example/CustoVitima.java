@@ -0,0 +1,13 @@
+package com.example;
+
+/**
+ * Custo de escolher um processo em deadlock como vítima da recuperação. O motor
+ * escolhe o conjunto de vítimas de menor custo total que desfaz o deadlock.
+ * Os critérios prontos estão em {@link CriterioVitima}.
+ */
+@FunctionalInterface
+public interface CustoVitima {
+
+    // 'idadeNs' é o tempo desde que o processo começou ou foi reiniciado pela última vez.
+    long custo(int idProcesso, int unidadesDetidas, long idadeNs, int reinicios);
+}
@@ -1,28 +1,21 @@
 package com.example;
 
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.Comparator;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.List;
-import java.util.Map;
-import java.util.Random;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
+import javafx.animation.AnimationTimer;
 import javafx.application.Application;
 import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
+import javafx.scene.control.ChoiceBox;
 import javafx.scene.control.Label;
-import javafx.scene.control.ListView;
 import javafx.scene.control.TextArea;
 import javafx.scene.control.TextField;
 import javafx.scene.layout.Border;
@@ -35,35 +28,33 @@ import javafx.scene.layout.GridPane;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.Priority;
 import javafx.scene.layout.VBox;
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
+import javafx.stage.Window;
 
 public class DeadlockApp extends Application {
 
-    // --- Constantes e Variáveis Globais ---
-    private static final int MAX_PROCESSOS = 10;
-    private static final int MAX_RECURSOS = 10;
+    // --- Constantes do Log ---
+    private static final int CAPACIDADE_FILA_LOG = 8192;
+    private static final int MAX_LINHAS_LOG = 1000;
+    private static final long LIMITE_ARQUIVO_LOG = 10L * 1024 * 1024;
+    private static final int ARQUIVOS_LOG_RETIDOS = 5;
 
-    // --- Estruturas de Dados para Controle do Sistema ---
-    private final List<Recurso> tiposRecurso = new ArrayList<>();
-    private final Map<Integer, Processo> processosAtivos = new ConcurrentHashMap<>();
-    
-    private final Semaphore lockSistema = new Semaphore(1, true);
+    // --- Motor de Simulação ---
+    private final MotorDeadlock motor = new MotorDeadlock();
 
-    // Matrizes para o algoritmo de detecção de deadlock
-    private int[][] alocacao = new int[MAX_PROCESSOS][MAX_RECURSOS];
-    private int[][] requisicao = new int[MAX_PROCESSOS][MAX_RECURSOS];
-    private int[] disponivel;
+    // --- Log: produtores publicam na fila, a UI drena uma vez por quadro ---
+    private final PipelineLog pipelineLog = new PipelineLog(CAPACIDADE_FILA_LOG);
+    private final FilaInt tamanhosLinhasLog = new FilaInt();
+    private int caracteresLog;
 
     // --- Componentes da Interface Gráfica ---
     private final TextArea logArea = new TextArea();
-    private final ListView<String> processosStatusList = new ListView<>();
-    private final ListView<String> recursosStatusList = new ListView<>();
+    private final PainelStatus painelStatus = new PainelStatus(motor);
     private final Label deadlockStatusLabel = new Label("Status Deadlock: Nenhum deadlock detectado.");
 
-    // --- Controle de Threads ---
-    private ExecutorService executorProcessos = Executors.newFixedThreadPool(MAX_PROCESSOS);
-    private SistemaOperacional so;
-    private Thread threadSO;
+    // --- Monitor de threads de uma JVM real, alimentando o mesmo motor ---
+    private MonitorThreads monitorThreads;
 
     public static void main(String[] args) {
         launch(args);
@@ -72,6 +63,9 @@ public class DeadlockApp extends Application {
     @Override
     public void start(Stage primaryStage) {
         primaryStage.setTitle("Simulador de Detecção de Deadlock com Semáforos");
+        motor.adicionarOuvinte(new OuvinteInterface());
+        motor.getMetricas().exportar("interface");
+        iniciarAtualizacaoPorQuadro();
 
         BorderPane root = new BorderPane();
         root.setPadding(new Insets(10));
@@ -86,12 +80,12 @@ public class DeadlockApp extends Application {
         Scene scene = new Scene(root, 1000, 800);
         primaryStage.setScene(scene);
         primaryStage.setOnCloseRequest(e -> {
-            if (executorProcessos != null) {
-                executorProcessos.shutdownNow();
-            }
-            if (threadSO != null) {
-                threadSO.interrupt();
+            motor.pararSimulacao();
+            if (monitorThreads != null) {
+                monitorThreads.parar();
             }
+            pipelineLog.fechar();
+            motor.getMetricas().fechar();
         });
         primaryStage.show();
     }
@@ -126,7 +120,7 @@ public class DeadlockApp extends Application {
         processGrid.setBorder(new Border(new BorderStroke(null, BorderStrokeStyle.SOLID, new CornerRadii(5), BorderWidths.DEFAULT)));
 
         TextField idProcessoField = new TextField();
-        idProcessoField.setPromptText("Ex: 1 (1-" + MAX_PROCESSOS + ")");
+        idProcessoField.setPromptText("Ex: 1");
         TextField tempoSolicitacaoField = new TextField();
         tempoSolicitacaoField.setPromptText("ΔTs (segundos)");
         TextField tempoUtilizacaoField = new TextField();
@@ -153,17 +147,85 @@ public class DeadlockApp extends Application {
         tempoVerificacaoField.setPromptText("Δt (segundos)");
         Button iniciarSimulacaoBtn = new Button("Iniciar Simulação");
         Button forcarDeadlockBtn = new Button("Criar Exemplo de Deadlock");
+        Button salvarEstadoBtn = new Button("Salvar Estado");
+        Button carregarEstadoBtn = new Button("Carregar Estado");
+        TextField alvoMonitorField = new TextField();
+        alvoMonitorField.setPromptText("host:porta (vazio = esta JVM)");
+        Button monitorarBtn = new Button("Monitorar JVM");
+        ChoiceBox<ModoDeteccao> modoDeteccaoBox = new ChoiceBox<>();
+        modoDeteccaoBox.getItems().setAll(ModoDeteccao.values());
+        modoDeteccaoBox.setValue(motor.getModoDeteccao());
+        ChoiceBox<ModoConcorrencia> modoConcorrenciaBox = new ChoiceBox<>();
+        modoConcorrenciaBox.getItems().setAll(ModoConcorrencia.values());
+        modoConcorrenciaBox.setValue(motor.getModoConcorrencia());
+        ChoiceBox<ModoAlocacao> modoAlocacaoBox = new ChoiceBox<>();
+        modoAlocacaoBox.getItems().setAll(ModoAlocacao.values());
+        modoAlocacaoBox.setValue(motor.getModoAlocacao());
+        ChoiceBox<ModoRecuperacao> modoRecuperacaoBox = new ChoiceBox<>();
+        modoRecuperacaoBox.getItems().setAll(ModoRecuperacao.values());
+        modoRecuperacaoBox.setValue(motor.getModoRecuperacao());
+        ChoiceBox<ModoIsolamento> modoIsolamentoBox = new ChoiceBox<>();
+        modoIsolamentoBox.getItems().setAll(ModoIsolamento.values());
+        modoIsolamentoBox.setValue(motor.getModoIsolamento());
+        ChoiceBox<CriterioVitima> criterioVitimaBox = new ChoiceBox<>();
+        criterioVitimaBox.getItems().setAll(CriterioVitima.values());
+        criterioVitimaBox.setValue(CriterioVitima.UNIDADES_DETIDAS);
 
         soGrid.add(new Label("Intervalo de Verificação SO (s):"), 0, 0);
         soGrid.add(tempoVerificacaoField, 1, 0);
-        soGrid.add(iniciarSimulacaoBtn, 1, 1);
-        soGrid.add(forcarDeadlockBtn, 2, 1);
+        soGrid.add(new Label("Modo de Detecção:"), 0, 1);
+        soGrid.add(modoDeteccaoBox, 1, 1);
+        soGrid.add(new Label("Concorrência:"), 0, 2);
+        soGrid.add(modoConcorrenciaBox, 1, 2);
+        soGrid.add(new Label("Alocação:"), 0, 3);
+        soGrid.add(modoAlocacaoBox, 1, 3);
+        soGrid.add(new Label("Recuperação:"), 0, 4);
+        soGrid.add(modoRecuperacaoBox, 1, 4);
+        soGrid.add(new Label("Critério da vítima:"), 0, 5);
+        soGrid.add(criterioVitimaBox, 1, 5);
+        soGrid.add(new Label("Isolamento da detecção:"), 0, 6);
+        soGrid.add(modoIsolamentoBox, 1, 6);
+        soGrid.add(iniciarSimulacaoBtn, 1, 7);
+        soGrid.add(forcarDeadlockBtn, 2, 7);
+        soGrid.add(salvarEstadoBtn, 1, 8);
+        soGrid.add(carregarEstadoBtn, 2, 8);
+        soGrid.add(alvoMonitorField, 1, 9);
+        soGrid.add(monitorarBtn, 2, 9);
 
         addRecursoBtn.setOnAction(e -> adicionarRecurso(nomeRecursoField.getText(), idRecursoField.getText(), qtdRecursoField.getText()));
         addProcessoBtn.setOnAction(e -> adicionarProcesso(idProcessoField.getText(), tempoSolicitacaoField.getText(), tempoUtilizacaoField.getText()));
         removerProcessoBtn.setOnAction(e -> removerProcesso(idProcessoField.getText()));
         iniciarSimulacaoBtn.setOnAction(e -> iniciarSimulacao(tempoVerificacaoField.getText()));
         forcarDeadlockBtn.setOnAction(e -> forcarDeadlock());
+        salvarEstadoBtn.setOnAction(e -> salvarEstado(salvarEstadoBtn.getScene().getWindow()));
+        carregarEstadoBtn.setOnAction(e -> carregarEstado(carregarEstadoBtn.getScene().getWindow()));
+        monitorarBtn.setOnAction(e -> alternarMonitor(alvoMonitorField.getText(), monitorarBtn));
+        modoDeteccaoBox.setOnAction(e -> motor.setModoDeteccao(modoDeteccaoBox.getValue()));
+        modoRecuperacaoBox.setOnAction(e -> motor.setModoRecuperacao(modoRecuperacaoBox.getValue()));
+        criterioVitimaBox.setOnAction(e -> motor.setCustoVitima(criterioVitimaBox.getValue()));
+        modoIsolamentoBox.setOnAction(e -> motor.setModoIsolamento(modoIsolamentoBox.getValue()));
+        modoConcorrenciaBox.setOnAction(e -> {
+            if (modoConcorrenciaBox.getValue() == motor.getModoConcorrencia()) {
+                return;
+            }
+            try {
+                motor.setModoConcorrencia(modoConcorrenciaBox.getValue());
+            } catch (IllegalStateException ex) {
+                log("ERRO: " + ex.getMessage());
+                modoConcorrenciaBox.setValue(motor.getModoConcorrencia());
+            }
+        });
+        modoAlocacaoBox.setOnAction(e -> {
+            if (modoAlocacaoBox.getValue() == motor.getModoAlocacao()) {
+                return;
+            }
+            try {
+                motor.setModoAlocacao(modoAlocacaoBox.getValue());
+            } catch (IllegalStateException ex) {
+                log("ERRO: " + ex.getMessage());
+                modoAlocacaoBox.setValue(motor.getModoAlocacao());
+            }
+        });
 
         HBox configHBox = new HBox(20, resourceGrid, processGrid, soGrid);
         configHBox.setAlignment(Pos.CENTER);
@@ -181,8 +243,8 @@ public class DeadlockApp extends Application {
         statusPane.setVgap(10);
         statusPane.setPadding(new Insets(20, 0, 20, 0));
 
-        VBox processosBox = new VBox(5, new Label("Status dos Processos"), processosStatusList);
-        VBox recursosBox = new VBox(5, new Label("Status dos Recursos"), recursosStatusList);
+        VBox processosBox = new VBox(5, new Label("Status dos Processos"), painelStatus.getProcessosStatusList());
+        VBox recursosBox = new VBox(5, new Label("Status dos Recursos"), painelStatus.getRecursosStatusList());
 
         statusPane.add(processosBox, 0, 0);
         statusPane.add(recursosBox, 1, 0);
@@ -197,611 +259,211 @@ public class DeadlockApp extends Application {
     // --- Lógica de Negócio ---
 
     private void adicionarRecurso(String nome, String idStr, String qtdStr) {
-        if (so != null && so.isAlive()) {
+        if (motor.isSimulacaoAtiva()) {
             log("ERRO: Não é possível adicionar recursos após o início da simulação.");
             return;
         }
         try {
             int id = Integer.parseInt(idStr);
             int quantidade = Integer.parseInt(qtdStr);
-
-            if (nome.isEmpty() || tiposRecurso.size() >= MAX_RECURSOS) {
-                log("ERRO: Nome do recurso inválido ou limite de tipos de recurso atingido.");
-                return;
-            }
-            if (tiposRecurso.stream().anyMatch(r -> r.id == id || r.nome.equalsIgnoreCase(nome))) {
-                log("ERRO: ID ou nome de recurso já existe.");
-                return;
-            }
-
-            Recurso novoRecurso = new Recurso(nome, id, quantidade);
-            tiposRecurso.add(novoRecurso);
-            tiposRecurso.sort(Comparator.comparingInt(r -> r.id)); 
-            log("INFO: Recurso '" + nome + "' (ID: " + id + ", Qtd: " + quantidade + ") adicionado.");
-            atualizarStatusRecursos();
-
+            motor.adicionarRecurso(nome, id, quantidade);
         } catch (NumberFormatException ex) {
             log("ERRO: ID e Quantidade do recurso devem ser números inteiros.");
+        } catch (IllegalArgumentException | IllegalStateException ex) {
+            log("ERRO: " + ex.getMessage());
         }
     }
 
     private void adicionarProcesso(String idStr, String tsStr, String tuStr) {
-        if (tiposRecurso.isEmpty()) {
-            log("ERRO: Adicione pelo menos um tipo de recurso antes de criar um processo.");
-            return;
-        }
-        if (so != null && so.isAlive()) {
-             log("ERRO: Não é possível adicionar processos após o início da simulação.");
-            return;
-        }
-
         try {
             int id = Integer.parseInt(idStr);
             long ts = Long.parseLong(tsStr);
             long tu = Long.parseLong(tuStr);
-
-            if (id <= 0 || id > MAX_PROCESSOS) {
-                log("ERRO: ID do processo deve ser entre 1 e " + MAX_PROCESSOS + ".");
-                return;
-            }
-            if (processosAtivos.containsKey(id)) {
-                log("ERRO: Processo com ID " + id + " já existe.");
-                return;
-            }
-
-            Processo p = new Processo(id, ts, tu, this);
-            processosAtivos.put(id, p);
-            log("INFO: Processo " + id + " criado.");
-            atualizarStatusProcessos();
-
+            motor.adicionarProcesso(id, ts, tu);
         } catch (NumberFormatException ex) {
             log("ERRO: ID, ΔTs e ΔTu do processo devem ser números.");
+        } catch (IllegalArgumentException | IllegalStateException ex) {
+            log("ERRO: " + ex.getMessage());
         }
     }
-    
+
     private void removerProcesso(String idStr) {
         try {
-            int id = Integer.parseInt(idStr);
-            Processo p = processosAtivos.get(id);
-
-            if (p != null) {
-                p.parar();
-                processosAtivos.remove(id);
-                liberarRecursosDeProcesso(p.idProcesso);
-                log("INFO: Processo " + id + " removido e seus recursos foram liberados.");
-                atualizarStatusProcessos();
-                atualizarStatusRecursos();
-            } else {
-                log("ERRO: Processo com ID " + id + " não encontrado.");
-            }
+            motor.removerProcesso(Integer.parseInt(idStr));
         } catch (NumberFormatException ex) {
             log("ERRO: ID do processo deve ser um número.");
+        } catch (IllegalArgumentException ex) {
+            log("ERRO: " + ex.getMessage());
         }
     }
 
     private void iniciarSimulacao(String dtStr) {
-        if (tiposRecurso.isEmpty() || processosAtivos.isEmpty()) {
-            log("ERRO: Adicione recursos e processos antes de iniciar.");
-            return;
-        }
-        if (so != null && so.isAlive()) {
-             log("ERRO: Simulação já iniciada.");
-            return;
-        }
-
         try {
-            long dt = Long.parseLong(dtStr);
-
-            if (disponivel == null) {
-                disponivel = new int[tiposRecurso.size()];
-                for (int i = 0; i < tiposRecurso.size(); i++) {
-                    disponivel[i] = tiposRecurso.get(i).quantidadeTotal;
-                }
-            }
-
-            so = new SistemaOperacional(dt, this);
-            threadSO = new Thread(so);
-            threadSO.setDaemon(true);
-            threadSO.start();
-
-            executorProcessos = Executors.newFixedThreadPool(MAX_PROCESSOS);
-            processosAtivos.values().forEach(executorProcessos::submit);
-            
-            log("INFO: Simulação iniciada. Verificação de deadlock a cada " + dt + " segundos.");
-            atualizarStatusRecursos();
-
+            // Aceita frações de segundo (0.25 = 250 ms).
+            motor.iniciarSimulacao(Math.round(Double.parseDouble(dtStr.replace(',', '.')) * 1000), TimeUnit.MILLISECONDS);
         } catch (NumberFormatException ex) {
             log("ERRO: Intervalo de verificação (Δt) deve ser um número.");
+        } catch (IllegalStateException | IllegalArgumentException ex) {
+            log("ERRO: " + ex.getMessage());
         }
     }
 
     private void forcarDeadlock() {
-        if (so != null && so.isAlive()) {
-            log("ERRO: Não é possível forçar deadlock com a simulação em andamento.");
-            return;
-        }
-
-        tiposRecurso.clear();
-        processosAtivos.clear();
-        alocacao = new int[MAX_PROCESSOS][MAX_RECURSOS];
-        requisicao = new int[MAX_PROCESSOS][MAX_RECURSOS];
-        disponivel = null;
-        log("INFO: Configuração reiniciada para exemplo de deadlock.");
-
-        adicionarRecurso("Impressora", "1", "1");
-        adicionarRecurso("Scanner", "2", "1");
-
-        adicionarProcesso("1", "999", "999");
-        adicionarProcesso("2", "999", "999");
-
         try {
-            lockSistema.acquire();
-            try {
-                disponivel = new int[tiposRecurso.size()];
-                for (int i = 0; i < tiposRecurso.size(); i++) {
-                    disponivel[i] = tiposRecurso.get(i).quantidadeTotal;
-                }
-
-                alocacao[0][0] = 1;
-                disponivel[0]--;
-                alocacao[1][1] = 1;
-                disponivel[1]--;
-
-                requisicao[0][1] = 1;
-                processosAtivos.get(1).bloquear(1);
-                requisicao[1][0] = 1;
-                processosAtivos.get(2).bloquear(0);
-
-                log("INFO: Estado de deadlock forçado manualmente.");
-                log("INFO: P1 alocou Impressora e espera por Scanner.");
-                log("INFO: P2 alocou Scanner e espera por Impressora.");
-                log("INFO: Clique em 'Iniciar Simulação' para que o SO detecte o deadlock.");
-
-            } finally {
-                lockSistema.release();
-            }
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            log("ERRO: A configuração de deadlock foi interrompida.");
+            motor.forcarDeadlock();
+        } catch (IllegalStateException ex) {
+            log("ERRO: " + ex.getMessage());
         }
-        atualizarTodosStatus();
     }
 
-
-    // --- Métodos de Sincronização e Comunicação ---
-
-    public void solicitarRecurso(int idProcesso, int indiceRecurso) {
+    private void salvarEstado(Window janela) {
+        File arquivo = criarSeletorInstantaneo().showSaveDialog(janela);
+        if (arquivo == null) {
+            return;
+        }
         try {
-            lockSistema.acquire();
-            try {
-                log("PROCESSO " + idProcesso + " está a solicitar " + getNomeRecurso(indiceRecurso));
-                if (disponivel[indiceRecurso] > 0) {
-                    disponivel[indiceRecurso]--;
-                    alocacao[idProcesso - 1][indiceRecurso]++;
-                    log("PROCESSO " + idProcesso + " alocou o recurso " + getNomeRecurso(indiceRecurso));
-                } else {
-                    requisicao[idProcesso - 1][indiceRecurso]++;
-                    Processo p = processosAtivos.get(idProcesso);
-                    if (p != null) {
-                        p.bloquear(indiceRecurso);
-                        log("PROCESSO " + idProcesso + " bloqueado esperando por " + getNomeRecurso(indiceRecurso));
-                    }
-                }
-                atualizarTodosStatus();
-            } finally {
-                lockSistema.release();
-            }
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
+            motor.salvarEstado(arquivo.toPath());
+        } catch (IOException ex) {
+            log("ERRO: Não foi possível gravar o estado: " + ex.getMessage());
         }
     }
 
-    public void liberarRecurso(int idProcesso, int indiceRecurso) {
-        try {
-            lockSistema.acquire();
-            try {
-                if (alocacao[idProcesso - 1][indiceRecurso] > 0) {
-                    alocacao[idProcesso - 1][indiceRecurso]--;
-                    disponivel[indiceRecurso]++;
-                    log("PROCESSO " + idProcesso + " liberou o recurso " + getNomeRecurso(indiceRecurso));
-                    acordarProcessos(indiceRecurso);
-                    atualizarTodosStatus();
-                }
-            } finally {
-                lockSistema.release();
-            }
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
+    private void carregarEstado(Window janela) {
+        File arquivo = criarSeletorInstantaneo().showOpenDialog(janela);
+        if (arquivo == null) {
+            return;
         }
-    }
-    
-    private void liberarRecursosDeProcesso(int idProcesso) {
         try {
-            lockSistema.acquire();
-            try {
-                for (int i = 0; i < tiposRecurso.size(); i++) {
-                    if (alocacao[idProcesso - 1][i] > 0) {
-                        disponivel[i] += alocacao[idProcesso - 1][i];
-                        alocacao[idProcesso - 1][i] = 0;
-                        acordarProcessos(i);
-                    }
-                    requisicao[idProcesso - 1][i] = 0;
-                }
-            } finally {
-                lockSistema.release();
-            }
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
+            motor.carregarEstado(arquivo.toPath());
+        } catch (IOException ex) {
+            log("ERRO: Não foi possível carregar o estado: " + ex.getMessage());
+        } catch (IllegalStateException ex) {
+            log("ERRO: " + ex.getMessage());
         }
     }
 
-    private void acordarProcessos(int indiceRecurso) {
-        for (int i = 0; i < MAX_PROCESSOS; i++) {
-            if (requisicao[i][indiceRecurso] > 0) {
-                Processo p = processosAtivos.get(i + 1);
-                if (p != null && p.getStatus() == StatusProcesso.BLOQUEADO && disponivel[indiceRecurso] > 0) {
-                    disponivel[indiceRecurso]--;
-                    alocacao[i][indiceRecurso]++;
-                    requisicao[i][indiceRecurso]--;
-                    p.acordar();
-                    log("PROCESSO " + p.idProcesso + " foi acordado e alocou " + getNomeRecurso(indiceRecurso));
-                }
-            }
+    // Liga ou desliga a observação das threads. Enquanto liga, a configuração do motor é a da JVM observada.
+    private void alternarMonitor(String alvo, Button botao) {
+        if (monitorThreads != null && monitorThreads.isRodando()) {
+            monitorThreads.parar();
+            botao.setText("Monitorar JVM");
+            log("INFO: Monitor de threads parado.");
+            return;
+        }
+        if (motor.isSimulacaoAtiva()) {
+            log("ERRO: Não é possível monitorar threads com a simulação em andamento.");
+            return;
         }
-    }
-    
-    public void detectarDeadlock() {
         try {
-            lockSistema.acquire();
-            try {
-                if (processosAtivos.isEmpty()) return;
-
-                int numRecursos = tiposRecurso.size();
-                int[] trabalho = Arrays.copyOf(disponivel, numRecursos);
-                boolean[] finalizar = new boolean[MAX_PROCESSOS];
-                
-                for (int i = 0; i < MAX_PROCESSOS; i++) {
-                    if (!processosAtivos.containsKey(i + 1)) {
-                        finalizar[i] = true;
-                    } else {
-                        finalizar[i] = !processoTemRecursosNoIndice(i);
-                    }
-                }
-
-                boolean encontrouProcesso;
-                do {
-                    encontrouProcesso = false;
-                    for (int i = 0; i < MAX_PROCESSOS; i++) {
-                        if (!finalizar[i] && processoPodeExecutar(i, trabalho, numRecursos)) {
-                            for (int j = 0; j < numRecursos; j++) {
-                                trabalho[j] += alocacao[i][j];
-                            }
-                            finalizar[i] = true;
-                            encontrouProcesso = true;
-                        }
-                    }
-                } while (encontrouProcesso);
-
-                List<Integer> processosEmDeadlock = new ArrayList<>();
-                for (int i = 0; i < MAX_PROCESSOS; i++) {
-                    if (processosAtivos.containsKey(i + 1) && !finalizar[i]) {
-                        processosEmDeadlock.add(i + 1);
-                    }
-                }
-
-                Platform.runLater(() -> {
-                    if (processosEmDeadlock.isEmpty()) {
-                        deadlockStatusLabel.setText("Status Deadlock: Nenhum deadlock detectado.");
-                        deadlockStatusLabel.setStyle("-fx-text-fill: green;");
-                    } else {
-                        String ids = processosEmDeadlock.stream()
-                                                        .map(String::valueOf)
-                                                        .collect(Collectors.joining(", "));
-                        deadlockStatusLabel.setText("DEADLOCK DETECTADO! Processos envolvidos: " + ids);
-                        deadlockStatusLabel.setStyle("-fx-text-fill: red; -fx-font-weight: bold;");
-                        log("DEADLOCK: Detectado envolvendo processos: " + ids);
-                    }
-                });
-
-            } finally {
-                lockSistema.release();
-            }
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
+            monitorThreads = alvo.isBlank() ? MonitorThreads.local(motor) : MonitorThreads.remoto(alvo.trim(), motor);
+            monitorThreads.iniciar();
+            botao.setText("Parar Monitor");
+            log("INFO: Monitorando threads de " + (alvo.isBlank() ? "esta JVM" : alvo.trim()) + ".");
+        } catch (IOException ex) {
+            log("ERRO: Não foi possível conectar a " + alvo.trim() + ": " + ex.getMessage());
         }
     }
 
-    private boolean processoPodeExecutar(int idProcessoIndex, int[] trabalho, int numRecursos) {
-        for (int j = 0; j < numRecursos; j++) {
-            if (requisicao[idProcessoIndex][j] > trabalho[j]) {
-                return false;
-            }
-        }
-        return true;
+    private FileChooser criarSeletorInstantaneo() {
+        FileChooser seletor = new FileChooser();
+        seletor.setTitle("Instantâneo do Estado");
+        seletor.getExtensionFilters().add(new FileChooser.ExtensionFilter("Instantâneo (*.dlks)", "*.dlks"));
+        return seletor;
     }
 
 
-    // --- Métodos de Atualização da UI ---
+    // --- Observador do Motor ---
 
-    public void log(String message) {
-        Platform.runLater(() -> logArea.appendText(message + "\n"));
-    }
-    
-    public void logUsoRecurso(int idProcesso, int indiceRecurso) {
-        Processo p = processosAtivos.get(idProcesso);
-        if (p != null) {
-            log("PROCESSO " + idProcesso + " está a UTILIZAR " + getNomeRecurso(indiceRecurso) + " por " + p.getTempoUtilizacao() + "s.");
+    private class OuvinteInterface implements OuvinteMotor {
+        @Override
+        public void log(String mensagem) {
+            DeadlockApp.this.log(mensagem);
         }
-    }
 
-    private void atualizarTodosStatus() {
-        atualizarStatusProcessos();
-        atualizarStatusRecursos();
-    }
-
-    private void atualizarStatusProcessos() {
-        Platform.runLater(() -> {
-            processosStatusList.getItems().clear();
-            List<Integer> sortedIds = new ArrayList<>(processosAtivos.keySet());
-            Collections.sort(sortedIds);
-
-            for (Integer id : sortedIds) {
-                Processo p = processosAtivos.get(id);
-                if (p != null) {
-                    String status = "P" + id + " - Status: " + p.getStatus();
-                    String alocados = getRecursosAlocadosString(p.idProcesso);
-                    if (!alocados.isEmpty()) {
-                        status += " | Alocado: " + alocados;
-                    }
-                    if (p.getStatus() == StatusProcesso.BLOQUEADO) {
-                        status += " | Esperando por: " + getNomeRecurso(p.getRecursoEsperado());
-                    }
-                    processosStatusList.getItems().add(status);
-                }
-            }
-        });
-    }
-
-    private void atualizarStatusRecursos() {
-        Platform.runLater(() -> {
-            recursosStatusList.getItems().clear();
-            for (int i = 0; i < tiposRecurso.size(); i++) {
-                Recurso r = tiposRecurso.get(i);
-                String status;
-                if (disponivel != null && i < disponivel.length) {
-                    status = r.nome + " (ID: " + r.id + ") | Total: " + r.quantidadeTotal + " | Disponível: " + disponivel[i];
-                } else {
-                    status = r.nome + " (ID: " + r.id + ") | Total: " + r.quantidadeTotal;
-                }
-                recursosStatusList.getItems().add(status);
-            }
-        });
-    }
-
-    // --- Métodos Auxiliares ---
-    public Recurso getTipoRecurso(int indice) {
-        if (indice >= 0 && indice < tiposRecurso.size()) {
-            return tiposRecurso.get(indice);
+        @Override
+        public void estadoAlterado() {
+            painelStatus.marcarEstrutura();
         }
-        return null;
-    }
-    
-    public int getNumTiposRecurso() {
-        return tiposRecurso.size();
-    }
 
-    private String getNomeRecurso(int indice) {
-        Recurso r = getTipoRecurso(indice);
-        return r != null ? r.nome : "N/A";
-    }
-
-    private String getRecursosAlocadosString(int idProcesso) {
-        StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < tiposRecurso.size(); i++) {
-            if (alocacao[idProcesso - 1][i] > 0) {
-                sb.append(getNomeRecurso(i)).append(" (").append(alocacao[idProcesso - 1][i]).append(") ");
-            }
+        @Override
+        public void processoAlterado(int idProcesso) {
+            painelStatus.marcarProcesso(idProcesso);
         }
-        return sb.toString().trim();
-    }
-    
-    private boolean processoTemRecursosNoIndice(int processoIndex) {
-        if (processoIndex < 0 || processoIndex >= alocacao.length) return false;
-        for (int i = 0; i < tiposRecurso.size(); i++) {
-            if (alocacao[processoIndex][i] > 0) {
-                return true;
-            }
-        }
-        return false;
-    }
-}
 
-// =================================================================================
-// CLASSE RECURSO
-// =================================================================================
-class Recurso {
-    final String nome;
-    final int id;
-    final int quantidadeTotal;
-
-    public Recurso(String nome, int id, int quantidadeTotal) {
-        this.nome = nome;
-        this.id = id;
-        this.quantidadeTotal = quantidadeTotal;
-    }
-}
-
-// =================================================================================
-// ENUM STATUS PROCESSO
-// =================================================================================
-enum StatusProcesso {
-    EXECUTANDO,
-    BLOQUEADO
-}
-
-// =================================================================================
-// CLASSE PROCESSO (THREAD)
-// =================================================================================
-class Processo implements Runnable {
-    final int idProcesso;
-    private final long tempoSolicitacao; // ΔTs em segundos
-    private final long tempoUtilizacao;  // ΔTu em segundos
-    private final DeadlockApp app;
-
-    private volatile StatusProcesso status;
-    private volatile boolean rodando = true;
-    private volatile Thread thread;
-    
-    private final Semaphore semaforoBloqueio = new Semaphore(0);
-    private int recursoEsperado = -1;
-
-    private static class RecursoAlocado {
-        final int indiceRecurso;
-        final long tempoLiberacao;
-
-        RecursoAlocado(int indice, long tempoDeUsoMs) {
-            this.indiceRecurso = indice;
-            this.tempoLiberacao = System.currentTimeMillis() + tempoDeUsoMs;
+        @Override
+        public void recursoAlterado(int indiceRecurso) {
+            painelStatus.marcarRecurso(indiceRecurso);
         }
-    }
-
-    private final List<RecursoAlocado> recursosEmUso = Collections.synchronizedList(new ArrayList<>());
-    
-    private long proximaSolicitacao;
-
-    public Processo(int id, long ts, long tu, DeadlockApp app) {
-        this.idProcesso = id;
-        this.tempoSolicitacao = ts;
-        this.tempoUtilizacao = tu;
-        this.app = app;
-        this.status = StatusProcesso.EXECUTANDO;
-    }
-
-    @Override
-    public void run() {
-        this.thread = Thread.currentThread();
-        this.proximaSolicitacao = System.currentTimeMillis() + (tempoSolicitacao * 1000);
 
-        while (rodando) {
-            try {
-                long agora = System.currentTimeMillis();
-
-                // 1. VERIFICA SE PRECISA LIBERAR RECURSOS
-                synchronized (recursosEmUso) {
-                    recursosEmUso.removeIf(recurso -> {
-                        if (agora >= recurso.tempoLiberacao) {
-                            app.liberarRecurso(idProcesso, recurso.indiceRecurso);
-                            return true;
-                        }
-                        return false;
-                    });
-                }
-
-                // 2. VERIFICA SE PRECISA SOLICITAR NOVO RECURSO
-                if (agora >= proximaSolicitacao) {
-                    
-                    // CORREÇÃO: Cria uma lista de recursos que o processo ainda não possui.
-                    List<Integer> recursosSolicitaveis = IntStream.range(0, app.getNumTiposRecurso())
-                                                                  .boxed()
-                                                                  .collect(Collectors.toList());
-                    synchronized(recursosEmUso) {
-                        for(RecursoAlocado ra : recursosEmUso) {
-                            recursosSolicitaveis.remove(Integer.valueOf(ra.indiceRecurso));
-                        }
-                    }
-
-                    if (!recursosSolicitaveis.isEmpty()) {
-                        // Escolhe um recurso aleatório da lista de solicitáveis
-                        int indiceRecursoSolicitado = recursosSolicitaveis.get(new Random().nextInt(recursosSolicitaveis.size()));
-                        
-                        app.solicitarRecurso(idProcesso, indiceRecursoSolicitado);
-
-                        if (status == StatusProcesso.BLOQUEADO) {
-                            semaforoBloqueio.acquire();
-                        }
-                        
-                        // Se não foi bloqueado (ou foi acordado), adiciona o recurso à lista de gerenciamento
-                        if (status == StatusProcesso.EXECUTANDO) {
-                            recursosEmUso.add(new RecursoAlocado(indiceRecursoSolicitado, tempoUtilizacao * 1000));
-                            app.logUsoRecurso(idProcesso, indiceRecursoSolicitado);
-                        }
-                    } else {
-                        app.log("PROCESSO " + idProcesso + " já possui todos os tipos de recursos. Nenhuma nova solicitação será feita por enquanto.");
-                    }
-
-                    // Agenda a próxima solicitação independentemente de ter conseguido ou não
-                    this.proximaSolicitacao = System.currentTimeMillis() + (tempoSolicitacao * 1000);
+        @Override
+        public void deadlockVerificado(List<Integer> processosEmDeadlock) {
+            Platform.runLater(() -> {
+                if (processosEmDeadlock.isEmpty()) {
+                    deadlockStatusLabel.setText("Status Deadlock: Nenhum deadlock detectado.");
+                    deadlockStatusLabel.setStyle("-fx-text-fill: green;");
+                } else {
+                    String ids = processosEmDeadlock.stream()
+                                                    .map(String::valueOf)
+                                                    .collect(Collectors.joining(", "));
+                    deadlockStatusLabel.setText("DEADLOCK DETECTADO! Processos envolvidos: " + ids);
+                    deadlockStatusLabel.setStyle("-fx-text-fill: red; -fx-font-weight: bold;");
                 }
-
-                TimeUnit.MILLISECONDS.sleep(100);
-
-            } catch (InterruptedException e) {
-                rodando = false;
-                Thread.currentThread().interrupt();
-            }
-        }
-        System.out.println("Processo " + idProcesso + " encerrado.");
-    }
-
-    public void parar() {
-        this.rodando = false;
-        if (thread != null) {
-            thread.interrupt();
+            });
         }
     }
 
-    public void bloquear(int indiceRecurso) {
-        this.status = StatusProcesso.BLOQUEADO;
-        this.recursoEsperado = indiceRecurso;
-    }
-
-    public void acordar() {
-        this.status = StatusProcesso.EXECUTANDO;
-        this.recursoEsperado = -1;
-        semaforoBloqueio.release();
-    }
-    
-    public StatusProcesso getStatus() {
-        return status;
-    }
-    
-    public int getRecursoEsperado() {
-        return recursoEsperado;
-    }
 
-    public long getTempoUtilizacao() {
-        return tempoUtilizacao;
-    }
-}
+    // --- Métodos de Atualização da UI ---
 
-// =================================================================================
-// CLASSE SISTEMA OPERACIONAL (THREAD)
-// =================================================================================
-class SistemaOperacional implements Runnable {
-    private final long intervaloVerificacao;
-    private final DeadlockApp app;
-    private volatile boolean rodando = true;
-
-    public SistemaOperacional(long dt, DeadlockApp app) {
-        this.intervaloVerificacao = dt;
-        this.app = app;
+    public void log(String message) {
+        pipelineLog.publicar(message);
     }
 
-    @Override
-    public void run() {
-        while (rodando && !Thread.currentThread().isInterrupted()) {
+    // Liga a gravação em arquivo (propriedade deadlock.log.arquivo) e, a cada quadro, descarrega
+    // o log e atualiza as linhas marcadas dos painéis de status.
+    private void iniciarAtualizacaoPorQuadro() {
+        String arquivo = System.getProperty("deadlock.log.arquivo");
+        if (arquivo != null) {
             try {
-                TimeUnit.SECONDS.sleep(intervaloVerificacao);
-                app.detectarDeadlock();
-            } catch (InterruptedException e) {
-                rodando = false;
-                Thread.currentThread().interrupt();
+                pipelineLog.gravarEmArquivo(Paths.get(arquivo), LIMITE_ARQUIVO_LOG, ARQUIVOS_LOG_RETIDOS);
+            } catch (IOException ex) {
+                log("ERRO: Não foi possível abrir o arquivo de log " + arquivo + ": " + ex.getMessage());
             }
         }
-        System.out.println("Thread do Sistema Operacional encerrada.");
+        StringBuilder lote = new StringBuilder();
+        new AnimationTimer() {
+            @Override
+            public void handle(long agora) {
+                lote.setLength(0);
+                if (pipelineLog.drenar(lote) > 0) {
+                    anexarLog(lote);
+                }
+                painelStatus.atualizar();
+            }
+        }.start();
     }
-    
-    public boolean isAlive() {
-        return rodando && !Thread.currentThread().isInterrupted();
+
+    // Acrescenta o lote à área de log e descarta as linhas mais antigas acima de MAX_LINHAS_LOG.
+    private void anexarLog(StringBuilder lote) {
+        int inicio = 0;
+        for (int i = 0; i < lote.length(); i++) {
+            if (lote.charAt(i) == '\n') {
+                tamanhosLinhasLog.adicionar(i + 1 - inicio);
+                inicio = i + 1;
+            }
+        }
+        // Um lote maior que o limite só precisa das suas últimas linhas.
+        int descartar = 0;
+        while (tamanhosLinhasLog.tamanho() > MAX_LINHAS_LOG) {
+            descartar += tamanhosLinhasLog.remover();
+        }
+        int descartarDoLote = Math.max(0, descartar - caracteresLog);
+        int descartarDaArea = descartar - descartarDoLote;
+        if (descartarDaArea > 0) {
+            logArea.deleteText(0, descartarDaArea);
+        }
+        logArea.appendText(lote.substring(descartarDoLote));
+        caracteresLog += lote.length() - descartar;
     }
+
 }
@@ -0,0 +1,11 @@
+package com.example;
+
+/**
+ * Algoritmo que encontra, numa cópia consistente do estado, os processos que
+ * não conseguem terminar.
+ */
+interface DetectorDeadlock {
+
+    // Retorna os IDs, em ordem crescente, dos processos em deadlock.
+    int[] detectar(InstantaneoAlocacao estado);
+}
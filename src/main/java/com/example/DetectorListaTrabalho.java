@@ -0,0 +1,118 @@
+package com.example;
+
+import java.util.Arrays;
+
+/**
+ * Mesmo resultado do {@link DetectorReducao} sem as passadas repetidas. Cada
+ * processo guarda quantos dos seus pedidos o trabalho ainda não cobre, e cada
+ * recurso guarda, em ordem crescente de quantidade, os pedidos pendentes sobre
+ * ele. Quando um processo termina e devolve as suas alocações, só os pedidos que
+ * passaram a caber são visitados; quem fica sem pendências entra na lista de
+ * trabalho. Custo O(E log E) no número de entradas E, contra O(n²·m) da redução
+ * no pior caso.
+ */
+class DetectorListaTrabalho implements DetectorDeadlock {
+
+    @Override
+    public int[] detectar(InstantaneoAlocacao estado) {
+        int numProcessos = estado.numProcessos();
+        int numRecursos = estado.numRecursos();
+        int[] inicioAlocacao = estado.inicioAlocacao;
+        int[] inicioRequisicao = estado.inicioRequisicao;
+        int[] recursosRequisitados = estado.recursosRequisitados;
+        int[] quantidadesRequisitadas = estado.quantidadesRequisitadas;
+        int[] trabalho = estado.disponivel.clone();
+
+        long[] finalizados = new long[(numProcessos + 63) >>> 6];
+        int[] pendentes = new int[numProcessos];
+        int[] lista = new int[numProcessos];
+        int topo = 0;
+
+        // 1. Conta os pedidos não cobertos pelo trabalho inicial, por processo e por recurso.
+        // Processos sem alocação já contam como finalizados, como na redução.
+        int[] inicioEspera = new int[numRecursos + 1];
+        for (int i = 0; i < numProcessos; i++) {
+            if (inicioAlocacao[i] == inicioAlocacao[i + 1]) {
+                finalizados[i >>> 6] |= 1L << i;
+                continue;
+            }
+            int faltam = 0;
+            for (int k = inicioRequisicao[i]; k < inicioRequisicao[i + 1]; k++) {
+                if (quantidadesRequisitadas[k] > trabalho[recursosRequisitados[k]]) {
+                    faltam++;
+                    inicioEspera[recursosRequisitados[k] + 1]++;
+                }
+            }
+            pendentes[i] = faltam;
+            if (faltam == 0) {
+                lista[topo++] = i;
+            }
+        }
+        for (int r = 0; r < numRecursos; r++) {
+            inicioEspera[r + 1] += inicioEspera[r];
+        }
+
+        // 2. Pedidos pendentes agrupados por recurso, cada um como (quantidade << 32 | processo),
+        // e ordenados dentro do grupo para que o cursor avance só sobre os que já cabem.
+        long[] espera = new long[inicioEspera[numRecursos]];
+        int[] proximo = Arrays.copyOf(inicioEspera, numRecursos);
+        for (int i = 0; i < numProcessos; i++) {
+            if (pendentes[i] == 0) {
+                continue;
+            }
+            for (int k = inicioRequisicao[i]; k < inicioRequisicao[i + 1]; k++) {
+                int r = recursosRequisitados[k];
+                if (quantidadesRequisitadas[k] > trabalho[r]) {
+                    espera[proximo[r]++] = (long) quantidadesRequisitadas[k] << 32 | i;
+                }
+            }
+        }
+        for (int r = 0; r < numRecursos; r++) {
+            Arrays.sort(espera, inicioEspera[r], inicioEspera[r + 1]);
+            proximo[r] = inicioEspera[r];
+        }
+
+        // 3. Finaliza processos enquanto houver algum sem pendências.
+        while (topo > 0) {
+            int i = lista[--topo];
+            finalizados[i >>> 6] |= 1L << i;
+            for (int k = inicioAlocacao[i]; k < inicioAlocacao[i + 1]; k++) {
+                int r = estado.recursosAlocados[k];
+                int t = trabalho[r] += estado.quantidadesAlocadas[k];
+                int fim = inicioEspera[r + 1];
+                int c = proximo[r];
+                while (c < fim && (espera[c] >>> 32) <= t) {
+                    int p = (int) espera[c++];
+                    if (--pendentes[p] == 0) {
+                        lista[topo++] = p;
+                    }
+                }
+                proximo[r] = c;
+            }
+        }
+
+        // 4. Os bits não marcados são os processos em deadlock.
+        int total = 0;
+        for (int w = 0; w < finalizados.length; w++) {
+            total += Long.bitCount(~finalizados[w] & mascaraPalavra(w, numProcessos));
+        }
+        int[] processosEmDeadlock = new int[total];
+        int j = 0;
+        for (int w = 0; w < finalizados.length; w++) {
+            long restantes = ~finalizados[w] & mascaraPalavra(w, numProcessos);
+            while (restantes != 0) {
+                int i = (w << 6) + Long.numberOfTrailingZeros(restantes);
+                processosEmDeadlock[j++] = estado.ids[i];
+                restantes &= restantes - 1;
+            }
+        }
+        Arrays.sort(processosEmDeadlock);
+        return processosEmDeadlock;
+    }
+
+    // Bits válidos da palavra w; a última palavra pode ter posições além do último processo.
+    private static long mascaraPalavra(int w, int numProcessos) {
+        int resto = numProcessos - (w << 6);
+        return resto >= 64 ? -1L : (1L << resto) - 1;
+    }
+}
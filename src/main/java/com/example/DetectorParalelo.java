@@ -0,0 +1,131 @@
+package com.example;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * A redução dividida em tarefas ForkJoin sobre a cópia imutável. Cada rodada
+ * varre, em paralelo, blocos de processos ainda não finalizados; quem pode
+ * executar é finalizado e devolve as suas alocações a um vetor de trabalho
+ * atômico. Como o trabalho só cresce, ler um valor mais novo no meio da rodada
+ * nunca finaliza um processo indevidamente, e o conjunto final é o mesmo da
+ * versão sequencial. Os blocos têm múltiplos de 64 processos, então cada palavra
+ * do bitset de finalizados pertence a uma única tarefa e é escrita sem
+ * sincronização.
+ */
+class DetectorParalelo implements DetectorDeadlock {
+
+    // Processos por tarefa folha; múltiplo de 64.
+    private static final int TAMANHO_BLOCO = 4096;
+
+    private final ForkJoinPool pool;
+
+    DetectorParalelo() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    DetectorParalelo(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public int[] detectar(InstantaneoAlocacao estado) {
+        int numProcessos = estado.numProcessos();
+        AtomicIntegerArray trabalho = new AtomicIntegerArray(estado.disponivel);
+        long[] finalizados = new long[(numProcessos + 63) >>> 6];
+
+        for (int i = 0; i < numProcessos; i++) {
+            if (estado.inicioAlocacao[i] == estado.inicioAlocacao[i + 1]) {
+                finalizados[i >>> 6] |= 1L << i;
+            }
+        }
+
+        // Repete enquanto alguma rodada finalizar processos; a junção das tarefas publica o bitset.
+        while (pool.invoke(new Rodada(estado, trabalho, finalizados, 0, finalizados.length))) {
+        }
+
+        int total = 0;
+        for (int w = 0; w < finalizados.length; w++) {
+            total += Long.bitCount(~finalizados[w] & mascaraPalavra(w, numProcessos));
+        }
+        int[] processosEmDeadlock = new int[total];
+        int j = 0;
+        for (int w = 0; w < finalizados.length; w++) {
+            long restantes = ~finalizados[w] & mascaraPalavra(w, numProcessos);
+            while (restantes != 0) {
+                processosEmDeadlock[j++] = estado.ids[(w << 6) + Long.numberOfTrailingZeros(restantes)];
+                restantes &= restantes - 1;
+            }
+        }
+        Arrays.sort(processosEmDeadlock);
+        return processosEmDeadlock;
+    }
+
+    private static long mascaraPalavra(int w, int numProcessos) {
+        int resto = numProcessos - (w << 6);
+        return resto >= 64 ? -1L : (1L << resto) - 1;
+    }
+
+    // Varre as palavras [inicio, fim) do bitset; retorna true se finalizou algum processo.
+    // Nunca é serializada: só herda Serializable de ForkJoinTask.
+    @SuppressWarnings("serial")
+    private static class Rodada extends RecursiveTask<Boolean> {
+        private final InstantaneoAlocacao estado;
+        private final AtomicIntegerArray trabalho;
+        private final long[] finalizados;
+        private final int inicio;
+        private final int fim;
+
+        Rodada(InstantaneoAlocacao estado, AtomicIntegerArray trabalho, long[] finalizados, int inicio, int fim) {
+            this.estado = estado;
+            this.trabalho = trabalho;
+            this.finalizados = finalizados;
+            this.inicio = inicio;
+            this.fim = fim;
+        }
+
+        @Override
+        protected Boolean compute() {
+            if ((fim - inicio) * 64 > TAMANHO_BLOCO) {
+                int meio = (inicio + fim) >>> 1;
+                Rodada esquerda = new Rodada(estado, trabalho, finalizados, inicio, meio);
+                esquerda.fork();
+                boolean direita = new Rodada(estado, trabalho, finalizados, meio, fim).compute();
+                return esquerda.join() | direita;
+            }
+            // Dentro do bloco repete até não haver progresso, o que resolve cadeias locais sem novas rodadas.
+            boolean algum = false;
+            boolean progresso;
+            do {
+                progresso = false;
+                for (int w = inicio; w < fim; w++) {
+                    long restantes = ~finalizados[w] & mascaraPalavra(w, estado.numProcessos());
+                    while (restantes != 0) {
+                        int i = (w << 6) + Long.numberOfTrailingZeros(restantes);
+                        restantes &= restantes - 1;
+                        if (podeExecutar(i)) {
+                            for (int k = estado.inicioAlocacao[i]; k < estado.inicioAlocacao[i + 1]; k++) {
+                                trabalho.addAndGet(estado.recursosAlocados[k], estado.quantidadesAlocadas[k]);
+                            }
+                            finalizados[w] |= 1L << i;
+                            progresso = true;
+                        }
+                    }
+                }
+                algum |= progresso;
+            } while (progresso);
+            return algum;
+        }
+
+        private boolean podeExecutar(int i) {
+            for (int k = estado.inicioRequisicao[i]; k < estado.inicioRequisicao[i + 1]; k++) {
+                if (estado.quantidadesRequisitadas[k] > trabalho.get(estado.recursosRequisitados[k])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.example;
+
+import java.util.Arrays;
+
+/**
+ * Detecção pelo algoritmo original: repete passadas sobre todos os processos
+ * enquanto algum puder executar com o vetor de trabalho atual, devolvendo as
+ * suas alocações ao trabalho.
+ */
+class DetectorReducao implements DetectorDeadlock {
+
+    @Override
+    public int[] detectar(InstantaneoAlocacao estado) {
+        int numProcessos = estado.numProcessos();
+        int[] trabalho = estado.disponivel.clone();
+        boolean[] finalizar = new boolean[numProcessos];
+
+        for (int i = 0; i < numProcessos; i++) {
+            finalizar[i] = estado.inicioAlocacao[i] == estado.inicioAlocacao[i + 1];
+        }
+
+        boolean encontrouProcesso;
+        do {
+            encontrouProcesso = false;
+            for (int i = 0; i < numProcessos; i++) {
+                if (!finalizar[i] && processoPodeExecutar(estado, i, trabalho)) {
+                    for (int k = estado.inicioAlocacao[i]; k < estado.inicioAlocacao[i + 1]; k++) {
+                        trabalho[estado.recursosAlocados[k]] += estado.quantidadesAlocadas[k];
+                    }
+                    finalizar[i] = true;
+                    encontrouProcesso = true;
+                }
+            }
+        } while (encontrouProcesso);
+
+        int total = 0;
+        for (int i = 0; i < numProcessos; i++) {
+            if (!finalizar[i]) total++;
+        }
+        int[] processosEmDeadlock = new int[total];
+        for (int i = 0, j = 0; i < numProcessos; i++) {
+            if (!finalizar[i]) processosEmDeadlock[j++] = estado.ids[i];
+        }
+        Arrays.sort(processosEmDeadlock);
+        return processosEmDeadlock;
+    }
+
+    private boolean processoPodeExecutar(InstantaneoAlocacao estado, int i, int[] trabalho) {
+        for (int k = estado.inicioRequisicao[i]; k < estado.inicioRequisicao[i + 1]; k++) {
+            if (estado.quantidadesRequisitadas[k] > trabalho[estado.recursosRequisitados[k]]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,207 @@
+package com.example;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Diário binário, só de acréscimo, das operações do motor. Cada evento é um
+ * registro fixo de 16 bytes (instante, processo, tipo e recurso) escrito num
+ * anel pré-alocado: o produtor só reserva uma posição com um incremento
+ * atômico e preenche dois longs, sem alocar nem travar. Uma thread grava os
+ * registros publicados em lotes e faz o fsync a cada intervalo, não a cada
+ * evento.
+ *
+ * O motor registra com a trava do recurso envolvido (ou todas) adquirida, de
+ * modo que a ordem do diário é uma ordem válida das operações. O estado no
+ * início do diário fica em {@link #instantaneoInicial} no formato de
+ * {@link ArquivoInstantaneo}; {@link ReprodutorDiario} parte dele.
+ *
+ * Layout, em little-endian: cabeçalho de 16 bytes ("DLKJ", versão, reservado)
+ * seguido dos registros: instante (long, ns no relógio do agendador), processo
+ * (int) e tipo << 24 | recurso (int; recurso 0xFFFFFF = nenhum).
+ */
+final class DiarioEventos {
+
+    // Solicitação concedida na hora.
+    static final int SOLICITACAO = 1;
+    // Solicitação que deixou o processo bloqueado.
+    static final int BLOQUEIO = 2;
+    static final int LIBERACAO = 3;
+    // Processo bloqueado recebeu o recurso numa liberação.
+    static final int ACORDAR = 4;
+    // Saída do processo, por removerProcesso ou recuperação por término.
+    static final int REMOCAO = 5;
+    // Vítima da recuperação por preempção.
+    static final int PREEMPCAO = 6;
+    // Unidade pendente de uma solicitação em lote; a última unidade pendente do lote vem como BLOQUEIO.
+    static final int LOTE = 7;
+
+    static final int TAMANHO_CABECALHO = 16;
+    static final int TAMANHO_REGISTRO = 16;
+    static final int SEM_RECURSO = 0xFFFFFF;
+    static final int MAGICO = 0x4A4B4C44; // "DLKJ" em little-endian
+    static final int VERSAO = 1;
+
+    static final int CAPACIDADE_PADRAO = 1 << 20;
+    static final long INTERVALO_FSYNC_PADRAO_MS = 100;
+    private static final int TAMANHO_LOTE = 64 * 1024;
+    private static final long ESPERA_ESCRITOR_NS = TimeUnit.MICROSECONDS.toNanos(200);
+
+    // Anel de registros já no layout do arquivo: em 2i o instante, em 2i + 1 os dois ints seguintes.
+    private final long[] anel;
+    // Sequência + 1 do registro publicado em cada posição; 0 = nunca publicada.
+    private final AtomicLongArray publicados;
+    private final int mascara;
+
+    // Próxima sequência a reservar pelos produtores.
+    private final AtomicLong cauda = new AtomicLong();
+    // Próxima sequência a gravar; só o escritor altera.
+    private volatile long cabeca;
+
+    private final FileChannel canal;
+    private final long intervaloFsyncNs;
+    private final Thread escritor;
+    private volatile boolean aberto = true;
+    private volatile IOException erro;
+
+    private final LongAdder esperasAnelCheio = new LongAdder();
+    private volatile long fsyncs;
+
+    // A capacidade é arredondada para a próxima potência de dois.
+    DiarioEventos(Path caminho, int capacidade, long intervaloFsyncMs) throws IOException {
+        int tamanho = Integer.highestOneBit(Math.max(2, capacidade - 1)) << 1;
+        this.anel = new long[2 * tamanho];
+        this.publicados = new AtomicLongArray(tamanho);
+        this.mascara = tamanho - 1;
+        this.intervaloFsyncNs = TimeUnit.MILLISECONDS.toNanos(intervaloFsyncMs);
+
+        this.canal = FileChannel.open(caminho, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        ByteBuffer cabecalho = ByteBuffer.allocate(TAMANHO_CABECALHO).order(ByteOrder.LITTLE_ENDIAN);
+        cabecalho.putInt(MAGICO).putInt(VERSAO).putLong(0L).flip();
+        while (cabecalho.hasRemaining()) {
+            canal.write(cabecalho);
+        }
+        this.escritor = new Thread(this::gravarLotes, "diario-eventos");
+        this.escritor.setDaemon(true);
+        this.escritor.start();
+    }
+
+    // O estado de partida fica ao lado do diário: caminho.dlks.
+    static Path instantaneoInicial(Path diario) {
+        return diario.resolveSibling(diario.getFileName() + ".dlks");
+    }
+
+    // Com o anel cheio o produtor espera o escritor abrir espaço: perder eventos tornaria o diário
+    // inútil para a reprodução. Depois de fechado (ou de uma falha de gravação) o evento é ignorado.
+    void registrar(int tipo, int idProcesso, int indiceRecurso, long instanteNs) {
+        long sequencia = cauda.getAndIncrement();
+        if (sequencia - cabeca > mascara) {
+            esperasAnelCheio.increment();
+            while (sequencia - cabeca > mascara) {
+                if (!aberto) {
+                    return;
+                }
+                Thread.onSpinWait();
+            }
+        }
+        int i = (int) sequencia & mascara;
+        anel[2 * i] = instanteNs;
+        // Em little-endian a metade baixa vai primeiro: processo, depois tipo e recurso.
+        anel[2 * i + 1] = (long) (tipo << 24 | (indiceRecurso & SEM_RECURSO)) << 32 | (idProcesso & 0xFFFFFFFFL);
+        publicados.lazySet(i, sequencia + 1);
+    }
+
+    // Grava o que falta, faz o último fsync e fecha o arquivo. Quem chama garante que não há
+    // produtores no meio de um registro (o motor retira o diário com todas as travas).
+    void fechar() throws IOException {
+        aberto = false;
+        LockSupport.unpark(escritor);
+        try {
+            escritor.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (erro != null) {
+            throw erro;
+        }
+    }
+
+    long getEventos() {
+        return cabeca;
+    }
+
+    long getEsperasAnelCheio() {
+        return esperasAnelCheio.sum();
+    }
+
+    long getFsyncs() {
+        return fsyncs;
+    }
+
+    private void gravarLotes() {
+        ByteBuffer lote = ByteBuffer.allocateDirect(TAMANHO_LOTE).order(ByteOrder.LITTLE_ENDIAN);
+        LongBuffer longs = lote.asLongBuffer();
+        int maximoPorLote = TAMANHO_LOTE / TAMANHO_REGISTRO;
+        long ultimoFsync = System.nanoTime();
+        boolean pendente = false;
+        try {
+            while (true) {
+                // Lido antes de drenar: o que foi publicado antes do fechamento entra nesta passada.
+                boolean fechando = !aberto;
+                // Trecho publicado contíguo no anel (sem dar a volta), copiado de uma vez.
+                long inicio = cabeca;
+                int primeiro = (int) inicio & mascara;
+                int limite = Math.min(maximoPorLote, mascara + 1 - primeiro);
+                int prontos = 0;
+                while (prontos < limite && publicados.get(primeiro + prontos) == inicio + prontos + 1) {
+                    prontos++;
+                }
+                boolean gravou = prontos > 0;
+                if (gravou) {
+                    longs.clear();
+                    longs.put(anel, 2 * primeiro, 2 * prontos);
+                    cabeca = inicio + prontos;
+                    lote.clear().limit(prontos * TAMANHO_REGISTRO);
+                    while (lote.hasRemaining()) {
+                        canal.write(lote);
+                    }
+                    pendente = true;
+                }
+                if (pendente && (fechando || System.nanoTime() - ultimoFsync >= intervaloFsyncNs)) {
+                    canal.force(false);
+                    fsyncs++;
+                    ultimoFsync = System.nanoTime();
+                    pendente = false;
+                }
+                if (fechando && !gravou) {
+                    break;
+                }
+                if (!gravou) {
+                    LockSupport.parkNanos(ESPERA_ESCRITOR_NS);
+                }
+            }
+        } catch (IOException e) {
+            erro = e;
+            aberto = false;
+        } finally {
+            try {
+                canal.close();
+            } catch (IOException e) {
+                if (erro == null) {
+                    erro = e;
+                }
+            }
+        }
+    }
+}
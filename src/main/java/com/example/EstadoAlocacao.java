@@ -0,0 +1,127 @@
+package com.example;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Estado de alocação esparso: cada processo ocupa um slot com uma linha de
+ * alocação e uma de requisição que guardam apenas os recursos com quantidade
+ * diferente de zero. A memória cresce com o número de alocações e requisições
+ * existentes, não com processos × recursos, e os IDs de processo podem ser
+ * quaisquer inteiros positivos.
+ *
+ * A estrutura (slots e vetores) só é alterada com exclusão total do
+ * {@link MotorDeadlock}; cada {@code disponivel[r]} é protegido pela trava do
+ * recurso e cada linha sincroniza os seus próprios acessos.
+ */
+class EstadoAlocacao {
+
+    private final MapaIntInt slotPorId = new MapaIntInt();
+    private int[] idPorSlot = new int[16];
+    private LinhaEsparsa[] alocacao = new LinhaEsparsa[16];
+    private LinhaEsparsa[] requisicao = new LinhaEsparsa[16];
+    private int numSlots;
+
+    // Slots de processos removidos, reaproveitados antes de crescer os vetores.
+    private int[] slotsLivres = new int[16];
+    private int numSlotsLivres;
+
+    private int[] disponivel;
+
+    // --- Recursos ---
+
+    void inicializarDisponivel(List<Recurso> tiposRecurso) {
+        disponivel = new int[tiposRecurso.size()];
+        for (int i = 0; i < tiposRecurso.size(); i++) {
+            disponivel[i] = tiposRecurso.get(i).quantidadeTotal;
+        }
+    }
+
+    boolean isInicializado() {
+        return disponivel != null;
+    }
+
+    int[] disponivel() {
+        return disponivel;
+    }
+
+    int numRecursos() {
+        return disponivel != null ? disponivel.length : 0;
+    }
+
+    // --- Processos ---
+
+    int registrarProcesso(int idProcesso) {
+        int slot = slotPorId.get(idProcesso);
+        if (slot >= 0) {
+            return slot;
+        }
+        if (numSlotsLivres > 0) {
+            slot = slotsLivres[--numSlotsLivres];
+        } else {
+            if (numSlots == idPorSlot.length) {
+                int novaCapacidade = idPorSlot.length * 2;
+                idPorSlot = Arrays.copyOf(idPorSlot, novaCapacidade);
+                alocacao = Arrays.copyOf(alocacao, novaCapacidade);
+                requisicao = Arrays.copyOf(requisicao, novaCapacidade);
+            }
+            slot = numSlots++;
+            alocacao[slot] = new LinhaEsparsa();
+            requisicao[slot] = new LinhaEsparsa();
+        }
+        idPorSlot[slot] = idProcesso;
+        slotPorId.put(idProcesso, slot);
+        return slot;
+    }
+
+    void removerProcesso(int idProcesso) {
+        int slot = slotPorId.remove(idProcesso);
+        if (slot < 0) {
+            return;
+        }
+        idPorSlot[slot] = 0;
+        alocacao[slot].limpar();
+        requisicao[slot].limpar();
+        if (numSlotsLivres == slotsLivres.length) {
+            slotsLivres = Arrays.copyOf(slotsLivres, slotsLivres.length * 2);
+        }
+        slotsLivres[numSlotsLivres++] = slot;
+    }
+
+    // Retorna -1 se o processo não está registrado.
+    int slot(int idProcesso) {
+        return slotPorId.get(idProcesso);
+    }
+
+    // Limite superior (exclusivo) dos slots em uso; slots livres têm ID 0.
+    int numSlots() {
+        return numSlots;
+    }
+
+    int idNoSlot(int slot) {
+        return idPorSlot[slot];
+    }
+
+    LinhaEsparsa alocacao(int slot) {
+        return alocacao[slot];
+    }
+
+    LinhaEsparsa requisicao(int slot) {
+        return requisicao[slot];
+    }
+
+    // Copia o estado para o formato CSR. Quem chama garante que nenhuma escrita ocorre durante a
+    // cópia ou valida depois que nenhuma ocorreu.
+    InstantaneoAlocacao capturar() {
+        InstantaneoAlocacao.Construtor construtor = new InstantaneoAlocacao.Construtor(disponivel);
+        for (int s = 0; s < numSlots; s++) {
+            int id = idPorSlot[s];
+            if (id != 0) {
+                construtor.novoProcesso(id);
+                alocacao[s].copiarAlocacoes(construtor);
+                requisicao[s].copiarRequisicoes(construtor);
+            }
+        }
+        return construtor.construir();
+    }
+}
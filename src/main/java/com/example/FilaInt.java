@@ -0,0 +1,80 @@
+package com.example;
+
+/**
+ * Fila FIFO circular de inteiros que cresce conforme a necessidade, sem boxing.
+ */
+class FilaInt {
+    private int[] elementos;
+    private int inicio;
+    private int tamanho;
+
+    FilaInt() {
+        this(4);
+    }
+
+    // A capacidade é arredondada para a próxima potência de dois.
+    FilaInt(int capacidadeInicial) {
+        elementos = new int[Integer.highestOneBit(Math.max(2, capacidadeInicial - 1)) << 1];
+    }
+
+    void adicionar(int valor) {
+        if (tamanho == elementos.length) {
+            int[] novos = new int[elementos.length * 2];
+            for (int i = 0; i < tamanho; i++) {
+                novos[i] = elementos[(inicio + i) & (elementos.length - 1)];
+            }
+            elementos = novos;
+            inicio = 0;
+        }
+        elementos[(inicio + tamanho) & (elementos.length - 1)] = valor;
+        tamanho++;
+    }
+
+    // Retorna o primeiro elemento sem removê-lo; a fila não pode estar vazia.
+    int primeiro() {
+        return elementos[inicio];
+    }
+
+    // i-ésimo elemento a partir do primeiro, sem removê-lo.
+    int elemento(int i) {
+        return elementos[(inicio + i) & (elementos.length - 1)];
+    }
+
+    int remover() {
+        int valor = elementos[inicio];
+        inicio = (inicio + 1) & (elementos.length - 1);
+        tamanho--;
+        return valor;
+    }
+
+    boolean contem(int valor) {
+        for (int i = 0; i < tamanho; i++) {
+            if (elementos[(inicio + i) & (elementos.length - 1)] == valor) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Retira todas as ocorrências do valor, mantendo a ordem dos demais.
+    void removerTodos(int valor) {
+        int mascara = elementos.length - 1;
+        int mantidos = 0;
+        for (int i = 0; i < tamanho; i++) {
+            int e = elementos[(inicio + i) & mascara];
+            if (e != valor) {
+                elementos[(inicio + mantidos) & mascara] = e;
+                mantidos++;
+            }
+        }
+        tamanho = mantidos;
+    }
+
+    boolean isVazia() {
+        return tamanho == 0;
+    }
+
+    int tamanho() {
+        return tamanho;
+    }
+}
@@ -0,0 +1,379 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Alocação com os tipos de recurso repartidos entre vários nós gerenciadores
+ * (recurso r fica no nó r % numNos). Cada nó é uma instância separada no
+ * mesmo processo, com a sua trava, a sua caixa de entrada e a sua thread; os
+ * nós só conversam por mensagens.
+ *
+ * Sem matriz central, os deadlocks globais são encontrados por sondagem
+ * (Chandy-Misra-Haas, modelo OU): cada processo tem uma solicitação pendente
+ * de uma unidade e basta que um dos detentores do recurso termine para ele
+ * seguir. O iniciador manda consultas aos detentores; um processo bloqueado
+ * que recebe a primeira consulta da computação repassa-a aos detentores do
+ * recurso que espera e só responde quando todos responderem; consultas
+ * seguintes são respondidas na hora. Processos em execução descartam as
+ * consultas. O iniciador está em deadlock se todas as respostas voltarem, o
+ * que dá o mesmo resultado da redução sobre o estado completo. Como nos
+ * detectores, processos que não detêm nada não iniciam computação.
+ *
+ * Uma mensagem para um processo vai ao nó onde ele está bloqueado; isso e o
+ * total de unidades que ele detém são o estado que o próprio processo conhece. O contador de mensagens em trânsito
+ * existe só para a medição saber quando a rodada acabou; um nó real usaria um
+ * tempo limite por computação.
+ */
+final class GerenciadorDistribuido {
+
+    private final NoGerenciador[] nos;
+    // Recurso em que cada processo está bloqueado (-1 = executando), indexado pelo ID.
+    final AtomicIntegerArray recursoEsperado;
+    // Unidades detidas por cada processo, somadas sobre todos os nós.
+    final AtomicIntegerArray unidadesDetidas;
+
+    final LongAdder mensagens = new LongAdder();
+    final LongAdder mensagensEntreNos = new LongAdder();
+    private final AtomicLong emTransito = new AtomicLong();
+    private final Object quiescencia = new Object();
+    private int rodada;
+
+    // Processos com IDs de 1 a numProcessos.
+    GerenciadorDistribuido(int[] quantidadesTotais, int numProcessos, int numNos) {
+        if (numNos <= 0 || numNos > Math.max(1, quantidadesTotais.length)) {
+            throw new IllegalArgumentException("Número de nós deve estar entre 1 e o número de tipos de recurso.");
+        }
+        this.recursoEsperado = new AtomicIntegerArray(numProcessos + 1);
+        this.unidadesDetidas = new AtomicIntegerArray(numProcessos + 1);
+        for (int p = 0; p <= numProcessos; p++) {
+            recursoEsperado.set(p, -1);
+        }
+        this.nos = new NoGerenciador[numNos];
+        for (int i = 0; i < numNos; i++) {
+            nos[i] = new NoGerenciador(i, this, quantidadesTotais, numNos);
+        }
+        for (NoGerenciador no : nos) {
+            no.thread.start();
+        }
+    }
+
+    int numNos() {
+        return nos.length;
+    }
+
+    NoGerenciador noDoRecurso(int indiceRecurso) {
+        return nos[indiceRecurso % nos.length];
+    }
+
+    // Retorna true se o recurso foi alocado e false se o processo ficou bloqueado.
+    boolean solicitar(int idProcesso, int indiceRecurso) {
+        if (recursoEsperado.get(idProcesso) >= 0) {
+            throw new IllegalStateException("Processo " + idProcesso + " já está bloqueado.");
+        }
+        return noDoRecurso(indiceRecurso).solicitar(idProcesso, indiceRecurso);
+    }
+
+    void liberar(int idProcesso, int indiceRecurso) {
+        noDoRecurso(indiceRecurso).liberar(idProcesso, indiceRecurso);
+    }
+
+    // Uma rodada: cada nó inicia uma computação para cada processo bloqueado nele. Espera as
+    // mensagens acabarem e retorna os IDs em deadlock, em ordem.
+    int[] detectar() throws InterruptedException {
+        rodada++;
+        for (NoGerenciador no : nos) {
+            entregar(no, new Sonda(Sonda.INICIAR, rodada, 0, 0, 0));
+        }
+        synchronized (quiescencia) {
+            while (emTransito.get() > 0) {
+                quiescencia.wait();
+            }
+        }
+        int total = 0;
+        for (NoGerenciador no : nos) {
+            total += no.detectados.size();
+        }
+        int[] ids = new int[total];
+        int k = 0;
+        for (NoGerenciador no : nos) {
+            for (int id : no.detectados) {
+                ids[k++] = id;
+            }
+        }
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    void parar() {
+        for (NoGerenciador no : nos) {
+            no.thread.interrupt();
+        }
+    }
+
+    // Envia ao nó onde o destinatário está bloqueado; se ele está executando, a mensagem é descartada.
+    void enviar(NoGerenciador origem, Sonda s) {
+        mensagens.increment();
+        int r = recursoEsperado.get(s.para);
+        if (r < 0) {
+            return;
+        }
+        NoGerenciador destino = noDoRecurso(r);
+        if (destino != origem) {
+            mensagensEntreNos.increment();
+        }
+        entregar(destino, s);
+    }
+
+    private void entregar(NoGerenciador destino, Sonda s) {
+        emTransito.incrementAndGet();
+        destino.caixa.add(s);
+    }
+
+    // Chamado pelo nó depois de processar uma mensagem (e de enviar as que ela gerou).
+    void processada() {
+        if (emTransito.decrementAndGet() == 0) {
+            synchronized (quiescencia) {
+                quiescencia.notifyAll();
+            }
+        }
+    }
+}
+
+// =================================================================================
+// CLASSE SONDA
+// =================================================================================
+final class Sonda {
+    static final int INICIAR = 0;
+    static final int CONSULTA = 1;
+    static final int RESPOSTA = 2;
+
+    final int tipo;
+    final int rodada;
+    // Processo que iniciou a computação.
+    final int iniciador;
+    final int de;
+    final int para;
+
+    Sonda(int tipo, int rodada, int iniciador, int de, int para) {
+        this.tipo = tipo;
+        this.rodada = rodada;
+        this.iniciador = iniciador;
+        this.de = de;
+        this.para = para;
+    }
+}
+
+// =================================================================================
+// CLASSE NÓ GERENCIADOR
+// =================================================================================
+// Dono dos recursos r com r % numNos == indice. A alocação roda na thread de quem pede, sob a
+// trava do nó; as sondas rodam só na thread do nó.
+class NoGerenciador implements Runnable {
+    final int indice;
+    private final GerenciadorDistribuido rede;
+    private final int numNos;
+    private final Semaphore trava = new Semaphore(1, true);
+
+    // Por recurso local (índice global / numNos): unidades livres, detentores e fila de espera.
+    private final int[] disponivel;
+    // Pares (ID do processo, unidades), no mesmo formato das linhas de alocação.
+    private final LinhaEsparsa[] detentores;
+    private final FilaInt[] filas;
+
+    final BlockingQueue<Sonda> caixa = new LinkedBlockingQueue<>();
+    final Thread thread;
+
+    // Computações em andamento: (iniciador << 32 | processo) -> engajamento. Só a thread do nó usa.
+    private final Map<Long, Engajamento> engajamentos = new HashMap<>();
+    private int rodadaAtual;
+    // Iniciadores deste nó que a rodada atual achou em deadlock.
+    final List<Integer> detectados = new ArrayList<>();
+
+    private static class Engajamento {
+        // Quem mandou a primeira consulta; -1 no iniciador.
+        final int engajador;
+        int pendentes;
+
+        Engajamento(int engajador, int pendentes) {
+            this.engajador = engajador;
+            this.pendentes = pendentes;
+        }
+    }
+
+    NoGerenciador(int indice, GerenciadorDistribuido rede, int[] quantidadesTotais, int numNos) {
+        this.indice = indice;
+        this.rede = rede;
+        this.numNos = numNos;
+        int locais = (quantidadesTotais.length - indice + numNos - 1) / numNos;
+        this.disponivel = new int[locais];
+        this.detentores = new LinhaEsparsa[locais];
+        this.filas = new FilaInt[locais];
+        for (int l = 0; l < locais; l++) {
+            disponivel[l] = quantidadesTotais[indice + l * numNos];
+            detentores[l] = new LinhaEsparsa();
+            filas[l] = new FilaInt();
+        }
+        this.thread = new Thread(this, "no-gerenciador-" + indice);
+        this.thread.setDaemon(true);
+    }
+
+    boolean solicitar(int idProcesso, int indiceRecurso) {
+        int l = indiceRecurso / numNos;
+        trava.acquireUninterruptibly();
+        try {
+            if (disponivel[l] > 0) {
+                disponivel[l]--;
+                detentores[l].somar(idProcesso, 1);
+                rede.unidadesDetidas.incrementAndGet(idProcesso);
+                return true;
+            }
+            filas[l].adicionar(idProcesso);
+            rede.recursoEsperado.set(idProcesso, indiceRecurso);
+            return false;
+        } finally {
+            trava.release();
+        }
+    }
+
+    // Entrega as unidades livres aos primeiros da fila, em ordem de chegada.
+    void liberar(int idProcesso, int indiceRecurso) {
+        int l = indiceRecurso / numNos;
+        trava.acquireUninterruptibly();
+        try {
+            if (detentores[l].get(idProcesso) == 0) {
+                return;
+            }
+            detentores[l].somar(idProcesso, -1);
+            rede.unidadesDetidas.decrementAndGet(idProcesso);
+            disponivel[l]++;
+            while (disponivel[l] > 0 && !filas[l].isVazia()) {
+                int p = filas[l].remover();
+                disponivel[l]--;
+                detentores[l].somar(p, 1);
+                rede.unidadesDetidas.incrementAndGet(p);
+                rede.recursoEsperado.set(p, -1);
+            }
+        } finally {
+            trava.release();
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (true) {
+                Sonda s = caixa.take();
+                processar(s);
+                rede.processada();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void processar(Sonda s) {
+        if (s.rodada < rodadaAtual) {
+            return;
+        }
+        if (s.rodada > rodadaAtual) {
+            rodadaAtual = s.rodada;
+            engajamentos.clear();
+            detectados.clear();
+        }
+        switch (s.tipo) {
+            case Sonda.INICIAR:
+                for (int id : bloqueadosAqui()) {
+                    if (rede.unidadesDetidas.get(id) > 0) {
+                        engajar(id, id, -1);
+                    }
+                }
+                break;
+            case Sonda.CONSULTA: {
+                if (!bloqueadoAqui(s.para)) {
+                    return;
+                }
+                if (engajamentos.containsKey(chave(s.iniciador, s.para))) {
+                    rede.enviar(this, new Sonda(Sonda.RESPOSTA, rodadaAtual, s.iniciador, s.para, s.de));
+                } else {
+                    engajar(s.iniciador, s.para, s.de);
+                }
+                break;
+            }
+            case Sonda.RESPOSTA: {
+                Engajamento e = engajamentos.get(chave(s.iniciador, s.para));
+                // Se o processo acordou no meio da computação, ela morre aqui.
+                if (e == null || !bloqueadoAqui(s.para) || --e.pendentes > 0) {
+                    return;
+                }
+                if (e.engajador < 0) {
+                    detectados.add(s.iniciador);
+                } else {
+                    rede.enviar(this, new Sonda(Sonda.RESPOSTA, rodadaAtual, s.iniciador, s.para, e.engajador));
+                }
+                break;
+            }
+            default:
+                throw new IllegalStateException("Tipo de sonda desconhecido: " + s.tipo);
+        }
+    }
+
+    // Consulta os detentores do recurso que o processo espera. Sem detentores não há o que esperar:
+    // o engajamento fica sem resposta e a computação não conclui deadlock.
+    private void engajar(int iniciador, int idProcesso, int engajador) {
+        int[] alvos;
+        trava.acquireUninterruptibly();
+        try {
+            int r = rede.recursoEsperado.get(idProcesso);
+            if (r < 0 || r % numNos != indice) {
+                return;
+            }
+            LinhaEsparsa linha = detentores[r / numNos];
+            synchronized (linha) {
+                alvos = new int[linha.tamanho()];
+                for (int k = 0; k < alvos.length; k++) {
+                    alvos[k] = linha.recursoNa(k);
+                }
+            }
+        } finally {
+            trava.release();
+        }
+        engajamentos.put(chave(iniciador, idProcesso), new Engajamento(engajador, alvos.length));
+        for (int alvo : alvos) {
+            rede.enviar(this, new Sonda(Sonda.CONSULTA, rodadaAtual, iniciador, idProcesso, alvo));
+        }
+    }
+
+    private List<Integer> bloqueadosAqui() {
+        List<Integer> ids = new ArrayList<>();
+        trava.acquireUninterruptibly();
+        try {
+            for (FilaInt fila : filas) {
+                for (int i = 0; i < fila.tamanho(); i++) {
+                    ids.add(fila.elemento(i));
+                }
+            }
+        } finally {
+            trava.release();
+        }
+        return ids;
+    }
+
+    private boolean bloqueadoAqui(int idProcesso) {
+        int r = rede.recursoEsperado.get(idProcesso);
+        return r >= 0 && r % numNos == indice;
+    }
+
+    private static long chave(int iniciador, int idProcesso) {
+        return (long) iniciador << 32 | (idProcesso & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,81 @@
+package com.example;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histograma de latências em faixas log-lineares, no estilo do HdrHistogram:
+ * valores abaixo de 32 ns são exatos e cada potência de dois acima disso é
+ * dividida em 32 faixas, com erro relativo de no máximo ~3%. Valores acima de
+ * ~73 min caem na última faixa. Registrar é um incremento atômico, sem alocação
+ * nem trava.
+ */
+class HistogramaLatencia {
+    private static final int BITS_SUBFAIXA = 5;
+    private static final int SUBFAIXAS = 1 << BITS_SUBFAIXA;
+    private static final int MAIOR_EXPOENTE = 41;
+    static final int NUM_FAIXAS = (MAIOR_EXPOENTE - BITS_SUBFAIXA + 2) * SUBFAIXAS;
+
+    private final AtomicLongArray contagens = new AtomicLongArray(NUM_FAIXAS);
+
+    void registrar(long valorNs) {
+        contagens.incrementAndGet(faixa(valorNs));
+    }
+
+    long[] copiarContagens() {
+        long[] copia = new long[NUM_FAIXAS];
+        for (int i = 0; i < copia.length; i++) {
+            copia[i] = contagens.get(i);
+        }
+        return copia;
+    }
+
+    long percentil(double p) {
+        return percentil(copiarContagens(), p);
+    }
+
+    // Maior valor da faixa que contém o percentil pedido; 0 se não há registros.
+    static long percentil(long[] contagens, double p) {
+        long total = total(contagens);
+        if (total == 0) {
+            return 0;
+        }
+        long alvo = Math.max(1, (long) Math.ceil(total * p / 100));
+        long acumulado = 0;
+        for (int i = 0; i < contagens.length; i++) {
+            acumulado += contagens[i];
+            if (acumulado >= alvo) {
+                return maiorValor(i);
+            }
+        }
+        return maiorValor(contagens.length - 1);
+    }
+
+    static long total(long[] contagens) {
+        long total = 0;
+        for (long c : contagens) {
+            total += c;
+        }
+        return total;
+    }
+
+    static int faixa(long valor) {
+        if (valor < SUBFAIXAS) {
+            return (int) Math.max(0, valor);
+        }
+        int expoente = 63 - Long.numberOfLeadingZeros(valor);
+        if (expoente > MAIOR_EXPOENTE) {
+            return NUM_FAIXAS - 1;
+        }
+        int deslocamento = expoente - BITS_SUBFAIXA;
+        return (deslocamento + 1) * SUBFAIXAS + (int) ((valor >>> deslocamento) - SUBFAIXAS);
+    }
+
+    static long maiorValor(int faixa) {
+        if (faixa < SUBFAIXAS) {
+            return faixa;
+        }
+        int deslocamento = faixa / SUBFAIXAS - 1;
+        long sub = faixa % SUBFAIXAS;
+        return ((SUBFAIXAS + sub + 1) << deslocamento) - 1;
+    }
+}
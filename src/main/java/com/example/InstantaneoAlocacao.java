@@ -0,0 +1,110 @@
+package com.example;
+
+import java.util.Arrays;
+
+/**
+ * Cópia imutável do estado de alocação em formato CSR: as linhas de todos os
+ * processos ficam em vetores contíguos e {@code inicioAlocacao[i]} ..
+ * {@code inicioAlocacao[i + 1]} delimitam as entradas do processo {@code i}.
+ * Os detectores trabalham sobre esta cópia, sem tocar no estado vivo.
+ */
+class InstantaneoAlocacao {
+    final int[] ids;
+    final int[] disponivel;
+
+    final int[] inicioAlocacao;
+    final int[] recursosAlocados;
+    final int[] quantidadesAlocadas;
+
+    final int[] inicioRequisicao;
+    final int[] recursosRequisitados;
+    final int[] quantidadesRequisitadas;
+
+    InstantaneoAlocacao(int[] ids, int[] disponivel,
+                        int[] inicioAlocacao, int[] recursosAlocados, int[] quantidadesAlocadas,
+                        int[] inicioRequisicao, int[] recursosRequisitados, int[] quantidadesRequisitadas) {
+        this.ids = ids;
+        this.disponivel = disponivel;
+        this.inicioAlocacao = inicioAlocacao;
+        this.recursosAlocados = recursosAlocados;
+        this.quantidadesAlocadas = quantidadesAlocadas;
+        this.inicioRequisicao = inicioRequisicao;
+        this.recursosRequisitados = recursosRequisitados;
+        this.quantidadesRequisitadas = quantidadesRequisitadas;
+    }
+
+    int numProcessos() {
+        return ids.length;
+    }
+
+    int numRecursos() {
+        return disponivel.length;
+    }
+
+    // =================================================================================
+    // CONSTRUTOR INCREMENTAL
+    // =================================================================================
+    // Acumula linhas uma a uma; usado ao copiar o estado vivo e ao ler arquivos.
+    static class Construtor {
+        private final int[] disponivel;
+        private int[] ids = new int[16];
+        private int numProcessos;
+
+        private int[] inicioAlocacao = new int[17];
+        private int[] recursosAlocados = new int[16];
+        private int[] quantidadesAlocadas = new int[16];
+        private int numAlocacoes;
+
+        private int[] inicioRequisicao = new int[17];
+        private int[] recursosRequisitados = new int[16];
+        private int[] quantidadesRequisitadas = new int[16];
+        private int numRequisicoes;
+
+        Construtor(int[] disponivel) {
+            this.disponivel = disponivel;
+        }
+
+        // Abre a linha de um novo processo; as entradas seguintes pertencem a ele.
+        void novoProcesso(int id) {
+            if (numProcessos == ids.length) {
+                ids = Arrays.copyOf(ids, ids.length * 2);
+                inicioAlocacao = Arrays.copyOf(inicioAlocacao, ids.length + 1);
+                inicioRequisicao = Arrays.copyOf(inicioRequisicao, ids.length + 1);
+            }
+            ids[numProcessos++] = id;
+            inicioAlocacao[numProcessos] = numAlocacoes;
+            inicioRequisicao[numProcessos] = numRequisicoes;
+        }
+
+        void alocacao(int indiceRecurso, int quantidade) {
+            if (numAlocacoes == recursosAlocados.length) {
+                recursosAlocados = Arrays.copyOf(recursosAlocados, numAlocacoes * 2);
+                quantidadesAlocadas = Arrays.copyOf(quantidadesAlocadas, numAlocacoes * 2);
+            }
+            recursosAlocados[numAlocacoes] = indiceRecurso;
+            quantidadesAlocadas[numAlocacoes++] = quantidade;
+            inicioAlocacao[numProcessos] = numAlocacoes;
+        }
+
+        void requisicao(int indiceRecurso, int quantidade) {
+            if (numRequisicoes == recursosRequisitados.length) {
+                recursosRequisitados = Arrays.copyOf(recursosRequisitados, numRequisicoes * 2);
+                quantidadesRequisitadas = Arrays.copyOf(quantidadesRequisitadas, numRequisicoes * 2);
+            }
+            recursosRequisitados[numRequisicoes] = indiceRecurso;
+            quantidadesRequisitadas[numRequisicoes++] = quantidade;
+            inicioRequisicao[numProcessos] = numRequisicoes;
+        }
+
+        InstantaneoAlocacao construir() {
+            return new InstantaneoAlocacao(
+                    Arrays.copyOf(ids, numProcessos), disponivel.clone(),
+                    Arrays.copyOf(inicioAlocacao, numProcessos + 1),
+                    Arrays.copyOf(recursosAlocados, numAlocacoes),
+                    Arrays.copyOf(quantidadesAlocadas, numAlocacoes),
+                    Arrays.copyOf(inicioRequisicao, numProcessos + 1),
+                    Arrays.copyOf(recursosRequisitados, numRequisicoes),
+                    Arrays.copyOf(quantidadesRequisitadas, numRequisicoes));
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.example;
+
+import java.util.Arrays;
+
+/**
+ * Pares (recurso, quantidade) ordenados por índice de recurso; só guarda
+ * quantidades > 0. Os métodos sincronizam na própria linha, pois threads de
+ * recursos diferentes podem lê-la. Quem itera com recursoNa/quantidadeNa deve
+ * sincronizar na linha.
+ */
+class LinhaEsparsa {
+    private int[] recursos = new int[2];
+    private int[] quantidades = new int[2];
+    private int tamanho;
+
+    synchronized int get(int indiceRecurso) {
+        int pos = Arrays.binarySearch(recursos, 0, tamanho, indiceRecurso);
+        return pos >= 0 ? quantidades[pos] : 0;
+    }
+
+    // Soma delta à quantidade do recurso, removendo a entrada quando chega a zero.
+    synchronized void somar(int indiceRecurso, int delta) {
+        int pos = Arrays.binarySearch(recursos, 0, tamanho, indiceRecurso);
+        if (pos >= 0) {
+            int novo = quantidades[pos] + delta;
+            if (novo > 0) {
+                quantidades[pos] = novo;
+            } else {
+                System.arraycopy(recursos, pos + 1, recursos, pos, tamanho - pos - 1);
+                System.arraycopy(quantidades, pos + 1, quantidades, pos, tamanho - pos - 1);
+                tamanho--;
+            }
+        } else if (delta > 0) {
+            pos = -pos - 1;
+            if (tamanho == recursos.length) {
+                recursos = Arrays.copyOf(recursos, tamanho * 2);
+                quantidades = Arrays.copyOf(quantidades, tamanho * 2);
+            }
+            System.arraycopy(recursos, pos, recursos, pos + 1, tamanho - pos);
+            System.arraycopy(quantidades, pos, quantidades, pos + 1, tamanho - pos);
+            recursos[pos] = indiceRecurso;
+            quantidades[pos] = delta;
+            tamanho++;
+        }
+    }
+
+    synchronized void limpar() {
+        tamanho = 0;
+    }
+
+    synchronized boolean isVazia() {
+        return tamanho == 0;
+    }
+
+    // Soma das quantidades de todos os recursos da linha.
+    synchronized int total() {
+        int total = 0;
+        for (int k = 0; k < tamanho; k++) {
+            total += quantidades[k];
+        }
+        return total;
+    }
+
+    synchronized void copiarAlocacoes(InstantaneoAlocacao.Construtor construtor) {
+        for (int k = 0; k < tamanho; k++) {
+            construtor.alocacao(recursos[k], quantidades[k]);
+        }
+    }
+
+    synchronized void copiarRequisicoes(InstantaneoAlocacao.Construtor construtor) {
+        for (int k = 0; k < tamanho; k++) {
+            construtor.requisicao(recursos[k], quantidades[k]);
+        }
+    }
+
+    int tamanho() {
+        return tamanho;
+    }
+
+    int recursoNa(int pos) {
+        return recursos[pos];
+    }
+
+    int quantidadeNa(int pos) {
+        return quantidades[pos];
+    }
+}
@@ -0,0 +1,97 @@
+package com.example;
+
+import java.util.Arrays;
+
+/**
+ * Tabela hash de endereçamento aberto para chaves positivas, sem boxing. A chave
+ * 0 marca posição vazia.
+ */
+class MapaIntInt {
+    private int[] chaves = new int[32];
+    private int[] valores = new int[32];
+    private int tamanho;
+
+    // Retorna -1 se a chave não existe.
+    int get(int chave) {
+        int mascara = chaves.length - 1;
+        for (int i = espalhar(chave) & mascara; ; i = (i + 1) & mascara) {
+            int k = chaves[i];
+            if (k == chave) {
+                return valores[i];
+            }
+            if (k == 0) {
+                return -1;
+            }
+        }
+    }
+
+    void put(int chave, int valor) {
+        if ((tamanho + 1) * 2 > chaves.length) {
+            redimensionar(chaves.length * 2);
+        }
+        int mascara = chaves.length - 1;
+        int i = espalhar(chave) & mascara;
+        while (chaves[i] != 0 && chaves[i] != chave) {
+            i = (i + 1) & mascara;
+        }
+        if (chaves[i] == 0) {
+            tamanho++;
+        }
+        chaves[i] = chave;
+        valores[i] = valor;
+    }
+
+    // Remove a chave e retorna o valor associado, ou -1 se não existia.
+    int remove(int chave) {
+        int mascara = chaves.length - 1;
+        int i = espalhar(chave) & mascara;
+        while (chaves[i] != chave) {
+            if (chaves[i] == 0) {
+                return -1;
+            }
+            i = (i + 1) & mascara;
+        }
+        int valor = valores[i];
+        tamanho--;
+        // Desloca para trás as entradas seguintes do mesmo agrupamento (sondagem linear sem lápides).
+        int vazio = i;
+        for (int j = (i + 1) & mascara; chaves[j] != 0; j = (j + 1) & mascara) {
+            int ideal = espalhar(chaves[j]) & mascara;
+            if (((j - ideal) & mascara) >= ((j - vazio) & mascara)) {
+                chaves[vazio] = chaves[j];
+                valores[vazio] = valores[j];
+                vazio = j;
+            }
+        }
+        chaves[vazio] = 0;
+        return valor;
+    }
+
+    int tamanho() {
+        return tamanho;
+    }
+
+    // Esvazia mantendo a capacidade, para reusar a tabela.
+    void limpar() {
+        Arrays.fill(chaves, 0);
+        tamanho = 0;
+    }
+
+    private void redimensionar(int capacidade) {
+        int[] antigasChaves = chaves;
+        int[] antigosValores = valores;
+        chaves = new int[capacidade];
+        valores = new int[capacidade];
+        tamanho = 0;
+        for (int i = 0; i < antigasChaves.length; i++) {
+            if (antigasChaves[i] != 0) {
+                put(antigasChaves[i], antigosValores[i]);
+            }
+        }
+    }
+
+    private static int espalhar(int chave) {
+        int h = chave * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,303 @@
+package com.example;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Métricas de execução do motor: contadores {@link LongAdder} e histogramas de
+ * latência sem trava. Ficam disponíveis por JMX ({@link #registrarMBean}) e,
+ * opcionalmente, num CSV gravado a intervalos fixos com os valores de cada
+ * intervalo ({@link #gravarCsv}).
+ */
+public class MetricasMotor implements MetricasMotorMBean {
+
+    final LongAdder operacoes = new LongAdder();
+    final LongAdder bloqueios = new LongAdder();
+    final LongAdder deteccoes = new LongAdder();
+    final LongAdder deteccoesComDeadlock = new LongAdder();
+    final LongAdder processosEmDeadlock = new LongAdder();
+    // Resultados da redução fora das travas que não resistiram à revalidação e foram refeitos.
+    final LongAdder deteccoesDescartadas = new LongAdder();
+    final LongAdder recuperacoes = new LongAdder();
+    final LongAdder vitimas = new LongAdder();
+    // Vazão perdida na recuperação: unidades concedidas às vítimas e trabalho (ns) desde o seu início.
+    final LongAdder operacoesDesfeitas = new LongAdder();
+    final LongAdder trabalhoDesfeito = new LongAdder();
+    // Valor corrente, não acumulado: sobe no bloqueio e desce no despertar, na preempção e na remoção.
+    final LongAdder bloqueadosAgora = new LongAdder();
+
+    final HistogramaLatencia deteccao = new HistogramaLatencia();
+    final HistogramaLatencia travaDeteccao = new HistogramaLatencia();
+    final HistogramaLatencia esperaTrava = new HistogramaLatencia();
+    final HistogramaLatencia tempoBloqueado = new HistogramaLatencia();
+    final HistogramaLatencia recuperacao = new HistogramaLatencia();
+    final HistogramaLatencia latenciaDeteccao = new HistogramaLatencia();
+
+    private ObjectName nomeMBean;
+    private ScheduledExecutorService gravadorCsv;
+
+    // Registra o MBean como com.example:type=MotorDeadlock,name=<nome>.
+    public void registrarMBean(String nome) throws JMException {
+        MBeanServer servidor = ManagementFactory.getPlatformMBeanServer();
+        ObjectName objeto = new ObjectName("com.example:type=MotorDeadlock,name=" + ObjectName.quote(nome));
+        if (servidor.isRegistered(objeto)) {
+            servidor.unregisterMBean(objeto);
+        }
+        servidor.registerMBean(this, objeto);
+        nomeMBean = objeto;
+    }
+
+    // A cada intervalo acrescenta ao arquivo uma linha com os contadores e percentis do intervalo.
+    public void gravarCsv(Path caminho, long intervaloSegundos) throws IOException {
+        BufferedWriter saida = Files.newBufferedWriter(caminho, StandardCharsets.UTF_8);
+        saida.write("instante_ms,operacoes,bloqueios,deteccoes,deteccoes_com_deadlock,processos_em_deadlock,"
+                + "recuperacoes,vitimas,operacoes_desfeitas,deteccoes_descartadas");
+        for (String nome : new String[]{"deteccao", "trava_deteccao", "espera_trava", "tempo_bloqueado", "recuperacao",
+                "latencia_deteccao"}) {
+            saida.write("," + nome + "_n," + nome + "_p50_us," + nome + "_p99_us," + nome + "_p999_us," + nome + "_max_us");
+        }
+        saida.newLine();
+        saida.flush();
+
+        IntervaloCsv intervalo = new IntervaloCsv(saida);
+        gravadorCsv = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "metricas-csv");
+            t.setDaemon(true);
+            return t;
+        });
+        gravadorCsv.scheduleAtFixedRate(intervalo::gravar, intervaloSegundos, intervaloSegundos, TimeUnit.SECONDS);
+    }
+
+    // MBean e CSV conforme as propriedades deadlock.metricas.csv e deadlock.metricas.intervalo (s).
+    void exportar(String nome) {
+        try {
+            registrarMBean(nome);
+            String arquivo = System.getProperty("deadlock.metricas.csv");
+            if (arquivo != null) {
+                gravarCsv(Paths.get(arquivo), Long.getLong("deadlock.metricas.intervalo", 5));
+            }
+        } catch (JMException | IOException e) {
+            System.err.println("Falha ao exportar métricas: " + e.getMessage());
+        }
+    }
+
+    public void fechar() {
+        if (gravadorCsv != null) {
+            gravadorCsv.shutdown();
+        }
+        if (nomeMBean != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(nomeMBean);
+            } catch (JMException e) {
+                // Já removido.
+            }
+            nomeMBean = null;
+        }
+    }
+
+    // --- Atributos do MBean ---
+
+    @Override
+    public long getOperacoes() {
+        return operacoes.sum();
+    }
+
+    @Override
+    public long getBloqueios() {
+        return bloqueios.sum();
+    }
+
+    @Override
+    public long getDeteccoesDescartadas() {
+        return deteccoesDescartadas.sum();
+    }
+
+    @Override
+    public long getProcessosBloqueados() {
+        return bloqueadosAgora.sum();
+    }
+
+    @Override
+    public long getDeteccoes() {
+        return deteccoes.sum();
+    }
+
+    @Override
+    public long getDeteccoesComDeadlock() {
+        return deteccoesComDeadlock.sum();
+    }
+
+    @Override
+    public long getProcessosEmDeadlock() {
+        return processosEmDeadlock.sum();
+    }
+
+    @Override
+    public long getRecuperacoes() {
+        return recuperacoes.sum();
+    }
+
+    @Override
+    public long getVitimas() {
+        return vitimas.sum();
+    }
+
+    @Override
+    public long getOperacoesDesfeitas() {
+        return operacoesDesfeitas.sum();
+    }
+
+    @Override
+    public double getTrabalhoDesfeitoS() {
+        return trabalhoDesfeito.sum() / 1e9;
+    }
+
+    @Override
+    public double getDeteccaoP50Us() {
+        return deteccao.percentil(50) / 1e3;
+    }
+
+    @Override
+    public double getDeteccaoP99Us() {
+        return deteccao.percentil(99) / 1e3;
+    }
+
+    @Override
+    public double getDeteccaoMaxUs() {
+        return deteccao.percentil(100) / 1e3;
+    }
+
+    @Override
+    public double getTravaDeteccaoP50Us() {
+        return travaDeteccao.percentil(50) / 1e3;
+    }
+
+    @Override
+    public double getTravaDeteccaoP99Us() {
+        return travaDeteccao.percentil(99) / 1e3;
+    }
+
+    @Override
+    public double getTravaDeteccaoMaxUs() {
+        return travaDeteccao.percentil(100) / 1e3;
+    }
+
+    @Override
+    public double getEsperaTravaP50Us() {
+        return esperaTrava.percentil(50) / 1e3;
+    }
+
+    @Override
+    public double getEsperaTravaP99Us() {
+        return esperaTrava.percentil(99) / 1e3;
+    }
+
+    @Override
+    public double getEsperaTravaMaxUs() {
+        return esperaTrava.percentil(100) / 1e3;
+    }
+
+    @Override
+    public double getTempoBloqueadoP50Us() {
+        return tempoBloqueado.percentil(50) / 1e3;
+    }
+
+    @Override
+    public double getTempoBloqueadoP99Us() {
+        return tempoBloqueado.percentil(99) / 1e3;
+    }
+
+    @Override
+    public double getTempoBloqueadoMaxUs() {
+        return tempoBloqueado.percentil(100) / 1e3;
+    }
+
+    @Override
+    public double getRecuperacaoP50Us() {
+        return recuperacao.percentil(50) / 1e3;
+    }
+
+    @Override
+    public double getRecuperacaoP99Us() {
+        return recuperacao.percentil(99) / 1e3;
+    }
+
+    @Override
+    public double getRecuperacaoMaxUs() {
+        return recuperacao.percentil(100) / 1e3;
+    }
+
+    @Override
+    public double getLatenciaDeteccaoP50Us() {
+        return latenciaDeteccao.percentil(50) / 1e3;
+    }
+
+    @Override
+    public double getLatenciaDeteccaoP99Us() {
+        return latenciaDeteccao.percentil(99) / 1e3;
+    }
+
+    @Override
+    public double getLatenciaDeteccaoMaxUs() {
+        return latenciaDeteccao.percentil(100) / 1e3;
+    }
+
+    // =================================================================================
+    // GRAVAÇÃO DO CSV POR INTERVALO
+    // =================================================================================
+    // Guarda os valores da linha anterior e grava as diferenças; nada é zerado nos contadores.
+    private class IntervaloCsv {
+        private final BufferedWriter saida;
+        private final long[] contadoresAnteriores = new long[9];
+        private final HistogramaLatencia[] histogramas = {deteccao, travaDeteccao, esperaTrava, tempoBloqueado, recuperacao,
+                latenciaDeteccao};
+        private final long[][] contagensAnteriores = new long[histogramas.length][HistogramaLatencia.NUM_FAIXAS];
+
+        IntervaloCsv(BufferedWriter saida) {
+            this.saida = saida;
+        }
+
+        void gravar() {
+            long[] contadores = {operacoes.sum(), bloqueios.sum(), deteccoes.sum(),
+                    deteccoesComDeadlock.sum(), processosEmDeadlock.sum(), recuperacoes.sum(), vitimas.sum(),
+                    operacoesDesfeitas.sum(), deteccoesDescartadas.sum()};
+            StringBuilder linha = new StringBuilder().append(System.currentTimeMillis());
+            for (int i = 0; i < contadores.length; i++) {
+                linha.append(',').append(contadores[i] - contadoresAnteriores[i]);
+                contadoresAnteriores[i] = contadores[i];
+            }
+            for (int h = 0; h < histogramas.length; h++) {
+                long[] contagens = histogramas[h].copiarContagens();
+                long[] diferenca = new long[contagens.length];
+                for (int i = 0; i < contagens.length; i++) {
+                    diferenca[i] = contagens[i] - contagensAnteriores[h][i];
+                }
+                contagensAnteriores[h] = contagens;
+                linha.append(',').append(HistogramaLatencia.total(diferenca));
+                for (double p : new double[]{50, 99, 99.9, 100}) {
+                    linha.append(',').append(HistogramaLatencia.percentil(diferenca, p) / 1000);
+                }
+            }
+            try {
+                saida.write(linha.toString());
+                saida.newLine();
+                saida.flush();
+            } catch (IOException e) {
+                System.err.println("Falha ao gravar métricas: " + e.getMessage());
+            }
+        }
+    }
+}
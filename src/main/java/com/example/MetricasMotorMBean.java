@@ -0,0 +1,77 @@
+package com.example;
+
+/**
+ * Atributos JMX do {@link MetricasMotor}. Contadores são acumulados desde a
+ * criação do motor; tempos em microssegundos.
+ */
+public interface MetricasMotorMBean {
+
+    long getOperacoes();
+
+    long getBloqueios();
+
+    // Processos BLOQUEADOS neste momento.
+    long getProcessosBloqueados();
+
+    long getDeteccoes();
+
+    long getDeteccoesComDeadlock();
+
+    long getProcessosEmDeadlock();
+
+    // Detecções fora das travas cujo resultado mudou antes da revalidação e foi refeito.
+    long getDeteccoesDescartadas();
+
+    // Execuções da recuperação automática e processos sacrificados nelas.
+    long getRecuperacoes();
+
+    long getVitimas();
+
+    // Vazão perdida: unidades que as vítimas detinham e terão de pedir de novo.
+    long getOperacoesDesfeitas();
+
+    // Soma, em segundos, do tempo desde o início (ou a última preempção) de cada vítima.
+    double getTrabalhoDesfeitoS();
+
+    // Duração total de detectarDeadlock (captura e redução).
+    double getDeteccaoP50Us();
+
+    double getDeteccaoP99Us();
+
+    double getDeteccaoMaxUs();
+
+    // Tempo em que a detecção segura lockSistema (ou copia o estado, no modo POR_RECURSO ou INSTANTANEO).
+    double getTravaDeteccaoP50Us();
+
+    double getTravaDeteccaoP99Us();
+
+    double getTravaDeteccaoMaxUs();
+
+    // Espera para adquirir a trava em solicitarRecurso/liberarRecurso.
+    double getEsperaTravaP50Us();
+
+    double getEsperaTravaP99Us();
+
+    double getEsperaTravaMaxUs();
+
+    // Tempo que os processos passam BLOQUEADOS até serem acordados.
+    double getTempoBloqueadoP50Us();
+
+    double getTempoBloqueadoP99Us();
+
+    double getTempoBloqueadoMaxUs();
+
+    // Duração de recuperarDeadlock: escolha das vítimas e devolução dos recursos.
+    double getRecuperacaoP50Us();
+
+    double getRecuperacaoP99Us();
+
+    double getRecuperacaoMaxUs();
+
+    // Da formação de um deadlock (o bloqueio mais recente entre os seus processos) até a redução que o encontrou.
+    double getLatenciaDeteccaoP50Us();
+
+    double getLatenciaDeteccaoP99Us();
+
+    double getLatenciaDeteccaoMaxUs();
+}
@@ -0,0 +1,12 @@
+package com.example;
+
+/**
+ * Política de concessão de {@link MotorDeadlock#solicitarRecurso}.
+ */
+public enum ModoAlocacao {
+    // Concede sempre que há unidade livre; deadlocks são detectados depois.
+    IMEDIATA,
+    // Algoritmo do banqueiro: só concede se o estado continuar seguro, segundo as necessidades
+    // máximas declaradas. Exige o modo de concorrência SEMAFORO_GLOBAL.
+    BANQUEIRO
+}
@@ -0,0 +1,11 @@
+package com.example;
+
+/**
+ * Como o {@link MotorDeadlock} serializa as operações sobre o estado de alocação.
+ */
+public enum ModoConcorrencia {
+    // Um único semáforo justo para todo o sistema (comportamento original).
+    SEMAFORO_GLOBAL,
+    // Uma trava por tipo de recurso: operações sobre recursos diferentes correm em paralelo.
+    POR_RECURSO
+}
@@ -0,0 +1,13 @@
+package com.example;
+
+/**
+ * Estratégia usada pelo {@link MotorDeadlock} para encontrar deadlocks.
+ */
+public enum ModoDeteccao {
+    // Redução completa (trabalho/finalizar) a cada intervalo Δt do SistemaOperacional.
+    PERIODICA,
+    // Verifica apenas a nova aresta do grafo de espera sempre que um processo bloqueia.
+    INCREMENTAL,
+    // Redução completa antecipada por bloqueios novos, com intervalo que dobra até Δt enquanto não há deadlock.
+    ADAPTATIVA
+}
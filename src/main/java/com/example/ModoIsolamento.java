@@ -0,0 +1,11 @@
+package com.example;
+
+/**
+ * Como a redução completa do {@link MotorDeadlock} se isola das solicitações e liberações.
+ */
+public enum ModoIsolamento {
+    // A redução corre com lockSistema adquirido (comportamento original); no modo POR_RECURSO só a cópia é travada.
+    REDUCAO_TRAVADA,
+    // Redução sobre uma cópia tirada por leitura otimista, fora das travas, com o resultado revalidado no estado vivo.
+    INSTANTANEO
+}
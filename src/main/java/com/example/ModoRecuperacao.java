@@ -0,0 +1,13 @@
+package com.example;
+
+/**
+ * O que o motor faz com os processos em deadlock logo após detectá-los.
+ */
+public enum ModoRecuperacao {
+    // Só reporta; os processos ficam bloqueados até serem removidos à mão.
+    MANUAL,
+    // As vítimas devolvem tudo o que detêm e recomeçam do zero, sem sair da simulação.
+    PREEMPCAO,
+    // As vítimas são removidas, como em removerProcesso.
+    TERMINO
+}
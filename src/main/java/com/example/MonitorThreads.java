@@ -0,0 +1,434 @@
+package com.example;
+
+import java.io.IOException;
+import java.lang.management.LockInfo;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.management.remote.JMXConnector;
+import javax.management.remote.JMXConnectorFactory;
+import javax.management.remote.JMXServiceURL;
+
+/**
+ * Observa as threads de uma JVM real (a própria ou uma remota por JMX) e
+ * passa o grafo de espera ao {@link MotorDeadlock}: cada thread vira um
+ * processo com o ID da thread e cada monitor ou sincronizador (ReentrantLock
+ * e afins) com dono vira um recurso de uma instância. A detecção é a do motor,
+ * e os painéis de status e o rótulo de deadlock mostram o resultado como numa
+ * simulação.
+ *
+ * A amostra usa {@code getThreadInfo(ids, 0)}: sem pilhas e sem listar os
+ * monitores detidos, que são as partes caras, mas ainda com a trava esperada e
+ * o seu dono. As arestas, e os vetores de trabalho que as transformam no
+ * estado do motor, são reusados entre amostras e só crescem com o número de
+ * arestas; o motor só é refeito (processos, recursos e instantâneo novos)
+ * quando elas mudam, e um deadlock parado custa só a amostra.
+ *
+ * O motor usa IDs int; threads com ID acima de {@code Integer.MAX_VALUE} ficam
+ * fora do grafo, e o monitor registra no log quantas foram deixadas de fora.
+ *
+ * O intervalo se adapta: cai pela metade quando as arestas mudam (contenção em
+ * andamento) e dobra quando não mudam, entre os limites configurados, e nunca
+ * fica abaixo do necessário para a amostragem gastar no máximo
+ * {@link #FRACAO_MAXIMA} do tempo.
+ */
+final class MonitorThreads implements Runnable {
+
+    static final long INTERVALO_MINIMO_MS = 100;
+    static final long INTERVALO_MAXIMO_MS = 10_000;
+    static final double FRACAO_MAXIMA = 0.01;
+
+    private final ThreadMXBean threads;
+    private final MotorDeadlock motor;
+    private final JMXConnector conexao;
+    private final long intervaloMinimoMs;
+    private final long intervaloMaximoMs;
+
+    private volatile boolean rodando;
+    private Thread thread;
+
+    // Arestas "thread espera trava de dono" da amostra atual e da anterior, trocadas a cada amostra.
+    private int[] esperando = new int[16];
+    private int[] donos = new int[16];
+    private int[] travas = new int[16];
+    private String[] classesTrava = new String[16];
+    private int numArestas;
+    private int[] esperandoAnterior = new int[16];
+    private int[] donosAnterior = new int[16];
+    private int[] travasAnterior = new int[16];
+    private String[] classesTravaAnterior = new String[16];
+    private int numArestasAnterior = -1;
+    // Nomes da amostra atual, só para o log; referências aos objetos de ThreadInfo.
+    private String[] nomesEsperando = new String[16];
+    private String[] nomesDono = new String[16];
+    private LockInfo[] infosTrava = new LockInfo[16];
+
+    // Índices densos de travas e threads, usados ao montar o estado para o motor. O identityHashCode
+    // não é único: indiceTrava leva ao primeiro recurso com aquele código e proximaTrava encadeia os
+    // demais, que se distinguem pela classe e pelo dono (uma trava só tem um dono por vez).
+    private final MapaIntInt indiceTrava = new MapaIntInt();
+    private final MapaIntInt indiceThread = new MapaIntInt();
+    private final MapaIntInt donoConfirmado = new MapaIntInt();
+
+    // Vetores de trabalho de espelharEDetectar: os de trava por aresta e os de thread por ponta de aresta.
+    private final List<Recurso> recursos = new ArrayList<>();
+    private int[] donoDaTrava = new int[16];
+    private String[] classeDaTrava = new String[16];
+    private int[] proximaTrava = new int[16];
+    private int[] travaDaAresta = new int[16];
+    private int[] detidas = new int[16];
+    private int[] idsThread = new int[32];
+    private int[] esperada = new int[32];
+    private int[] cursor = new int[32];
+    private int[] inicioDetidas = new int[33];
+    private int threadsForaDoGrafo;
+
+    private volatile long intervaloMs;
+    private volatile long amostras;
+    private volatile long mudancas;
+    private volatile long ultimoCustoNs;
+    private volatile long custoTotalNs;
+    // Média móvel do custo, que define o piso do intervalo; uma amostra lenta isolada (JIT, GC) pesa pouco.
+    private double custoMedioNs;
+    private volatile List<Integer> emDeadlock = new ArrayList<>();
+
+    MonitorThreads(ThreadMXBean threads, MotorDeadlock motor) {
+        this(threads, null, motor, INTERVALO_MINIMO_MS, INTERVALO_MAXIMO_MS);
+    }
+
+    private MonitorThreads(ThreadMXBean threads, JMXConnector conexao, MotorDeadlock motor,
+                           long intervaloMinimoMs, long intervaloMaximoMs) {
+        if (intervaloMinimoMs <= 0 || intervaloMaximoMs < intervaloMinimoMs) {
+            throw new IllegalArgumentException("Intervalos de amostragem inválidos.");
+        }
+        this.threads = threads;
+        this.conexao = conexao;
+        this.motor = motor;
+        this.intervaloMinimoMs = intervaloMinimoMs;
+        this.intervaloMaximoMs = intervaloMaximoMs;
+        this.intervaloMs = intervaloMinimoMs;
+    }
+
+    static MonitorThreads local(MotorDeadlock motor) {
+        return new MonitorThreads(ManagementFactory.getThreadMXBean(), motor);
+    }
+
+    // A JVM observada precisa de -Dcom.sun.management.jmxremote.port=<porta> (e autenticação conforme o ambiente).
+    static MonitorThreads remoto(String hostPorta, MotorDeadlock motor) throws IOException {
+        JMXServiceURL url = new JMXServiceURL("service:jmx:rmi:///jndi/rmi://" + hostPorta + "/jmxrmi");
+        JMXConnector conexao = JMXConnectorFactory.connect(url);
+        ThreadMXBean proxy = ManagementFactory.newPlatformMXBeanProxy(conexao.getMBeanServerConnection(),
+                ManagementFactory.THREAD_MXBEAN_NAME, ThreadMXBean.class);
+        return new MonitorThreads(proxy, conexao, motor, INTERVALO_MINIMO_MS, INTERVALO_MAXIMO_MS);
+    }
+
+    void iniciar() {
+        if (rodando) {
+            throw new IllegalStateException("O monitor já está em execução.");
+        }
+        rodando = true;
+        thread = new Thread(this, "monitor-threads");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    void parar() {
+        rodando = false;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    boolean isRodando() {
+        return rodando;
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (rodando) {
+                amostrar();
+                TimeUnit.MILLISECONDS.sleep(intervaloMs);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            // JVM remota encerrada, conexão perdida ou simulação iniciada no motor.
+            motor.log("ERRO: Monitor de threads interrompido: " + e.getMessage());
+        } finally {
+            rodando = false;
+            fecharConexao();
+        }
+    }
+
+    // Uma amostra completa: coleta as arestas e, se mudaram, refaz o estado do motor e detecta.
+    void amostrar() {
+        long inicio = System.nanoTime();
+        ThreadInfo[] infos = threads.getThreadInfo(threads.getAllThreadIds(), 0);
+        trocarBuffers();
+        numArestas = 0;
+        int foraDoGrafo = 0;
+        for (ThreadInfo ti : infos) {
+            // Thread já encerrada (null), sem trava esperada ou esperando sem dono (Object.wait, Condition).
+            if (ti == null || ti.getLockOwnerId() < 0 || ti.getLockInfo() == null) {
+                continue;
+            }
+            if (ti.getThreadId() > Integer.MAX_VALUE || ti.getLockOwnerId() > Integer.MAX_VALUE) {
+                foraDoGrafo++;
+                continue;
+            }
+            adicionarAresta(ti);
+        }
+        if (foraDoGrafo != threadsForaDoGrafo) {
+            threadsForaDoGrafo = foraDoGrafo;
+            if (foraDoGrafo > 0) {
+                motor.log("MONITOR: " + foraDoGrafo + " esperas envolvem threads com ID acima de "
+                        + Integer.MAX_VALUE + " e ficaram fora do grafo.");
+            }
+        }
+        boolean mudou = numArestas != numArestasAnterior
+                || !Arrays.equals(esperando, 0, numArestas, esperandoAnterior, 0, numArestas)
+                || !Arrays.equals(donos, 0, numArestas, donosAnterior, 0, numArestas)
+                || !Arrays.equals(travas, 0, numArestas, travasAnterior, 0, numArestas)
+                || !Arrays.equals(classesTrava, 0, numArestas, classesTravaAnterior, 0, numArestas);
+        if (mudou) {
+            mudancas++;
+            espelharEDetectar();
+        }
+        long custo = System.nanoTime() - inicio;
+        ultimoCustoNs = custo;
+        custoTotalNs += custo;
+        custoMedioNs = amostras == 0 ? custo : custoMedioNs + (custo - custoMedioNs) / 4;
+        amostras++;
+        intervaloMs = proximoIntervalo(mudou);
+    }
+
+    private void adicionarAresta(ThreadInfo ti) {
+        if (numArestas == esperando.length) {
+            int capacidade = numArestas * 2;
+            esperando = Arrays.copyOf(esperando, capacidade);
+            donos = Arrays.copyOf(donos, capacidade);
+            travas = Arrays.copyOf(travas, capacidade);
+            classesTrava = Arrays.copyOf(classesTrava, capacidade);
+            nomesEsperando = Arrays.copyOf(nomesEsperando, capacidade);
+            nomesDono = Arrays.copyOf(nomesDono, capacidade);
+            infosTrava = Arrays.copyOf(infosTrava, capacidade);
+        }
+        esperando[numArestas] = (int) ti.getThreadId();
+        donos[numArestas] = (int) ti.getLockOwnerId();
+        travas[numArestas] = ti.getLockInfo().getIdentityHashCode();
+        classesTrava[numArestas] = ti.getLockInfo().getClassName();
+        nomesEsperando[numArestas] = ti.getThreadName();
+        nomesDono[numArestas] = ti.getLockOwnerName();
+        infosTrava[numArestas] = ti.getLockInfo();
+        numArestas++;
+    }
+
+    private void trocarBuffers() {
+        int[] t = esperandoAnterior;
+        esperandoAnterior = esperando;
+        esperando = t;
+        t = donosAnterior;
+        donosAnterior = donos;
+        donos = t;
+        t = travasAnterior;
+        travasAnterior = travas;
+        travas = t;
+        String[] c = classesTravaAnterior;
+        classesTravaAnterior = classesTrava;
+        classesTrava = c;
+        numArestasAnterior = numArestas;
+        if (esperando.length < esperandoAnterior.length) {
+            esperando = new int[esperandoAnterior.length];
+            donos = new int[esperandoAnterior.length];
+            travas = new int[esperandoAnterior.length];
+            classesTrava = new String[esperandoAnterior.length];
+        }
+    }
+
+    // Threads e travas das arestas viram processos e recursos; as travas têm sempre dono, então
+    // nenhuma unidade fica disponível.
+    private void espelharEDetectar() {
+        garantirCapacidade();
+        indiceTrava.limpar();
+        indiceThread.limpar();
+        recursos.clear();
+        int numThreads = 0;
+        for (int k = 0; k < numArestas; k++) {
+            int l = indiceTrava.get(travas[k]);
+            int ultima = -1;
+            while (l >= 0 && (donoDaTrava[l] != donos[k] || !classeDaTrava[l].equals(classesTrava[k]))) {
+                ultima = l;
+                l = proximaTrava[l];
+            }
+            if (l < 0) {
+                l = recursos.size();
+                proximaTrava[l] = -1;
+                donoDaTrava[l] = donos[k];
+                classeDaTrava[l] = classesTrava[k];
+                if (ultima < 0) {
+                    indiceTrava.put(travas[k], l);
+                } else {
+                    proximaTrava[ultima] = l;
+                }
+                recursos.add(new Recurso(infosTrava[k].toString(), l + 1, 1));
+            }
+            travaDaAresta[k] = l;
+            numThreads = registrarThread(esperando[k], numThreads);
+            numThreads = registrarThread(donos[k], numThreads);
+        }
+        Arrays.sort(idsThread, 0, numThreads);
+        for (int i = 0; i < numThreads; i++) {
+            indiceThread.put(idsThread[i], i);
+        }
+
+        // Travas de cada thread por contagem, já em ordem crescente de índice dentro de cada linha.
+        Arrays.fill(inicioDetidas, 0, numThreads + 1, 0);
+        for (int l = 0; l < recursos.size(); l++) {
+            inicioDetidas[indiceThread.get(donoDaTrava[l]) + 1]++;
+        }
+        for (int i = 0; i < numThreads; i++) {
+            inicioDetidas[i + 1] += inicioDetidas[i];
+        }
+        System.arraycopy(inicioDetidas, 0, cursor, 0, numThreads);
+        for (int l = 0; l < recursos.size(); l++) {
+            detidas[cursor[indiceThread.get(donoDaTrava[l])]++] = l;
+        }
+        Arrays.fill(esperada, 0, numThreads, -1);
+        for (int k = 0; k < numArestas; k++) {
+            esperada[indiceThread.get(esperando[k])] = travaDaAresta[k];
+        }
+
+        InstantaneoAlocacao.Construtor construtor = new InstantaneoAlocacao.Construtor(new int[recursos.size()]);
+        for (int i = 0; i < numThreads; i++) {
+            construtor.novoProcesso(idsThread[i]);
+            for (int k = inicioDetidas[i]; k < inicioDetidas[i + 1]; k++) {
+                construtor.alocacao(detidas[k], 1);
+            }
+            if (esperada[i] >= 0) {
+                construtor.requisicao(esperada[i], 1);
+            }
+        }
+        motor.espelharEstado(recursos, construtor.construir());
+        List<Integer> detectados = confirmarCiclos(motor.detectarDeadlock());
+        if (!detectados.equals(emDeadlock)) {
+            emDeadlock = detectados;
+            if (!detectados.isEmpty()) {
+                registrarDeadlock(detectados);
+            }
+        }
+    }
+
+    // Cada aresta traz no máximo uma trava nova e duas threads novas.
+    private void garantirCapacidade() {
+        int capacidade = esperando.length;
+        if (donoDaTrava.length < capacidade) {
+            donoDaTrava = new int[capacidade];
+            classeDaTrava = new String[capacidade];
+            proximaTrava = new int[capacidade];
+            travaDaAresta = new int[capacidade];
+            detidas = new int[capacidade];
+            idsThread = new int[2 * capacidade];
+            esperada = new int[2 * capacidade];
+            cursor = new int[2 * capacidade];
+            inicioDetidas = new int[2 * capacidade + 1];
+        }
+    }
+
+    private int registrarThread(int id, int numThreads) {
+        if (indiceThread.get(id) < 0) {
+            indiceThread.put(id, 0);
+            idsThread[numThreads++] = id;
+        }
+        return numThreads;
+    }
+
+    // Só reporta as threads cuja cadeia de donos, relida agora por getLockOwnerId, volta a uma thread
+    // já visitada sem sair do conjunto detectado. Descarta ciclos que só existiam pela fusão de
+    // travas distintas no grafo e os que se desfizeram entre a amostra e a detecção.
+    private List<Integer> confirmarCiclos(List<Integer> detectados) {
+        if (detectados.isEmpty()) {
+            return detectados;
+        }
+        long[] ids = new long[detectados.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = detectados.get(i);
+        }
+        donoConfirmado.limpar();
+        for (ThreadInfo ti : threads.getThreadInfo(ids, 0)) {
+            if (ti != null && ti.getLockOwnerId() >= 0 && ti.getLockOwnerId() <= Integer.MAX_VALUE) {
+                donoConfirmado.put((int) ti.getThreadId(), (int) ti.getLockOwnerId());
+            }
+        }
+        List<Integer> confirmados = new ArrayList<>();
+        for (int id : detectados) {
+            // Mais passos do que threads no conjunto sem sair dele: a cadeia passou duas vezes pela mesma.
+            int atual = id;
+            int passos = 0;
+            while (atual >= 0 && passos <= detectados.size()) {
+                atual = donoConfirmado.get(atual);
+                passos++;
+            }
+            if (atual >= 0) {
+                confirmados.add(id);
+            }
+        }
+        return confirmados;
+    }
+
+    private void registrarDeadlock(List<Integer> detectados) {
+        StringBuilder sb = new StringBuilder("MONITOR: Deadlock entre ").append(detectados.size()).append(" threads:");
+        for (int k = 0; k < numArestas; k++) {
+            if (detectados.contains(esperando[k])) {
+                sb.append("\n  '").append(nomesEsperando[k]).append("' (P").append(esperando[k]).append(") espera ")
+                  .append(infosTrava[k]).append(" de '").append(nomesDono[k]).append("' (P").append(donos[k]).append(')');
+            }
+        }
+        motor.log(sb.toString());
+    }
+
+    private long proximoIntervalo(boolean mudou) {
+        long piso = (long) (custoMedioNs / FRACAO_MAXIMA / 1e6);
+        long alvo = mudou ? intervaloMs / 2 : intervaloMs * 2;
+        return Math.max(piso, Math.min(intervaloMaximoMs, Math.max(intervaloMinimoMs, alvo)));
+    }
+
+    private void fecharConexao() {
+        if (conexao != null) {
+            try {
+                conexao.close();
+            } catch (IOException e) {
+                // Conexão já perdida.
+            }
+        }
+    }
+
+    long getIntervaloMs() {
+        return intervaloMs;
+    }
+
+    long getAmostras() {
+        return amostras;
+    }
+
+    long getMudancas() {
+        return mudancas;
+    }
+
+    long getUltimoCustoNs() {
+        return ultimoCustoNs;
+    }
+
+    long getCustoTotalNs() {
+        return custoTotalNs;
+    }
+
+    // IDs das threads em deadlock na última detecção.
+    List<Integer> getEmDeadlock() {
+        return emDeadlock;
+    }
+}
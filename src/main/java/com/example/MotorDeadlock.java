@@ -0,0 +1,1967 @@
+package com.example;
+
+import java.io.IOException;
+import java.lang.invoke.VarHandle;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.StampedLock;
+import java.util.stream.Collectors;
+
+/**
+ * Motor de alocação e detecção de deadlock, sem nenhuma dependência de interface
+ * gráfica. Pode ser usado a partir de um {@code main} simples ou de um teste; a
+ * {@link DeadlockApp} é apenas um dos observadores possíveis.
+ */
+public class MotorDeadlock {
+
+    // Leituras otimistas de todas as travas antes de bloquear as escritas para copiar o estado.
+    private static final int TENTATIVAS_OTIMISTAS = 4;
+    // Reduções sobre instantâneo refeitas quando o resultado não resiste à revalidação; depois, com as travas.
+    private static final int TENTATIVAS_REVALIDACAO = 2;
+
+    // Indica, no modo incremental, que a cadeia de espera não basta e é preciso a redução completa.
+    private static final List<Integer> REQUER_REDUCAO = Collections.unmodifiableList(new ArrayList<>());
+
+    // --- Estruturas de Dados para Controle do Sistema ---
+    private final List<Recurso> tiposRecurso = new ArrayList<>();
+    private final Map<Integer, Processo> processosAtivos = new ConcurrentHashMap<>();
+
+    private final Semaphore lockSistema = new Semaphore(1, true);
+    // Faz, para o semáforo global, o papel do carimbo de uma StampedLock: ímpar enquanto alguém que
+    // pode escrever detém lockSistema. Permite copiar o estado sem adquirir o semáforo.
+    private final AtomicLong versaoSistema = new AtomicLong();
+
+    // Uma trava por recurso no modo POR_RECURSO; null enquanto o modo é SEMAFORO_GLOBAL
+    // ou a alocação ainda não foi preparada.
+    private StampedLock[] travasRecurso;
+    private volatile ModoConcorrencia modoConcorrencia = ModoConcorrencia.SEMAFORO_GLOBAL;
+
+    // Só existe no modo BANQUEIRO, depois de preparada a alocação; protegido por lockSistema.
+    private volatile ModoAlocacao modoAlocacao = ModoAlocacao.IMEDIATA;
+    private AvaliadorBanqueiro banqueiro;
+    private int inicioVarreduraBanqueiro;
+
+    // O que fazer com os processos em deadlock logo após a detecção.
+    private volatile ModoRecuperacao modoRecuperacao = ModoRecuperacao.MANUAL;
+    private volatile CustoVitima custoVitima = CriterioVitima.UNIDADES_DETIDAS;
+
+    // Alocação, requisição e disponíveis para o algoritmo de detecção de deadlock
+    private EstadoAlocacao estado = new EstadoAlocacao();
+    private volatile AlgoritmoDeteccao algoritmoDeteccao = AlgoritmoDeteccao.LISTA_TRABALHO;
+    private volatile DetectorDeadlock detector = new DetectorListaTrabalho();
+
+    private static final int CAPACIDADE_INICIAL_FILA = 64;
+
+    // Processo de cada slot do estado, lido nos caminhos de bloqueio e despertar no lugar do mapa, cuja
+    // busca encaixota o ID. Segue o mapa: a entrada some quando o processo sai dele.
+    private volatile Processo[] processoPorSlot = new Processo[16];
+
+    // Processos bloqueados em cada recurso, em ordem de chegada; protegida pela trava do recurso.
+    private FilaInt[] filasEspera;
+    // Lotes que saíram da frente de uma fila sem poder ser revistos ali (modo POR_RECURSO, com outra
+    // trava da requisição ocupada); revistos por revisarLotesAdiados depois que as travas são soltas.
+    private final ConcurrentLinkedQueue<Processo> lotesAdiados = new ConcurrentLinkedQueue<>();
+    // Passado a acordarProcessos por quem detém todas as travas (ou lockSistema).
+    private static final long[] TODAS_TRAVADAS = new long[0];
+
+    // Grafo de espera mantido incrementalmente: detentor de cada recurso de instância única (0 = livre).
+    private AtomicIntegerArray detentorUnico;
+    private volatile ModoDeteccao modoDeteccao = ModoDeteccao.PERIODICA;
+    // Último deadlock com latência registrada, para não medir de novo o mesmo deadlock.
+    private volatile int[] ultimoDeadlockMedido;
+    private volatile long intervaloMinimoVerificacaoMs = SistemaOperacional.INTERVALO_MINIMO_PADRAO_MS;
+    private volatile int limiarBloqueiosVerificacao = SistemaOperacional.LIMIAR_BLOQUEIOS_PADRAO;
+    private volatile long limiarEsperaVerificacaoMs = SistemaOperacional.LIMIAR_ESPERA_PADRAO_MS;
+    private volatile ModoIsolamento modoIsolamento = ModoIsolamento.REDUCAO_TRAVADA;
+    // Preempções e remoções, as únicas operações que desfazem um deadlock; só alterado com todas as travas.
+    private volatile long intervencoes;
+
+    // --- Observadores ---
+    // Vetor trocado inteiro a cada inclusão ou remoção: percorrê-lo não aloca, ao contrário do
+    // iterador de uma CopyOnWriteArrayList.
+    private volatile OuvinteMotor[] ouvintes = new OuvinteMotor[0];
+
+    private final MetricasMotor metricas = new MetricasMotor();
+
+    // Diário de eventos ativo ou null; trocado só com todas as travas.
+    private volatile DiarioEventos diario;
+
+    // --- Controle de Threads ---
+    // Semente dos sorteios dos processos no tempo real; null sorteia sequências novas a cada execução.
+    private volatile Long semente = Long.getLong("deadlock.semente");
+    private AgendadorProcessos agendador;
+    private SistemaOperacional so;
+    private Thread threadSO;
+
+    public void adicionarOuvinte(OuvinteMotor ouvinte) {
+        synchronized (this) {
+            OuvinteMotor[] novos = Arrays.copyOf(ouvintes, ouvintes.length + 1);
+            novos[ouvintes.length] = ouvinte;
+            ouvintes = novos;
+        }
+    }
+
+    public void removerOuvinte(OuvinteMotor ouvinte) {
+        synchronized (this) {
+            List<OuvinteMotor> restantes = new ArrayList<>(Arrays.asList(ouvintes));
+            if (restantes.remove(ouvinte)) {
+                ouvintes = restantes.toArray(new OuvinteMotor[0]);
+            }
+        }
+    }
+
+    public ModoDeteccao getModoDeteccao() {
+        return modoDeteccao;
+    }
+
+    public void setModoDeteccao(ModoDeteccao modoDeteccao) {
+        this.modoDeteccao = modoDeteccao;
+    }
+
+    public ModoIsolamento getModoIsolamento() {
+        return modoIsolamento;
+    }
+
+    // Pode ser trocado a qualquer momento; vale a partir da próxima redução completa.
+    public void setModoIsolamento(ModoIsolamento modoIsolamento) {
+        this.modoIsolamento = modoIsolamento;
+    }
+
+    // Parâmetros do modo ADAPTATIVA, lidos ao iniciar a simulação: intervalo mínimo entre reduções
+    // (e período de amostragem), bloqueios novos que antecipam a redução e espera do mais antigo
+    // deles que também a antecipa. O máximo é o Δt da simulação.
+    public void configurarVerificacaoAdaptativa(long intervaloMinimoMs, int limiarBloqueios, long limiarEsperaMs) {
+        if (intervaloMinimoMs <= 0 || limiarBloqueios <= 0 || limiarEsperaMs < 0) {
+            throw new IllegalArgumentException("Intervalo mínimo e limiar de bloqueios devem ser positivos, "
+                    + "e o limiar de espera não pode ser negativo.");
+        }
+        this.intervaloMinimoVerificacaoMs = intervaloMinimoMs;
+        this.limiarBloqueiosVerificacao = limiarBloqueios;
+        this.limiarEsperaVerificacaoMs = limiarEsperaMs;
+    }
+
+    // Estatísticas do escalonamento de detecção da simulação atual (ou da última), ou null.
+    SistemaOperacional getSistemaOperacional() {
+        return so;
+    }
+
+    public AlgoritmoDeteccao getAlgoritmoDeteccao() {
+        return algoritmoDeteccao;
+    }
+
+    // Pode ser trocado a qualquer momento; vale a partir da próxima detecção.
+    public void setAlgoritmoDeteccao(AlgoritmoDeteccao algoritmoDeteccao) {
+        detector = criarDetector(algoritmoDeteccao);
+        this.algoritmoDeteccao = algoritmoDeteccao;
+    }
+
+    private static DetectorDeadlock criarDetector(AlgoritmoDeteccao algoritmo) {
+        switch (algoritmo) {
+            case REDUCAO:
+                return new DetectorReducao();
+            case LISTA_TRABALHO:
+                return new DetectorListaTrabalho();
+            case PARALELO:
+                return new DetectorParalelo();
+            default:
+                throw new IllegalArgumentException("Algoritmo de detecção desconhecido: " + algoritmo);
+        }
+    }
+
+    public Long getSemente() {
+        return semente;
+    }
+
+    // Vale a partir da próxima simulação em tempo real; a virtual recebe a semente como argumento.
+    public void setSemente(Long semente) {
+        this.semente = semente;
+    }
+
+    public ModoConcorrencia getModoConcorrencia() {
+        return modoConcorrencia;
+    }
+
+    public void setModoConcorrencia(ModoConcorrencia modoConcorrencia) {
+        if (estado.isInicializado()) {
+            throw new IllegalStateException("O modo de concorrência deve ser escolhido antes de iniciar a simulação.");
+        }
+        if (modoConcorrencia == ModoConcorrencia.POR_RECURSO && modoAlocacao == ModoAlocacao.BANQUEIRO) {
+            throw new IllegalStateException("O modo banqueiro exige o semáforo global.");
+        }
+        this.modoConcorrencia = modoConcorrencia;
+    }
+
+    public ModoAlocacao getModoAlocacao() {
+        return modoAlocacao;
+    }
+
+    // A verificação de segurança olha o estado inteiro, por isso o banqueiro só funciona com o semáforo global.
+    public void setModoAlocacao(ModoAlocacao modoAlocacao) {
+        if (estado.isInicializado()) {
+            throw new IllegalStateException("O modo de alocação deve ser escolhido antes de iniciar a simulação.");
+        }
+        if (modoAlocacao == ModoAlocacao.BANQUEIRO && modoConcorrencia != ModoConcorrencia.SEMAFORO_GLOBAL) {
+            throw new IllegalStateException("O modo banqueiro exige o semáforo global.");
+        }
+        this.modoAlocacao = modoAlocacao;
+    }
+
+    // Necessidade máxima do processo para cada tipo de recurso, usada pelo modo BANQUEIRO. Sem
+    // declaração vale uma unidade de cada tipo, que é o que os processos simulados chegam a pedir.
+    public void declararNecessidadeMaxima(int idProcesso, int[] maximos) {
+        Processo p = processosAtivos.get(idProcesso);
+        if (p == null) {
+            throw new IllegalArgumentException("Processo com ID " + idProcesso + " não encontrado.");
+        }
+        if (maximos.length != tiposRecurso.size()) {
+            throw new IllegalArgumentException("Informe a necessidade máxima de cada um dos " + tiposRecurso.size() + " tipos de recurso.");
+        }
+        for (int r = 0; r < maximos.length; r++) {
+            if (maximos[r] < 0 || maximos[r] > tiposRecurso.get(r).quantidadeTotal) {
+                throw new IllegalArgumentException("Necessidade máxima de " + tiposRecurso.get(r).nome + " deve estar entre 0 e o total do recurso.");
+            }
+        }
+        int[] copia = maximos.clone();
+        long[] travas = travarTudo();
+        try {
+            int slot = estado.slot(idProcesso);
+            if (estado.isInicializado()) {
+                for (int r = 0; r < copia.length; r++) {
+                    if (estado.alocacao(slot).get(r) > copia[r]) {
+                        throw new IllegalStateException("Processo " + idProcesso + " já detém mais de " + copia[r] + " unidade(s) de " + tiposRecurso.get(r).nome + ".");
+                    }
+                }
+            }
+            p.setNecessidadeMaxima(copia);
+            if (banqueiro != null) {
+                banqueiro.definirMaximo(slot, copia);
+            }
+        } finally {
+            destravarTudo(travas);
+        }
+    }
+
+    AvaliadorBanqueiro getBanqueiro() {
+        return banqueiro;
+    }
+
+    public ModoRecuperacao getModoRecuperacao() {
+        return modoRecuperacao;
+    }
+
+    // Pode ser trocado a qualquer momento; vale a partir do próximo deadlock detectado.
+    public void setModoRecuperacao(ModoRecuperacao modoRecuperacao) {
+        this.modoRecuperacao = modoRecuperacao;
+    }
+
+    public CustoVitima getCustoVitima() {
+        return custoVitima;
+    }
+
+    public void setCustoVitima(CustoVitima custoVitima) {
+        if (custoVitima == null) {
+            throw new IllegalArgumentException("O modelo de custo das vítimas não pode ser nulo.");
+        }
+        this.custoVitima = custoVitima;
+    }
+
+    // Os eventos são curtos; poucas threads atendem qualquer número de processos.
+    private ExecutorService criarExecutorProcessos() {
+        return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    // Solicitações e liberações concluídas desde a criação do motor.
+    public long getOperacoes() {
+        return metricas.operacoes.sum();
+    }
+
+    public MetricasMotor getMetricas() {
+        return metricas;
+    }
+
+    // --- Configuração do Sistema ---
+
+    public void adicionarRecurso(String nome, int id, int quantidade) {
+        if (isSimulacaoAtiva()) {
+            throw new IllegalStateException("Não é possível adicionar recursos após o início da simulação.");
+        }
+        if (nome.isEmpty() || quantidade <= 0) {
+            throw new IllegalArgumentException("Nome do recurso inválido ou quantidade não positiva.");
+        }
+        if (tiposRecurso.stream().anyMatch(r -> r.id == id || r.nome.equalsIgnoreCase(nome))) {
+            throw new IllegalArgumentException("ID ou nome de recurso já existe.");
+        }
+
+        tiposRecurso.add(new Recurso(nome, id, quantidade));
+        tiposRecurso.sort(Comparator.comparingInt(r -> r.id));
+        log("INFO: Recurso '" + nome + "' (ID: " + id + ", Qtd: " + quantidade + ") adicionado.");
+        notificarEstadoAlterado();
+    }
+
+    public Processo adicionarProcesso(int id, long ts, long tu) {
+        if (tiposRecurso.isEmpty()) {
+            throw new IllegalStateException("Adicione pelo menos um tipo de recurso antes de criar um processo.");
+        }
+        if (isSimulacaoAtiva()) {
+            throw new IllegalStateException("Não é possível adicionar processos após o início da simulação.");
+        }
+        if (id <= 0) {
+            throw new IllegalArgumentException("ID do processo deve ser um inteiro positivo.");
+        }
+        if (processosAtivos.containsKey(id)) {
+            throw new IllegalArgumentException("Processo com ID " + id + " já existe.");
+        }
+
+        Processo p = new Processo(id, ts, tu, this);
+        long[] travas = travarTudo();
+        try {
+            p.slot = estado.registrarProcesso(id);
+            associarSlot(p);
+            if (banqueiro != null) {
+                banqueiro.registrar(p.slot, null);
+            }
+        } finally {
+            destravarTudo(travas);
+        }
+        processosAtivos.put(id, p);
+        log("INFO: Processo " + id + " criado.");
+        notificarEstadoAlterado();
+        return p;
+    }
+
+    public void removerProcesso(int id) {
+        Processo p = processosAtivos.get(id);
+        if (p == null) {
+            throw new IllegalArgumentException("Processo com ID " + id + " não encontrado.");
+        }
+
+        p.parar();
+        processosAtivos.remove(id);
+        desassociarSlot(p);
+        liberarRecursosDeProcesso(p);
+        log("INFO: Processo " + id + " removido e seus recursos foram liberados.");
+        notificarEstadoAlterado();
+    }
+
+    // Inicializa o vetor de disponíveis; chamado ao iniciar a simulação ou por quem usa o motor sem threads.
+    public void prepararAlocacao() {
+        if (!estado.isInicializado()) {
+            estado.inicializarDisponivel(tiposRecurso);
+            detentorUnico = new AtomicIntegerArray(tiposRecurso.size());
+            filasEspera = new FilaInt[tiposRecurso.size()];
+            // Já do tamanho que a fila costuma atingir, para ela não crescer durante a simulação.
+            int capacidadeFila = Math.min(Math.max(processosAtivos.size(), 4), CAPACIDADE_INICIAL_FILA);
+            for (int i = 0; i < filasEspera.length; i++) {
+                filasEspera[i] = new FilaInt(capacidadeFila);
+            }
+            if (modoAlocacao == ModoAlocacao.BANQUEIRO) {
+                AvaliadorBanqueiro avaliador = new AvaliadorBanqueiro(estado, tiposRecurso.size());
+                for (int s = 0; s < estado.numSlots(); s++) {
+                    Processo p = processosAtivos.get(estado.idNoSlot(s));
+                    if (p != null) {
+                        avaliador.registrar(s, p.getNecessidadeMaxima());
+                    }
+                }
+                banqueiro = avaliador;
+            }
+            if (modoConcorrencia == ModoConcorrencia.POR_RECURSO) {
+                StampedLock[] travas = new StampedLock[tiposRecurso.size()];
+                for (int i = 0; i < travas.length; i++) {
+                    travas[i] = new StampedLock();
+                }
+                travasRecurso = travas;
+            }
+        }
+    }
+
+    public void iniciarSimulacao(long dt) {
+        iniciarSimulacao(dt, TimeUnit.SECONDS);
+    }
+
+    // Δt em qualquer unidade, para verificações abaixo de um segundo.
+    public void iniciarSimulacao(long intervalo, TimeUnit unidade) {
+        if (tiposRecurso.isEmpty() || processosAtivos.isEmpty()) {
+            throw new IllegalStateException("Adicione recursos e processos antes de iniciar.");
+        }
+        if (isSimulacaoAtiva()) {
+            throw new IllegalStateException("Simulação já iniciada.");
+        }
+        if (intervalo <= 0) {
+            throw new IllegalArgumentException("O intervalo de verificação deve ser positivo.");
+        }
+
+        prepararAlocacao();
+        agendador = new AgendadorTempoReal(criarExecutorProcessos(), semente);
+
+        so = criarSistemaOperacional(unidade.toNanos(intervalo));
+        threadSO = new Thread(so);
+        threadSO.setDaemon(true);
+        threadSO.start();
+
+        agendador.iniciar();
+        iniciarProcessos();
+
+        if (modoDeteccao == ModoDeteccao.INCREMENTAL) {
+            log("INFO: Simulação iniciada. Deadlocks verificados a cada bloqueio.");
+        } else if (modoDeteccao == ModoDeteccao.ADAPTATIVA) {
+            log("INFO: Simulação iniciada. Verificação de deadlock adaptativa, entre " + intervaloMinimoVerificacaoMs
+                    + " ms e " + unidade.toMillis(intervalo) + " ms.");
+        } else {
+            log("INFO: Simulação iniciada. Verificação de deadlock a cada " + unidade.toMillis(intervalo) + " ms.");
+        }
+        notificarEstadoAlterado();
+    }
+
+    private SistemaOperacional criarSistemaOperacional(long intervaloNs) {
+        return new SistemaOperacional(intervaloNs, TimeUnit.MILLISECONDS.toNanos(intervaloMinimoVerificacaoMs),
+                limiarBloqueiosVerificacao, TimeUnit.MILLISECONDS.toNanos(limiarEsperaVerificacaoMs), this);
+    }
+
+    // Simulação de eventos discretos: ΔTs, ΔTu e Δt passam num relógio virtual e tudo roda na thread
+    // chamadora até 'duracaoSegundos' de tempo simulado. A mesma semente e a mesma configuração
+    // produzem sempre a mesma sequência de eventos. Retorna os processos em deadlock ao final.
+    public List<Integer> simularTempoVirtual(long dt, long duracaoSegundos, long semente) {
+        return simularTempoVirtual(dt, TimeUnit.SECONDS, duracaoSegundos, semente);
+    }
+
+    public List<Integer> simularTempoVirtual(long intervalo, TimeUnit unidade, long duracaoSegundos, long semente) {
+        if (tiposRecurso.isEmpty() || processosAtivos.isEmpty()) {
+            throw new IllegalStateException("Adicione recursos e processos antes de iniciar.");
+        }
+        if (isSimulacaoAtiva()) {
+            throw new IllegalStateException("Simulação já iniciada.");
+        }
+        if (intervalo <= 0 || duracaoSegundos <= 0) {
+            throw new IllegalArgumentException("Intervalo de verificação e duração devem ser positivos.");
+        }
+        if (processosAtivos.values().stream().anyMatch(p -> p.getTempoSolicitacao() <= 0)) {
+            throw new IllegalArgumentException("No tempo virtual o tempo de solicitação deve ser positivo.");
+        }
+
+        prepararAlocacao();
+        AgendadorVirtual virtual = new AgendadorVirtual(semente, processosAtivos.size() + 1);
+        agendador = virtual;
+        so = criarSistemaOperacional(unidade.toNanos(intervalo));
+        threadSO = null;
+
+        virtual.iniciar();
+        iniciarProcessos();
+        so.agendarVerificacao(virtual);
+        log("INFO: Simulação em tempo virtual iniciada (" + duracaoSegundos + " s simulados, semente " + semente + ").");
+        notificarEstadoAlterado();
+        try {
+            virtual.executarAte(TimeUnit.SECONDS.toNanos(duracaoSegundos));
+        } finally {
+            processosAtivos.values().forEach(Processo::parar);
+            virtual.parar();
+            so.parar();
+        }
+        return detectarDeadlock();
+    }
+
+    // Em ordem de ID, para que a ordem dos primeiros eventos não dependa do mapa.
+    private void iniciarProcessos() {
+        processosAtivos.values().stream()
+                .sorted(Comparator.comparingInt(p -> p.idProcesso))
+                .forEach(p -> p.iniciar(agendador));
+    }
+
+    public void pararSimulacao() {
+        processosAtivos.values().forEach(Processo::parar);
+        if (agendador != null) {
+            agendador.parar();
+        }
+        if (threadSO != null) {
+            threadSO.interrupt();
+        }
+    }
+
+    public boolean isSimulacaoAtiva() {
+        return so != null && so.isAlive();
+    }
+
+    public void forcarDeadlock() {
+        if (isSimulacaoAtiva()) {
+            throw new IllegalStateException("Não é possível forçar deadlock com a simulação em andamento.");
+        }
+
+        reiniciarConfiguracao();
+        log("INFO: Configuração reiniciada para exemplo de deadlock.");
+
+        adicionarRecurso("Impressora", 1, 1);
+        adicionarRecurso("Scanner", 2, 1);
+
+        adicionarProcesso(1, 999, 999);
+        adicionarProcesso(2, 999, 999);
+
+        prepararAlocacao();
+        List<Integer> processosEmDeadlock;
+        long[] travas = travarTudo();
+        try {
+            int[] disponivel = estado.disponivel();
+            int slot1 = estado.slot(1);
+            int slot2 = estado.slot(2);
+
+            estado.alocacao(slot1).somar(0, 1);
+            disponivel[0]--;
+            registrarDetentor(0, 1);
+            estado.alocacao(slot2).somar(1, 1);
+            disponivel[1]--;
+            registrarDetentor(1, 2);
+
+            estado.requisicao(slot1).somar(1, 1);
+            registrarBloqueio(processosAtivos.get(1), 1);
+            estado.requisicao(slot2).somar(0, 1);
+            processosEmDeadlock = registrarBloqueio(processosAtivos.get(2), 0);
+
+            log("INFO: Estado de deadlock forçado manualmente.");
+            log("INFO: P1 alocou Impressora e espera por Scanner.");
+            log("INFO: P2 alocou Scanner e espera por Impressora.");
+            log("INFO: Clique em 'Iniciar Simulação' para que o SO detecte o deadlock.");
+        } finally {
+            destravarTudo(travas);
+        }
+        notificarEstadoAlterado();
+        reportarBloqueio(processosEmDeadlock);
+    }
+
+
+    private void reiniciarConfiguracao() {
+        // O diário descreve a configuração que está saindo; não continua na nova.
+        if (diario != null) {
+            try {
+                pararDiario();
+            } catch (IOException e) {
+                log("ERRO: Falha ao fechar o diário de eventos: " + e.getMessage());
+            }
+        }
+        tiposRecurso.clear();
+        processosAtivos.clear();
+        processoPorSlot = new Processo[16];
+        estado = new EstadoAlocacao();
+        intervencoes++;
+        travasRecurso = null;
+        detentorUnico = null;
+        filasEspera = null;
+        lotesAdiados.clear();
+        banqueiro = null;
+        metricas.bloqueadosAgora.reset();
+    }
+
+    // --- Instantâneos em Arquivo ---
+
+    // Grava recursos, processos e o estado de alocação atual no formato de ArquivoInstantaneo.
+    // A cópia é tirada como na detecção; a gravação corre fora das travas.
+    public void salvarEstado(Path arquivo) throws IOException {
+        InstantaneoAlocacao copia;
+        if (travasRecurso != null) {
+            copia = capturarEstadoPorRecurso(travasRecurso);
+        } else {
+            lockSistema.acquireUninterruptibly();
+            try {
+                copia = capturarParaArquivo();
+            } finally {
+                lockSistema.release();
+            }
+        }
+        gravarInstantaneo(arquivo, copia);
+    }
+
+    // Chamado com lockSistema ou todas as travas adquiridas.
+    private InstantaneoAlocacao capturarParaArquivo() {
+        if (estado.isInicializado()) {
+            return estado.capturar();
+        }
+        // Sem alocação preparada todos os recursos estão livres.
+        int[] totais = new int[tiposRecurso.size()];
+        for (int i = 0; i < totais.length; i++) {
+            totais[i] = tiposRecurso.get(i).quantidadeTotal;
+        }
+        InstantaneoAlocacao.Construtor construtor = new InstantaneoAlocacao.Construtor(totais);
+        processosAtivos.keySet().stream().sorted().forEach(construtor::novoProcesso);
+        return construtor.construir();
+    }
+
+    private void gravarInstantaneo(Path arquivo, InstantaneoAlocacao copia) throws IOException {
+        long[] temposSolicitacao = new long[copia.numProcessos()];
+        long[] temposUtilizacao = new long[copia.numProcessos()];
+        for (int i = 0; i < copia.numProcessos(); i++) {
+            Processo p = processosAtivos.get(copia.ids[i]);
+            if (p != null) {
+                temposSolicitacao[i] = p.getTempoSolicitacao();
+                temposUtilizacao[i] = p.getTempoUtilizacao();
+            }
+        }
+        ArquivoInstantaneo.gravar(arquivo, new ArrayList<>(tiposRecurso), temposSolicitacao, temposUtilizacao, copia);
+        log("INFO: Estado gravado em " + arquivo + " (" + copia.numProcessos() + " processos, "
+                + copia.recursosAlocados.length + " alocações, " + copia.recursosRequisitados.length + " requisições).");
+    }
+
+    // Substitui a configuração atual pela do arquivo, como forcarDeadlock. Processos com requisição
+    // pendente voltam bloqueados na fila do primeiro recurso requisitado.
+    public void carregarEstado(Path arquivo) throws IOException {
+        if (isSimulacaoAtiva()) {
+            throw new IllegalStateException("Não é possível carregar um estado com a simulação em andamento.");
+        }
+        ArquivoInstantaneo lido = ArquivoInstantaneo.ler(arquivo);
+        InstantaneoAlocacao copia = lido.estado;
+        validarInstantaneo(lido);
+
+        substituirEstado(lido.recursos, copia, lido.temposSolicitacao, lido.temposUtilizacao);
+        log("INFO: Estado carregado de " + arquivo + " (" + tiposRecurso.size() + " recursos, "
+                + copia.numProcessos() + " processos).");
+        notificarEstadoAlterado();
+        // No modo incremental só novos bloqueios disparam a verificação; o estado carregado é verificado já.
+        if (modoDeteccao == ModoDeteccao.INCREMENTAL) {
+            reportarBloqueio(REQUER_REDUCAO);
+        }
+    }
+
+    // Troca a configuração pelo estado de uma JVM observada (MonitorThreads), sem log nem verificação
+    // automática: quem espelha decide quando detectar. O estado vem já consistente do monitor.
+    void espelharEstado(List<Recurso> recursos, InstantaneoAlocacao copia) {
+        if (isSimulacaoAtiva()) {
+            throw new IllegalStateException("Não é possível espelhar threads com a simulação em andamento.");
+        }
+        long[] tempos = new long[copia.numProcessos()];
+        substituirEstado(recursos, copia, tempos, tempos);
+        notificarEstadoAlterado();
+    }
+
+    // Corpo comum de carregarEstado e espelharEstado.
+    private void substituirEstado(List<Recurso> recursos, InstantaneoAlocacao copia,
+                                  long[] temposSolicitacao, long[] temposUtilizacao) {
+        reiniciarConfiguracao();
+        tiposRecurso.addAll(recursos);
+        for (int i = 0; i < copia.numProcessos(); i++) {
+            Processo p = new Processo(copia.ids[i], temposSolicitacao[i], temposUtilizacao[i], this);
+            p.slot = estado.registrarProcesso(p.idProcesso);
+            associarSlot(p);
+            processosAtivos.put(p.idProcesso, p);
+        }
+        prepararAlocacao();
+        long[] travas = travarTudo();
+        try {
+            System.arraycopy(copia.disponivel, 0, estado.disponivel(), 0, copia.numRecursos());
+            for (int i = 0; i < copia.numProcessos(); i++) {
+                int slot = estado.slot(copia.ids[i]);
+                for (int k = copia.inicioAlocacao[i]; k < copia.inicioAlocacao[i + 1]; k++) {
+                    int r = copia.recursosAlocados[k];
+                    estado.alocacao(slot).somar(r, copia.quantidadesAlocadas[k]);
+                    registrarDetentor(r, copia.ids[i]);
+                }
+                for (int k = copia.inicioRequisicao[i]; k < copia.inicioRequisicao[i + 1]; k++) {
+                    estado.requisicao(slot).somar(copia.recursosRequisitados[k], copia.quantidadesRequisitadas[k]);
+                }
+                if (copia.inicioRequisicao[i] < copia.inicioRequisicao[i + 1]) {
+                    int r = copia.recursosRequisitados[copia.inicioRequisicao[i]];
+                    processosAtivos.get(copia.ids[i]).bloquear(r);
+                    filasEspera[r].adicionar(copia.ids[i]);
+                }
+            }
+            if (banqueiro != null) {
+                // As alocações carregadas não passaram pelo banqueiro: a próxima concessão recalcula a sequência.
+                banqueiro.invalidar();
+            }
+        } finally {
+            destravarTudo(travas);
+        }
+    }
+
+    // Os mesmos invariantes que adicionarRecurso e adicionarProcesso garantem, mais disponível = total - alocado.
+    private static void validarInstantaneo(ArquivoInstantaneo lido) throws IOException {
+        InstantaneoAlocacao copia = lido.estado;
+        int[] livres = new int[copia.numRecursos()];
+        Set<Integer> idsRecurso = new HashSet<>();
+        Set<String> nomes = new HashSet<>();
+        for (int i = 0; i < livres.length; i++) {
+            Recurso r = lido.recursos.get(i);
+            if (r.nome.isEmpty() || r.quantidadeTotal <= 0 || !idsRecurso.add(r.id) || !nomes.add(r.nome.toLowerCase())
+                    || (i > 0 && lido.recursos.get(i - 1).id > r.id)) {
+                throw new IOException("Instantâneo inválido: recurso '" + r.nome + "' (ID: " + r.id + ").");
+            }
+            livres[i] = r.quantidadeTotal;
+        }
+        if (livres.length == 0 && copia.numProcessos() > 0) {
+            throw new IOException("Instantâneo inválido: processos sem nenhum tipo de recurso.");
+        }
+        Set<Integer> idsProcesso = new HashSet<>();
+        for (int i = 0; i < copia.numProcessos(); i++) {
+            if (copia.ids[i] <= 0 || !idsProcesso.add(copia.ids[i])) {
+                throw new IOException("Instantâneo inválido: processo com ID " + copia.ids[i] + ".");
+            }
+        }
+        verificarLinhas(copia.inicioAlocacao, copia.recursosAlocados, "alocação");
+        verificarLinhas(copia.inicioRequisicao, copia.recursosRequisitados, "requisição");
+        for (int k = 0; k < copia.recursosAlocados.length; k++) {
+            livres[copia.recursosAlocados[k]] -= copia.quantidadesAlocadas[k];
+        }
+        for (int i = 0; i < livres.length; i++) {
+            if (livres[i] < 0 || copia.disponivel[i] < 0) {
+                throw new IOException("Instantâneo inválido: recurso '" + lido.recursos.get(i).nome
+                        + "' com mais unidades alocadas do que existem.");
+            }
+        }
+        for (int k = 0; k < copia.quantidadesRequisitadas.length; k++) {
+            if (copia.quantidadesRequisitadas[k] <= 0) {
+                throw new IOException("Instantâneo inválido: requisição com quantidade não positiva.");
+            }
+        }
+        for (int k = 0; k < copia.quantidadesAlocadas.length; k++) {
+            if (copia.quantidadesAlocadas[k] <= 0) {
+                throw new IOException("Instantâneo inválido: alocação com quantidade não positiva.");
+            }
+        }
+        if (!Arrays.equals(livres, copia.disponivel)) {
+            throw new IOException("Instantâneo inválido: disponíveis não batem com total menos alocado.");
+        }
+    }
+
+    // Cada linha tem de estar em ordem estritamente crescente de recurso, sem repetições: é o que
+    // LinhaEsparsa pressupõe ao somar e ao buscar.
+    private static void verificarLinhas(int[] inicio, int[] recursos, String tipo) throws IOException {
+        for (int i = 0; i + 1 < inicio.length; i++) {
+            for (int k = inicio[i] + 1; k < inicio[i + 1]; k++) {
+                if (recursos[k] <= recursos[k - 1]) {
+                    throw new IOException("Instantâneo inválido: linha de " + tipo + " com recurso "
+                            + recursos[k] + " repetido ou fora de ordem.");
+                }
+            }
+        }
+    }
+
+    // --- Diário de Eventos ---
+
+    public void iniciarDiario(Path arquivo) throws IOException {
+        iniciarDiario(arquivo, DiarioEventos.CAPACIDADE_PADRAO, DiarioEventos.INTERVALO_FSYNC_PADRAO_MS);
+    }
+
+    // Passa a registrar solicitações, liberações, bloqueios, despertares e remoções em 'arquivo'. O
+    // estado de partida é copiado no mesmo instante em que o diário entra, com todas as travas, e
+    // gravado em DiarioEventos.instantaneoInicial(arquivo).
+    public void iniciarDiario(Path arquivo, int capacidade, long intervaloFsyncMs) throws IOException {
+        if (diario != null) {
+            throw new IllegalStateException("O diário de eventos já está ativo.");
+        }
+        if (tiposRecurso.size() >= DiarioEventos.SEM_RECURSO) {
+            throw new IllegalStateException("Tipos de recurso demais para o formato do diário.");
+        }
+        if (intervaloFsyncMs <= 0) {
+            throw new IllegalArgumentException("O intervalo de fsync deve ser positivo.");
+        }
+        DiarioEventos novo = new DiarioEventos(arquivo, capacidade, intervaloFsyncMs);
+        InstantaneoAlocacao copia;
+        long[] travas = travarTudo();
+        try {
+            copia = capturarParaArquivo();
+            diario = novo;
+        } finally {
+            destravarTudo(travas);
+        }
+        gravarInstantaneo(DiarioEventos.instantaneoInicial(arquivo), copia);
+        log("INFO: Diário de eventos iniciado em " + arquivo + ".");
+    }
+
+    // Grava o que ficou no anel, faz o último fsync e fecha o arquivo.
+    public void pararDiario() throws IOException {
+        DiarioEventos d;
+        long[] travas = travarTudo();
+        try {
+            d = diario;
+            diario = null;
+        } finally {
+            destravarTudo(travas);
+        }
+        if (d == null) {
+            return;
+        }
+        d.fechar();
+        log("INFO: Diário de eventos encerrado (" + d.getEventos() + " eventos, " + d.getFsyncs() + " fsyncs, "
+                + d.getEsperasAnelCheio() + " esperas com o anel cheio).");
+    }
+
+    public boolean isDiarioAtivo() {
+        return diario != null;
+    }
+
+    DiarioEventos getDiario() {
+        return diario;
+    }
+
+    // Chamado com a trava do recurso (ou todas) adquirida, para a ordem no diário seguir a das operações.
+    private void registrarNoDiario(int tipo, int idProcesso, int indiceRecurso) {
+        DiarioEventos d = diario;
+        if (d != null) {
+            d.registrar(tipo, idProcesso, indiceRecurso, agora());
+        }
+    }
+
+    // Relógio do agendador (virtual ou monotônico); fora da simulação, o monotônico.
+    private long agora() {
+        AgendadorProcessos a = agendador;
+        return a != null ? a.agora() : System.nanoTime();
+    }
+
+    // Preempção de um processo escolhido por fora, como a reprodução de um diário faz com as vítimas gravadas.
+    void preemptarProcesso(int idProcesso) {
+        long[] travas = travarTudo();
+        try {
+            Processo p = processosAtivos.get(idProcesso);
+            if (p != null) {
+                devolverRecursos(idProcesso, false);
+                p.preemptar();
+            }
+        } finally {
+            destravarTudo(travas);
+        }
+        notificarEstadoAlterado();
+    }
+
+    // --- Travas ---
+    // SEMAFORO_GLOBAL serializa tudo em lockSistema. POR_RECURSO usa a trava do recurso envolvido,
+    // e só as mudanças estruturais (criar/remover processos) tomam todas as travas, sempre em
+    // ordem crescente de índice para não haver espera circular entre elas.
+
+    private long travarRecurso(int indiceRecurso) throws InterruptedException {
+        StampedLock[] travas = travasRecurso;
+        long inicio = System.nanoTime();
+        long carimbo;
+        if (travas == null) {
+            lockSistema.acquire();
+            versaoSistema.incrementAndGet();
+            carimbo = 0L;
+        } else {
+            carimbo = travas[indiceRecurso].writeLockInterruptibly();
+        }
+        metricas.esperaTrava.registrar(System.nanoTime() - inicio);
+        return carimbo;
+    }
+
+    private void destravarRecurso(int indiceRecurso, long carimbo) {
+        StampedLock[] travas = travasRecurso;
+        if (travas == null) {
+            versaoSistema.incrementAndGet();
+            lockSistema.release();
+        } else {
+            travas[indiceRecurso].unlockWrite(carimbo);
+        }
+    }
+
+    private long[] travarTudo() {
+        StampedLock[] travas = travasRecurso;
+        if (travas == null) {
+            lockSistema.acquireUninterruptibly();
+            versaoSistema.incrementAndGet();
+            return null;
+        }
+        long[] carimbos = new long[travas.length];
+        for (int i = 0; i < travas.length; i++) {
+            carimbos[i] = travas[i].writeLock();
+        }
+        return carimbos;
+    }
+
+    private void destravarTudo(long[] carimbos) {
+        if (carimbos == null) {
+            versaoSistema.incrementAndGet();
+            lockSistema.release();
+            return;
+        }
+        StampedLock[] travas = travasRecurso;
+        for (int i = travas.length - 1; i >= 0; i--) {
+            travas[i].unlockWrite(carimbos[i]);
+        }
+    }
+
+    // Trava de uma vez os recursos com quantidade positiva no vetor, em ordem crescente de índice
+    // como travarTudo. Retorna os carimbos por índice (0 = não travado), ou null no semáforo global.
+    private long[] travarRecursos(int[] quantidades) throws InterruptedException {
+        StampedLock[] travas = travasRecurso;
+        long inicio = System.nanoTime();
+        long[] carimbos = null;
+        if (travas == null) {
+            lockSistema.acquire();
+            versaoSistema.incrementAndGet();
+        } else {
+            carimbos = new long[quantidades.length];
+            try {
+                for (int i = 0; i < quantidades.length; i++) {
+                    if (quantidades[i] > 0) {
+                        carimbos[i] = travas[i].writeLockInterruptibly();
+                    }
+                }
+            } catch (InterruptedException e) {
+                destravarRecursos(carimbos);
+                throw e;
+            }
+        }
+        metricas.esperaTrava.registrar(System.nanoTime() - inicio);
+        return carimbos;
+    }
+
+    private void destravarRecursos(long[] carimbos) {
+        if (carimbos == null) {
+            versaoSistema.incrementAndGet();
+            lockSistema.release();
+            return;
+        }
+        StampedLock[] travas = travasRecurso;
+        for (int i = carimbos.length - 1; i >= 0; i--) {
+            if (carimbos[i] != 0L) {
+                travas[i].unlockWrite(carimbos[i]);
+            }
+        }
+    }
+
+    // Cópia consistente do estado no modo POR_RECURSO sem parar o tráfego: lê todas as travas de
+    // forma otimista e só valida no fim. Se alguma escrita ocorreu durante a cópia, tenta de novo
+    // e, após algumas falhas, toma as travas de leitura (que só bloqueiam escritas durante a cópia).
+    private InstantaneoAlocacao capturarEstadoPorRecurso(StampedLock[] travas) {
+        long[] carimbos = new long[travas.length];
+        for (int tentativa = 0; tentativa < TENTATIVAS_OTIMISTAS; tentativa++) {
+            boolean livre = true;
+            for (int i = 0; i < travas.length && livre; i++) {
+                carimbos[i] = travas[i].tryOptimisticRead();
+                livre = carimbos[i] != 0L;
+            }
+            if (!livre) {
+                Thread.onSpinWait();
+                continue;
+            }
+            try {
+                InstantaneoAlocacao copia = estado.capturar();
+                boolean valido = true;
+                for (int i = 0; i < travas.length && valido; i++) {
+                    valido = travas[i].validate(carimbos[i]);
+                }
+                if (valido) {
+                    return copia;
+                }
+            } catch (RuntimeException e) {
+                // Leitura inconsistente por causa de uma escrita concorrente; a validação falharia.
+            }
+        }
+        for (int i = 0; i < travas.length; i++) {
+            carimbos[i] = travas[i].readLock();
+        }
+        try {
+            return estado.capturar();
+        } finally {
+            for (int i = travas.length - 1; i >= 0; i--) {
+                travas[i].unlockRead(carimbos[i]);
+            }
+        }
+    }
+
+    // O mesmo com o semáforo global, usando versaoSistema como carimbo otimista. Após algumas falhas
+    // copia com lockSistema, que fica retido só durante a cópia e não durante a redução.
+    private InstantaneoAlocacao capturarEstadoGlobal() {
+        for (int tentativa = 0; tentativa < TENTATIVAS_OTIMISTAS; tentativa++) {
+            long versao = versaoSistema.get();
+            if ((versao & 1) != 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+            try {
+                InstantaneoAlocacao copia = estado.capturar();
+                // Como em StampedLock.validate: as leituras da cópia não passam da releitura da versão.
+                VarHandle.acquireFence();
+                if (versaoSistema.get() == versao) {
+                    return copia;
+                }
+            } catch (RuntimeException e) {
+                // Leitura inconsistente por causa de uma escrita concorrente; a validação falharia.
+            }
+        }
+        lockSistema.acquireUninterruptibly();
+        try {
+            return estado.capturar();
+        } finally {
+            lockSistema.release();
+        }
+    }
+
+    // --- Métodos de Sincronização e Comunicação ---
+
+    // Retorna true se o recurso foi alocado e false se o processo ficou bloqueado.
+    public boolean solicitarRecurso(int idProcesso, int indiceRecurso) {
+        validarIndiceRecurso(indiceRecurso);
+        boolean alocado = false;
+        List<Integer> processosEmDeadlock = null;
+        try {
+            long carimbo = travarRecurso(indiceRecurso);
+            try {
+                int slot = estado.slot(idProcesso);
+                if (slot < 0) {
+                    throw new IllegalArgumentException("Processo com ID " + idProcesso + " não encontrado.");
+                }
+                if (logAtivo()) {
+                    log("PROCESSO " + idProcesso + " está a solicitar " + getNomeRecurso(indiceRecurso));
+                }
+                int[] disponivel = estado.disponivel();
+                AvaliadorBanqueiro avaliador = banqueiro;
+                if (avaliador != null && estado.alocacao(slot).get(indiceRecurso) + estado.requisicao(slot).get(indiceRecurso)
+                        >= avaliador.maximo(slot, indiceRecurso)) {
+                    throw new IllegalStateException("Processo " + idProcesso + " excederia a necessidade máxima declarada de "
+                            + getNomeRecurso(indiceRecurso) + ".");
+                }
+                if (disponivel[indiceRecurso] > 0 && (avaliador == null || avaliador.concederSeSeguro(slot, indiceRecurso))) {
+                    disponivel[indiceRecurso]--;
+                    estado.alocacao(slot).somar(indiceRecurso, 1);
+                    registrarDetentor(indiceRecurso, idProcesso);
+                    alocado = true;
+                    registrarNoDiario(DiarioEventos.SOLICITACAO, idProcesso, indiceRecurso);
+                    if (logAtivo()) {
+                        log("PROCESSO " + idProcesso + " alocou o recurso " + getNomeRecurso(indiceRecurso));
+                    }
+                } else {
+                    estado.requisicao(slot).somar(indiceRecurso, 1);
+                    registrarNoDiario(DiarioEventos.BLOQUEIO, idProcesso, indiceRecurso);
+                    Processo p = processoNoSlot(slot);
+                    if (p != null) {
+                        if (logAtivo()) {
+                            log("PROCESSO " + idProcesso + " bloqueado esperando por " + getNomeRecurso(indiceRecurso)
+                                    + (disponivel[indiceRecurso] > 0 ? " (concessão levaria a estado inseguro)" : ""));
+                        }
+                        processosEmDeadlock = registrarBloqueio(p, indiceRecurso);
+                    }
+                }
+                notificarProcessoAlterado(idProcesso);
+                if (alocado) {
+                    notificarRecursoAlterado(indiceRecurso);
+                }
+            } finally {
+                destravarRecurso(indiceRecurso, carimbo);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        metricas.operacoes.increment();
+        reportarBloqueio(processosEmDeadlock);
+        return alocado;
+    }
+
+    public void liberarRecurso(int idProcesso, int indiceRecurso) {
+        validarIndiceRecurso(indiceRecurso);
+        try {
+            long carimbo = travarRecurso(indiceRecurso);
+            try {
+                int slot = estado.slot(idProcesso);
+                if (slot >= 0 && estado.alocacao(slot).get(indiceRecurso) > 0) {
+                    estado.alocacao(slot).somar(indiceRecurso, -1);
+                    estado.disponivel()[indiceRecurso]++;
+                    detentorUnico.compareAndSet(indiceRecurso, idProcesso, 0);
+                    registrarNoDiario(DiarioEventos.LIBERACAO, idProcesso, indiceRecurso);
+                    if (logAtivo()) {
+                        log("PROCESSO " + idProcesso + " liberou o recurso " + getNomeRecurso(indiceRecurso));
+                    }
+                    acordarProcessos(indiceRecurso);
+                    acordarRecusadosPeloBanqueiro();
+                    notificarProcessoAlterado(idProcesso);
+                    notificarRecursoAlterado(indiceRecurso);
+                    metricas.operacoes.increment();
+                }
+            } finally {
+                destravarRecurso(indiceRecurso, carimbo);
+            }
+            revisarLotesAdiados();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Solicitação em lote: quantidades[i] unidades do recurso i, com uma só passagem pelas travas.
+    // Tudo ou nada: o lote inteiro é concedido se houver unidades livres de todos os recursos; senão
+    // nada é concedido, o vetor fica na requisição e o processo bloqueia na fila do primeiro recurso
+    // que falta. Quando chega à frente dessa fila numa liberação, a requisição inteira é revista
+    // (concederLote) e o processo ou acorda com tudo ou passa à fila do recurso que ainda falta.
+    // Retorna true se tudo foi concedido na hora.
+    //
+    // Este não é o contrato de uma sequência de solicitarRecurso, nem o da primeira versão do lote,
+    // que concedia o que houvesse e bloqueava pelo restante. Retendo a parte concedida, dois lotes
+    // que se cruzam entram em deadlock sem que nenhum pedido unitário tenha sido feito fora de ordem,
+    // e a fila de um recurso fica parada atrás de um lote que ainda não pode ser atendido. Sem reter
+    // nada, a requisição pendente é sempre o lote inteiro e quem pede menos passa à frente dele; em
+    // troca, sob muitos pedidos menores o lote pode esperar mais do que esperaria retendo unidades.
+    public boolean solicitarRecursos(int idProcesso, int[] quantidades) {
+        validarQuantidades(quantidades);
+        boolean alocado = false;
+        List<Integer> processosEmDeadlock = null;
+        try {
+            long[] carimbos = travarRecursos(quantidades);
+            try {
+                int slot = estado.slot(idProcesso);
+                if (slot < 0) {
+                    throw new IllegalArgumentException("Processo com ID " + idProcesso + " não encontrado.");
+                }
+                if (logAtivo()) {
+                    log("PROCESSO " + idProcesso + " está a solicitar em lote " + descreverQuantidades(quantidades));
+                }
+                LinhaEsparsa alocacao = estado.alocacao(slot);
+                LinhaEsparsa requisicao = estado.requisicao(slot);
+                AvaliadorBanqueiro avaliador = banqueiro;
+                if (avaliador != null) {
+                    for (int i = 0; i < quantidades.length; i++) {
+                        if (quantidades[i] > 0 && alocacao.get(i) + requisicao.get(i) + quantidades[i] > avaliador.maximo(slot, i)) {
+                            throw new IllegalStateException("Processo " + idProcesso + " excederia a necessidade máxima declarada de "
+                                    + getNomeRecurso(i) + ".");
+                        }
+                    }
+                }
+                int pendentes = 0;
+                for (int i = 0; i < quantidades.length; i++) {
+                    if (quantidades[i] > 0) {
+                        requisicao.somar(i, quantidades[i]);
+                        pendentes += quantidades[i];
+                    }
+                }
+                int falta = concederLote(slot, idProcesso, DiarioEventos.SOLICITACAO, true);
+                alocado = falta < 0;
+                if (alocado) {
+                    if (logAtivo()) {
+                        log("PROCESSO " + idProcesso + " alocou o lote " + descreverQuantidades(quantidades));
+                    }
+                } else {
+                    for (int i = 0; i < quantidades.length; i++) {
+                        // A última unidade pendente fecha o lote no diário.
+                        for (int k = 0; k < quantidades[i]; k++) {
+                            registrarNoDiario(--pendentes == 0 ? DiarioEventos.BLOQUEIO : DiarioEventos.LOTE, idProcesso, i);
+                        }
+                    }
+                    Processo p = processoNoSlot(slot);
+                    if (p != null) {
+                        if (logAtivo()) {
+                            log("PROCESSO " + idProcesso + " bloqueado esperando pelo lote " + descreverQuantidades(quantidades)
+                                    + " (falta " + getNomeRecurso(falta) + ")");
+                        }
+                        processosEmDeadlock = registrarBloqueioEmLote(p, falta);
+                    }
+                }
+                notificarProcessoAlterado(idProcesso);
+            } finally {
+                destravarRecursos(carimbos);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        metricas.operacoes.increment();
+        reportarBloqueio(processosEmDeadlock);
+        return alocado;
+    }
+
+    // Liberação em lote: devolve até quantidades[i] unidades de cada recurso (o que o processo
+    // detém), com uma só passagem pelas travas. A fila de cada recurso é atendida logo após a sua
+    // devolução, como numa sequência de liberarRecurso.
+    public void liberarRecursos(int idProcesso, int[] quantidades) {
+        validarQuantidades(quantidades);
+        try {
+            long[] carimbos = travarRecursos(quantidades);
+            try {
+                int slot = estado.slot(idProcesso);
+                if (slot < 0) {
+                    return;
+                }
+                LinhaEsparsa alocacao = estado.alocacao(slot);
+                int[] disponivel = estado.disponivel();
+                boolean liberou = false;
+                for (int i = 0; i < quantidades.length; i++) {
+                    int q = Math.min(quantidades[i], alocacao.get(i));
+                    if (q == 0) {
+                        continue;
+                    }
+                    alocacao.somar(i, -q);
+                    disponivel[i] += q;
+                    detentorUnico.compareAndSet(i, idProcesso, 0);
+                    for (int k = 0; k < q; k++) {
+                        registrarNoDiario(DiarioEventos.LIBERACAO, idProcesso, i);
+                    }
+                    acordarProcessos(i, true, carimbos);
+                    notificarRecursoAlterado(i);
+                    liberou = true;
+                }
+                if (liberou) {
+                    if (logAtivo()) {
+                        log("PROCESSO " + idProcesso + " liberou o lote " + descreverQuantidades(quantidades));
+                    }
+                    acordarRecusadosPeloBanqueiro();
+                    notificarProcessoAlterado(idProcesso);
+                    metricas.operacoes.increment();
+                }
+            } finally {
+                destravarRecursos(carimbos);
+            }
+            revisarLotesAdiados();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void validarIndiceRecurso(int indiceRecurso) {
+        if (indiceRecurso < 0 || indiceRecurso >= tiposRecurso.size()) {
+            throw new IllegalArgumentException("Recurso de índice " + indiceRecurso + " não encontrado.");
+        }
+    }
+
+    // Só os recursos de instância única têm detentor: a verificação incremental não passa pelos outros.
+    private void registrarDetentor(int indiceRecurso, int idProcesso) {
+        if (tiposRecurso.get(indiceRecurso).quantidadeTotal == 1) {
+            detentorUnico.set(indiceRecurso, idProcesso);
+        }
+    }
+
+    // Um valor por tipo de recurso, sem negativos e sem passar do total de cada tipo (um lote
+    // maior que o total nunca seria atendido).
+    private void validarQuantidades(int[] quantidades) {
+        if (quantidades.length != tiposRecurso.size()) {
+            throw new IllegalArgumentException("O lote deve ter uma quantidade para cada um dos "
+                    + tiposRecurso.size() + " tipos de recurso.");
+        }
+        for (int i = 0; i < quantidades.length; i++) {
+            if (quantidades[i] < 0 || quantidades[i] > tiposRecurso.get(i).quantidadeTotal) {
+                throw new IllegalArgumentException("Quantidade inválida de " + getNomeRecurso(i) + " no lote: "
+                        + quantidades[i] + ".");
+            }
+        }
+    }
+
+    private String descreverQuantidades(int[] quantidades) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < quantidades.length; i++) {
+            if (quantidades[i] > 0) {
+                sb.append(getNomeRecurso(i)).append(" (").append(quantidades[i]).append(") ");
+            }
+        }
+        return sb.toString().trim();
+    }
+
+    // Devolve tudo o que o processo detém e remove o seu slot. Toma todas as travas porque
+    // altera linhas de vários recursos e a estrutura do estado de uma só vez.
+    private void liberarRecursosDeProcesso(Processo p) {
+        long[] travas = travarTudo();
+        try {
+            descontarBloqueado(p);
+            devolverRecursos(p.idProcesso, true);
+        } finally {
+            destravarTudo(travas);
+        }
+    }
+
+    // Quem sai do motor ainda BLOQUEADO não passa por acordar(). Chamado com todas as travas.
+    private void descontarBloqueado(Processo p) {
+        if (p.getStatus() == StatusProcesso.BLOQUEADO) {
+            metricas.bloqueadosAgora.decrement();
+        }
+    }
+
+    // Devolve as alocações do processo, descarta a requisição pendente e acorda quem espera pelos
+    // recursos devolvidos; com 'removerSlot' o processo também sai do estado. Chamado com todas as travas.
+    private void devolverRecursos(int idProcesso, boolean removerSlot) {
+        int slot = estado.slot(idProcesso);
+        if (slot < 0) {
+            return;
+        }
+        registrarNoDiario(removerSlot ? DiarioEventos.REMOCAO : DiarioEventos.PREEMPCAO, idProcesso, -1);
+        intervencoes++;
+        if (estado.isInicializado()) {
+            // Copia a linha antes de acordar outros processos, que alteram o estado.
+            LinhaEsparsa linha = estado.alocacao(slot);
+            int[] recursos;
+            int[] quantidades;
+            synchronized (linha) {
+                recursos = new int[linha.tamanho()];
+                quantidades = new int[linha.tamanho()];
+                for (int k = 0; k < recursos.length; k++) {
+                    recursos[k] = linha.recursoNa(k);
+                    quantidades[k] = linha.quantidadeNa(k);
+                }
+            }
+            linha.limpar();
+            estado.requisicao(slot).limpar();
+            // Sem isto a entrada antiga continuaria válida quando o processo (ou outro com o mesmo ID)
+            // voltasse a bloquear pelo recurso, e ele passaria na frente de quem chegou depois dela.
+            for (FilaInt fila : filasEspera) {
+                fila.removerTodos(idProcesso);
+            }
+            if (banqueiro != null && removerSlot) {
+                banqueiro.remover(slot);
+            }
+            int[] disponivel = estado.disponivel();
+            for (int k = 0; k < recursos.length; k++) {
+                int i = recursos[k];
+                disponivel[i] += quantidades[k];
+                detentorUnico.compareAndSet(i, idProcesso, 0);
+                acordarProcessos(i, true, TODAS_TRAVADAS);
+            }
+            acordarRecusadosPeloBanqueiro();
+        }
+        if (removerSlot) {
+            estado.removerProcesso(idProcesso);
+        }
+    }
+
+    // Entrega as unidades livres aos primeiros da fila de espera do recurso, em ordem de chegada.
+    // Preempções e remoções já tiram o processo das filas; entradas de quem não está mais esperando
+    // pelo recurso são ignoradas ao sair da fila. Um lote à frente da fila tem a requisição inteira
+    // revista por atenderLoteNaFila; se ainda faltam unidades deste recurso, volta para o fim da
+    // fila e não segura quem vem atrás pedindo menos. Cada entrada é visitada no máximo uma vez.
+    // Chamado com a trava do recurso adquirida; 'detidas' são os carimbos das demais travas que quem
+    // chama detém (null se nenhuma, TODAS_TRAVADAS se todas).
+    private void acordarProcessos(int indiceRecurso) {
+        acordarProcessos(indiceRecurso, true, null);
+    }
+
+    private void acordarProcessos(int indiceRecurso, boolean permitirRecalculo, long[] detidas) {
+        int[] disponivel = estado.disponivel();
+        FilaInt fila = filasEspera[indiceRecurso];
+        for (int visitas = fila.tamanho(); disponivel[indiceRecurso] > 0 && visitas > 0; visitas--) {
+            int id = fila.primeiro();
+            int s = estado.slot(id);
+            Processo p = processoNoSlot(s);
+            if (p == null || s < 0 || p.getStatus() != StatusProcesso.BLOQUEADO
+                    || estado.requisicao(s).get(indiceRecurso) == 0) {
+                fila.remover();
+                continue;
+            }
+            if (p.isEmLote()) {
+                fila.remover();
+                if (atenderLoteNaFila(p, s, indiceRecurso, permitirRecalculo, detidas) == indiceRecurso) {
+                    fila.adicionar(id);
+                }
+                continue;
+            }
+            // No modo banqueiro o primeiro da fila continua esperando se a concessão for insegura.
+            if (banqueiro != null && !banqueiro.concederSeSeguro(s, indiceRecurso, permitirRecalculo)) {
+                return;
+            }
+            disponivel[indiceRecurso]--;
+            estado.alocacao(s).somar(indiceRecurso, 1);
+            estado.requisicao(s).somar(indiceRecurso, -1);
+            registrarDetentor(indiceRecurso, p.idProcesso);
+            registrarNoDiario(DiarioEventos.ACORDAR, p.idProcesso, indiceRecurso);
+            fila.remover();
+            p.acordar();
+            notificarProcessoAlterado(p.idProcesso);
+            if (logAtivo()) {
+                log("PROCESSO " + p.idProcesso + " foi acordado e alocou " + getNomeRecurso(indiceRecurso));
+            }
+        }
+    }
+
+    // Revê a requisição inteira do lote à frente da fila de 'indiceRecurso': acorda o processo com
+    // tudo ou o passa à fila do primeiro recurso que ainda falta. No modo POR_RECURSO as travas dos
+    // outros recursos da requisição que quem chama não detém são tentadas sem esperar (esperar fora
+    // de ordem arriscaria um deadlock entre travas); se alguma estiver ocupada, o lote é adiado para
+    // revisarLotesAdiados. Retorna o recurso em cuja fila o processo ficou, ou -1.
+    private int atenderLoteNaFila(Processo p, int s, int indiceRecurso, boolean permitirRecalculo,
+                                  long[] detidas) {
+        StampedLock[] travas = detidas == TODAS_TRAVADAS ? null : travasRecurso;
+        long[] carimbos = null;
+        if (travas != null) {
+            carimbos = tentarTravarRequisicao(travas, estado.requisicao(s), indiceRecurso, detidas);
+            if (carimbos == null) {
+                lotesAdiados.add(p);
+                if (logAtivo()) {
+                    log("PROCESSO " + p.idProcesso + " teve a revisão do lote adiada (trava de outro recurso ocupada)");
+                }
+                return -1;
+            }
+        }
+        try {
+            return atenderLote(p, s, indiceRecurso, permitirRecalculo);
+        } finally {
+            if (carimbos != null) {
+                destravarRecursos(carimbos);
+            }
+        }
+    }
+
+    // Corpo comum de atenderLoteNaFila e revisarLotesAdiados, com as travas de toda a requisição.
+    // 'filaAtual' é a fila em que o processo já está (-1 se em nenhuma).
+    private int atenderLote(Processo p, int s, int filaAtual, boolean permitirRecalculo) {
+        int falta = concederLote(s, p.idProcesso, DiarioEventos.ACORDAR, permitirRecalculo);
+        if (falta < 0) {
+            p.acordar();
+            if (logAtivo()) {
+                log("PROCESSO " + p.idProcesso + " foi acordado e alocou o lote inteiro");
+            }
+        } else if (falta != filaAtual) {
+            filasEspera[falta].adicionar(p.idProcesso);
+            p.esperarPor(falta);
+            if (logAtivo()) {
+                log("PROCESSO " + p.idProcesso + " continua esperando pelo lote (falta " + getNomeRecurso(falta) + ")");
+            }
+        }
+        notificarProcessoAlterado(p.idProcesso);
+        return falta;
+    }
+
+    // Tudo ou nada sobre a requisição pendente do slot: se cada recurso tem unidades livres
+    // suficientes (e, no modo banqueiro, cada unidade é segura), passa a requisição inteira para a
+    // alocação, registrando 'evento' no diário por unidade, e retorna -1. Senão não altera nada e
+    // retorna o primeiro recurso que falta. Chamado com as travas de todos os recursos da requisição.
+    private int concederLote(int s, int idProcesso, int evento, boolean permitirRecalculo) {
+        LinhaEsparsa requisicao = estado.requisicao(s);
+        LinhaEsparsa alocacao = estado.alocacao(s);
+        int[] disponivel = estado.disponivel();
+        int[] recursos;
+        int[] quantidades;
+        synchronized (requisicao) {
+            recursos = new int[requisicao.tamanho()];
+            quantidades = new int[recursos.length];
+            for (int k = 0; k < recursos.length; k++) {
+                recursos[k] = requisicao.recursoNa(k);
+                quantidades[k] = requisicao.quantidadeNa(k);
+            }
+        }
+        for (int k = 0; k < recursos.length; k++) {
+            if (disponivel[recursos[k]] < quantidades[k]) {
+                return recursos[k];
+            }
+        }
+        AvaliadorBanqueiro avaliador = banqueiro;
+        for (int k = 0; k < recursos.length; k++) {
+            int i = recursos[k];
+            if (avaliador == null) {
+                disponivel[i] -= quantidades[k];
+                alocacao.somar(i, quantidades[k]);
+                continue;
+            }
+            // Cada unidade passa pela verificação no estado deixado pela anterior. Numa recusa as
+            // unidades já passadas voltam; devolver nunca torna insegura a sequência do avaliador.
+            for (int u = 0; u < quantidades[k]; u++) {
+                if (!avaliador.concederSeSeguro(s, i, permitirRecalculo)) {
+                    for (int j = 0; j <= k; j++) {
+                        int q = j < k ? quantidades[j] : u;
+                        if (q > 0) {
+                            disponivel[recursos[j]] += q;
+                            alocacao.somar(recursos[j], -q);
+                        }
+                    }
+                    return i;
+                }
+                disponivel[i]--;
+                alocacao.somar(i, 1);
+            }
+        }
+        requisicao.limpar();
+        for (int k = 0; k < recursos.length; k++) {
+            registrarDetentor(recursos[k], idProcesso);
+            for (int u = 0; u < quantidades[k]; u++) {
+                registrarNoDiario(evento, idProcesso, recursos[k]);
+            }
+            notificarRecursoAlterado(recursos[k]);
+        }
+        return -1;
+    }
+
+    // Trava sem esperar os recursos da requisição além de 'detido' e dos já em 'detidas', cujas
+    // travas quem chama tem. Retorna os carimbos por índice (0 = não travado) ou null, sem nada
+    // travado, se alguma falhou.
+    private long[] tentarTravarRequisicao(StampedLock[] travas, LinhaEsparsa requisicao, int detido, long[] detidas) {
+        long[] carimbos = new long[travas.length];
+        synchronized (requisicao) {
+            for (int k = 0; k < requisicao.tamanho(); k++) {
+                int i = requisicao.recursoNa(k);
+                if (i == detido || detidas != null && detidas[i] != 0L) {
+                    continue;
+                }
+                if ((carimbos[i] = travas[i].tryWriteLock()) == 0L) {
+                    destravarRecursos(carimbos);
+                    return null;
+                }
+            }
+        }
+        return carimbos;
+    }
+
+    // Revê os lotes adiados por atenderLoteNaFila, já sem travas, tomando as travas da requisição
+    // inteira na ordem de travarRecursos. Quem saiu do motor, foi preemptado ou acordou entretanto
+    // é descartado.
+    private void revisarLotesAdiados() throws InterruptedException {
+        Processo p;
+        while ((p = lotesAdiados.poll()) != null) {
+            int s = estado.slot(p.idProcesso);
+            if (s < 0 || processoNoSlot(s) != p || !p.isEmLote()) {
+                continue;
+            }
+            int[] quantidades = new int[tiposRecurso.size()];
+            LinhaEsparsa requisicao = estado.requisicao(s);
+            synchronized (requisicao) {
+                for (int k = 0; k < requisicao.tamanho(); k++) {
+                    quantidades[requisicao.recursoNa(k)] = requisicao.quantidadeNa(k);
+                }
+            }
+            long[] carimbos;
+            try {
+                carimbos = travarRecursos(quantidades);
+            } catch (InterruptedException e) {
+                lotesAdiados.add(p);
+                throw e;
+            }
+            try {
+                // Adiado, o lote não está em fila nenhuma e só a preempção ou a remoção (com todas as
+                // travas) mexem nele. Se a requisição mudou, ou se o processo já está na fila de um
+                // destes recursos, foi preemptado e voltou a bloquear: o novo bloqueio cuida dele.
+                if (estado.slot(p.idProcesso) == s && processoNoSlot(s) == p && p.isEmLote()
+                        && p.getStatus() == StatusProcesso.BLOQUEADO && mesmaRequisicao(requisicao, quantidades)
+                        && !estaNasFilas(p.idProcesso, quantidades)) {
+                    atenderLote(p, s, -1, true);
+                }
+            } finally {
+                destravarRecursos(carimbos);
+            }
+        }
+    }
+
+    private boolean estaNasFilas(int idProcesso, int[] quantidades) {
+        for (int i = 0; i < quantidades.length; i++) {
+            if (quantidades[i] > 0 && filasEspera[i].contem(idProcesso)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean mesmaRequisicao(LinhaEsparsa requisicao, int[] quantidades) {
+        synchronized (requisicao) {
+            int total = 0;
+            for (int k = 0; k < requisicao.tamanho(); k++) {
+                if (quantidades[requisicao.recursoNa(k)] != requisicao.quantidadeNa(k)) {
+                    return false;
+                }
+                total++;
+            }
+            for (int q : quantidades) {
+                total -= q > 0 ? 1 : 0;
+            }
+            return total == 0;
+        }
+    }
+
+    // No modo banqueiro uma liberação pode tornar segura a concessão de outro tipo de recurso, então
+    // revisita as filas de todos os recursos com unidades livres. Para o custo por liberação não
+    // crescer com o número de filas, só o primeiro recálculo completo da varredura é permitido; as
+    // demais filas usam as verificações baratas, e o ponto de partida gira entre as liberações.
+    // Chamado com lockSistema adquirido.
+    private void acordarRecusadosPeloBanqueiro() {
+        AvaliadorBanqueiro avaliador = banqueiro;
+        if (avaliador == null) {
+            return;
+        }
+        int[] disponivel = estado.disponivel();
+        int numFilas = filasEspera.length;
+        long completasAntes = avaliador.verificacoesCompletas;
+        inicioVarreduraBanqueiro = (inicioVarreduraBanqueiro + 1) % numFilas;
+        for (int k = 0; k < numFilas; k++) {
+            int r = (inicioVarreduraBanqueiro + k) % numFilas;
+            if (disponivel[r] > 0 && !filasEspera[r].isVazia()) {
+                acordarProcessos(r, avaliador.verificacoesCompletas == completasAntes, TODAS_TRAVADAS);
+            }
+        }
+    }
+
+    // Redução completa sobre todas as linhas de alocação/requisição. Com o semáforo global a
+    // redução inteira ocorre dentro de lockSistema; no modo POR_RECURSO só a cópia do estado
+    // é sincronizada e a redução corre fora das travas. No modo INSTANTANEO a redução sempre
+    // corre fora das travas e o resultado é conferido no estado vivo antes de ser reportado.
+    public List<Integer> detectarDeadlock() {
+        return detectarDeadlock(detector);
+    }
+
+    // Detecção avulsa com outro algoritmo, sem trocar o configurado.
+    public List<Integer> detectarDeadlock(AlgoritmoDeteccao algoritmo) {
+        return detectarDeadlock(criarDetector(algoritmo));
+    }
+
+    private List<Integer> detectarDeadlock(DetectorDeadlock detector) {
+        int[] processosEmDeadlock;
+        long inicio = System.nanoTime();
+        if (!estado.isInicializado()) {
+            processosEmDeadlock = new int[0];
+        } else if (modoIsolamento == ModoIsolamento.INSTANTANEO) {
+            processosEmDeadlock = detectarSobreInstantaneo(detector);
+        } else if (travasRecurso != null) {
+            InstantaneoAlocacao copia = capturarEstadoPorRecurso(travasRecurso);
+            metricas.travaDeteccao.registrar(System.nanoTime() - inicio);
+            processosEmDeadlock = detector.detectar(copia);
+        } else {
+            try {
+                lockSistema.acquire();
+                long travado = System.nanoTime();
+                try {
+                    processosEmDeadlock = detector.detectar(estado.capturar());
+                } finally {
+                    lockSistema.release();
+                    metricas.travaDeteccao.registrar(System.nanoTime() - travado);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return new ArrayList<>();
+            }
+        }
+        metricas.deteccao.registrar(System.nanoTime() - inicio);
+        metricas.deteccoes.increment();
+        registrarLatenciaDeteccao(processosEmDeadlock);
+        List<Integer> lista = new ArrayList<>(processosEmDeadlock.length);
+        for (int id : processosEmDeadlock) {
+            lista.add(id);
+        }
+        notificarDeadlock(lista);
+        return lista;
+    }
+
+    // Um deadlock numa cópia consistente só se desfaz por preempção ou remoção de um dos seus processos:
+    // quem está nele não é acordado por liberação alguma, nem recebendo unidades de um lote. Por isso
+    // basta conferir que nenhuma intervenção ocorreu desde a cópia e que os processos seguem BLOQUEADOS.
+    // Se a conferência falha a redução é refeita e, na última tentativa, corre com as travas.
+    private int[] detectarSobreInstantaneo(DetectorDeadlock detector) {
+        for (int tentativa = 0; tentativa < TENTATIVAS_REVALIDACAO; tentativa++) {
+            long intervencoesAntes = intervencoes;
+            long inicio = System.nanoTime();
+            StampedLock[] travas = travasRecurso;
+            InstantaneoAlocacao copia = travas != null ? capturarEstadoPorRecurso(travas) : capturarEstadoGlobal();
+            metricas.travaDeteccao.registrar(System.nanoTime() - inicio);
+            int[] processosEmDeadlock = detector.detectar(copia);
+            if (processosEmDeadlock.length == 0 || continuaEmDeadlock(processosEmDeadlock, intervencoesAntes)) {
+                return processosEmDeadlock;
+            }
+            metricas.deteccoesDescartadas.increment();
+        }
+        long[] travas = travarTudo();
+        long travado = System.nanoTime();
+        try {
+            return detector.detectar(estado.capturar());
+        } finally {
+            destravarTudo(travas);
+            metricas.travaDeteccao.registrar(System.nanoTime() - travado);
+        }
+    }
+
+    private boolean continuaEmDeadlock(int[] processosEmDeadlock, long intervencoesAntes) {
+        if (intervencoes != intervencoesAntes) {
+            return false;
+        }
+        for (int id : processosEmDeadlock) {
+            Processo p = processosAtivos.get(id);
+            if (p == null || p.getStatus() != StatusProcesso.BLOQUEADO) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // O deadlock se forma no bloqueio mais recente entre os seus processos. Um deadlock igual ao da
+    // detecção anterior (não desfeito, no modo MANUAL) já foi medido e não conta de novo.
+    private void registrarLatenciaDeteccao(int[] processosEmDeadlock) {
+        if (processosEmDeadlock.length == 0 || Arrays.equals(processosEmDeadlock, ultimoDeadlockMedido)) {
+            return;
+        }
+        ultimoDeadlockMedido = processosEmDeadlock;
+        long menorEspera = -1;
+        long agora = agora();
+        for (int id : processosEmDeadlock) {
+            Processo p = processosAtivos.get(id);
+            if (p != null) {
+                long espera = agora - p.getInstanteBloqueio();
+                menorEspera = menorEspera < 0 ? espera : Math.min(menorEspera, espera);
+            }
+        }
+        if (menorEspera >= 0) {
+            metricas.latenciaDeteccao.registrar(menorEspera);
+        }
+    }
+
+    // --- Recuperação ---
+
+    // Desfaz o deadlock conforme o modo de recuperação: escolhe entre os processos indicados as
+    // vítimas de menor custo e as preempta ou termina pelo mesmo caminho de removerProcesso,
+    // acordando quem espera pelo que elas devolvem. Retorna os IDs das vítimas (vazio no modo MANUAL).
+    public List<Integer> recuperarDeadlock(List<Integer> processosEmDeadlock) {
+        ModoRecuperacao modo = modoRecuperacao;
+        List<Integer> vitimas = new ArrayList<>();
+        if (modo == ModoRecuperacao.MANUAL || processosEmDeadlock.isEmpty() || !estado.isInicializado()) {
+            return vitimas;
+        }
+        long inicio = System.nanoTime();
+        long[] travas = travarTudo();
+        try {
+            int[] totais = new int[tiposRecurso.size()];
+            for (int i = 0; i < totais.length; i++) {
+                totais[i] = tiposRecurso.get(i).quantidadeTotal;
+            }
+            SeletorVitimas seletor = new SeletorVitimas(totais);
+            CustoVitima custo = custoVitima;
+            for (int id : processosEmDeadlock) {
+                Processo p = processosAtivos.get(id);
+                int slot = estado.slot(id);
+                // No modo POR_RECURSO a detecção roda fora das travas: o processo pode já ter saído.
+                if (p == null || slot < 0 || p.getStatus() != StatusProcesso.BLOQUEADO) {
+                    continue;
+                }
+                LinhaEsparsa alocacao = estado.alocacao(slot);
+                long c = custo.custo(id, alocacao.total(), p.getIdade(), p.getReinicios());
+                seletor.adicionar(id, c, p.getReinicios(), alocacao, estado.requisicao(slot));
+            }
+            for (int id : seletor.escolher()) {
+                Processo p = processosAtivos.get(id);
+                int unidades = estado.alocacao(estado.slot(id)).total();
+                metricas.operacoesDesfeitas.add(unidades);
+                metricas.trabalhoDesfeito.add(p.getIdade());
+                if (logAtivo()) {
+                    log("RECUPERAÇÃO: Processo " + id + (modo == ModoRecuperacao.TERMINO ? " terminado" : " preemptado")
+                            + ", " + unidades + " unidade(s) devolvida(s).");
+                }
+                if (modo == ModoRecuperacao.TERMINO) {
+                    p.parar();
+                    processosAtivos.remove(id);
+                    desassociarSlot(p);
+                    descontarBloqueado(p);
+                    devolverRecursos(id, true);
+                } else {
+                    devolverRecursos(id, false);
+                    p.preemptar();
+                }
+                vitimas.add(id);
+            }
+        } finally {
+            destravarTudo(travas);
+        }
+        if (!vitimas.isEmpty()) {
+            metricas.recuperacao.registrar(System.nanoTime() - inicio);
+            metricas.recuperacoes.increment();
+            metricas.vitimas.add(vitimas.size());
+            notificarEstadoAlterado();
+        }
+        return vitimas;
+    }
+
+    // Chamado com todas as travas ou com a simulação parada.
+    private void associarSlot(Processo p) {
+        Processo[] atual = processoPorSlot;
+        if (p.slot >= atual.length) {
+            atual = Arrays.copyOf(atual, Math.max(atual.length * 2, p.slot + 1));
+        }
+        atual[p.slot] = p;
+        processoPorSlot = atual;
+    }
+
+    private void desassociarSlot(Processo p) {
+        Processo[] atual = processoPorSlot;
+        if (p.slot >= 0 && p.slot < atual.length && atual[p.slot] == p) {
+            atual[p.slot] = null;
+        }
+    }
+
+    private Processo processoNoSlot(int slot) {
+        Processo[] atual = processoPorSlot;
+        return slot >= 0 && slot < atual.length ? atual[slot] : null;
+    }
+
+    // --- Detecção Incremental ---
+
+    // Marca o processo como bloqueado, coloca-o na fila do recurso e, no modo incremental, verifica
+    // apenas a aresta recém-criada. Chamado com a trava do recurso adquirida. Retorna os processos
+    // em deadlock a notificar, REQUER_REDUCAO, ou null se não há nada a reportar.
+    private List<Integer> registrarBloqueio(Processo p, int indiceRecurso) {
+        p.bloquear(indiceRecurso);
+        metricas.bloqueios.increment();
+        filasEspera[indiceRecurso].adicionar(p.idProcesso);
+        if (modoDeteccao != ModoDeteccao.INCREMENTAL) {
+            return null;
+        }
+        List<Integer> processosEmDeadlock = verificarNovaAresta(p.idProcesso, indiceRecurso);
+        return processosEmDeadlock.isEmpty() && processosEmDeadlock != REQUER_REDUCAO ? null : processosEmDeadlock;
+    }
+
+    // Bloqueio por um lote: o processo entra só na fila do primeiro recurso que falta e é revisto
+    // inteiro quando chega à frente dela. Com várias arestas de saída a cadeia única de
+    // verificarNovaAresta não basta, então o modo incremental pede a redução completa. Chamado com
+    // as travas dos recursos do lote adquiridas.
+    private List<Integer> registrarBloqueioEmLote(Processo p, int falta) {
+        p.bloquearEmLote(falta);
+        metricas.bloqueios.increment();
+        filasEspera[falta].adicionar(p.idProcesso);
+        return modoDeteccao == ModoDeteccao.INCREMENTAL ? REQUER_REDUCAO : null;
+    }
+
+    // Executado já fora das travas.
+    private void reportarBloqueio(List<Integer> processosEmDeadlock) {
+        if (processosEmDeadlock == REQUER_REDUCAO) {
+            processosEmDeadlock = detectarDeadlock();
+        } else if (processosEmDeadlock != null) {
+            notificarDeadlock(processosEmDeadlock);
+        }
+        if (processosEmDeadlock != null) {
+            recuperarDeadlock(processosEmDeadlock);
+        }
+    }
+
+    // Com recursos de instância única cada processo bloqueado tem exatamente uma aresta de saída
+    // (para o detentor do recurso esperado), então basta seguir a cadeia a partir do novo bloqueio.
+    // Se a cadeia passa por um recurso com várias instâncias, pede a redução completa.
+    // No modo POR_RECURSO os outros elos da cadeia são lidos sem as suas travas: o detentor de um
+    // recurso de instância única que está bloqueado não o pode liberar, então um ciclo observado
+    // entre processos bloqueados não se desfaz.
+    private List<Integer> verificarNovaAresta(int idProcesso, int indiceRecurso) {
+        LinkedHashSet<Integer> cadeia = new LinkedHashSet<>();
+        cadeia.add(idProcesso);
+        int recurso = indiceRecurso;
+        while (true) {
+            if (recurso < 0) {
+                return new ArrayList<>();
+            }
+            if (tiposRecurso.get(recurso).quantidadeTotal > 1) {
+                return REQUER_REDUCAO;
+            }
+            int detentor = detentorUnico.get(recurso);
+            if (detentor == 0) {
+                return new ArrayList<>();
+            }
+            if (detentor == idProcesso) {
+                return new ArrayList<>(cadeia);
+            }
+            Processo d = processosAtivos.get(detentor);
+            if (d == null || d.getStatus() != StatusProcesso.BLOQUEADO) {
+                return new ArrayList<>();
+            }
+            // Quem espera por um lote pode ter outras arestas de saída além do recurso esperado.
+            if (d.isEmLote()) {
+                return REQUER_REDUCAO;
+            }
+            // Revisitar um nó significa que a cadeia desemboca num ciclo já existente. Como na
+            // redução, o processo que bloqueou só entra no resultado se detém algum recurso.
+            if (!cadeia.add(detentor)) {
+                if (estado.alocacao(estado.slot(idProcesso)).isVazia()) {
+                    cadeia.remove(idProcesso);
+                }
+                return new ArrayList<>(cadeia);
+            }
+            recurso = d.getRecursoEsperado();
+        }
+    }
+
+
+    // --- Notificação dos Observadores ---
+
+    // Evita montar mensagens de log quando ninguém está a observar o motor.
+    boolean logAtivo() {
+        return ouvintes.length > 0;
+    }
+
+    public void log(String message) {
+        for (OuvinteMotor o : ouvintes) {
+            o.log(message);
+        }
+    }
+
+    public void logUsoRecurso(int idProcesso, int indiceRecurso) {
+        // logAtivo() primeiro: a busca no mapa encaixotaria o ID mesmo sem ninguém lendo o log.
+        Processo p = logAtivo() ? processosAtivos.get(idProcesso) : null;
+        if (p != null) {
+            log("PROCESSO " + idProcesso + " está a UTILIZAR " + getNomeRecurso(indiceRecurso) + " por " + p.getTempoUtilizacao() + "s.");
+        }
+    }
+
+    private void notificarDeadlock(List<Integer> processosEmDeadlock) {
+        if (!processosEmDeadlock.isEmpty()) {
+            metricas.deteccoesComDeadlock.increment();
+            metricas.processosEmDeadlock.add(processosEmDeadlock.size());
+        }
+        if (!processosEmDeadlock.isEmpty() && logAtivo()) {
+            String ids = processosEmDeadlock.stream()
+                                            .map(String::valueOf)
+                                            .collect(Collectors.joining(", "));
+            log("DEADLOCK: Detectado envolvendo processos: " + ids);
+        }
+        for (OuvinteMotor o : ouvintes) {
+            o.deadlockVerificado(processosEmDeadlock);
+        }
+    }
+
+    private void notificarEstadoAlterado() {
+        for (OuvinteMotor o : ouvintes) {
+            o.estadoAlterado();
+        }
+    }
+
+    private void notificarProcessoAlterado(int idProcesso) {
+        for (OuvinteMotor o : ouvintes) {
+            o.processoAlterado(idProcesso);
+        }
+    }
+
+    private void notificarRecursoAlterado(int indiceRecurso) {
+        for (OuvinteMotor o : ouvintes) {
+            o.recursoAlterado(indiceRecurso);
+        }
+    }
+
+    // --- Métodos Auxiliares ---
+    public Recurso getTipoRecurso(int indice) {
+        if (indice >= 0 && indice < tiposRecurso.size()) {
+            return tiposRecurso.get(indice);
+        }
+        return null;
+    }
+
+    public int getNumTiposRecurso() {
+        return tiposRecurso.size();
+    }
+
+    public List<Recurso> getTiposRecurso() {
+        return Collections.unmodifiableList(tiposRecurso);
+    }
+
+    public Processo getProcesso(int id) {
+        return processosAtivos.get(id);
+    }
+
+    public Collection<Processo> getProcessos() {
+        return Collections.unmodifiableCollection(processosAtivos.values());
+    }
+
+    // Retorna -1 enquanto a alocação ainda não foi preparada.
+    public int getDisponivel(int indice) {
+        int[] d = estado.disponivel();
+        return d != null && indice < d.length ? d[indice] : -1;
+    }
+
+    public String getNomeRecurso(int indice) {
+        Recurso r = getTipoRecurso(indice);
+        return r != null ? r.nome : "N/A";
+    }
+
+    // Leitura para exibição: sincroniza apenas na linha do processo.
+    public String getRecursosAlocadosString(int idProcesso) {
+        StringBuilder sb = new StringBuilder();
+        Processo p = processosAtivos.get(idProcesso);
+        int slot = p != null ? p.slot : -1;
+        if (slot < 0) {
+            return "";
+        }
+        LinhaEsparsa alocados = estado.alocacao(slot);
+        synchronized (alocados) {
+            for (int k = 0; k < alocados.tamanho(); k++) {
+                sb.append(getNomeRecurso(alocados.recursoNa(k))).append(" (").append(alocados.quantidadeNa(k)).append(") ");
+            }
+        }
+        return sb.toString().trim();
+    }
+}
@@ -0,0 +1,29 @@
+package com.example;
+
+import java.util.List;
+
+/**
+ * Observador dos eventos do {@link MotorDeadlock}. Todos os métodos têm
+ * implementação vazia para que cada observador sobrescreva apenas o que usa.
+ * As notificações chegam na thread que executou a operação no motor.
+ */
+public interface OuvinteMotor {
+
+    default void log(String mensagem) {
+    }
+
+    // Processos ou recursos foram criados, removidos ou reiniciados.
+    default void estadoAlterado() {
+    }
+
+    // A alocação, a requisição ou o status do processo mudou.
+    default void processoAlterado(int idProcesso) {
+    }
+
+    // A quantidade disponível do recurso mudou.
+    default void recursoAlterado(int indiceRecurso) {
+    }
+
+    default void deadlockVerificado(List<Integer> processosEmDeadlock) {
+    }
+}
@@ -0,0 +1,213 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+import javafx.beans.binding.Bindings;
+import javafx.beans.property.IntegerProperty;
+import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.SimpleIntegerProperty;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.property.StringProperty;
+import javafx.beans.value.ObservableValue;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+
+/**
+ * Painéis de status de processos e recursos. As threads do motor apenas marcam
+ * linhas como sujas; {@link #atualizar()} é chamado uma vez por pulso na thread
+ * da interface e só recalcula as linhas marcadas. A lista inteira é refeita
+ * apenas quando processos ou recursos são criados ou removidos.
+ */
+class PainelStatus {
+
+    private final MotorDeadlock motor;
+    private final ListView<LinhaProcesso> processosStatusList = new ListView<>();
+    private final ListView<LinhaRecurso> recursosStatusList = new ListView<>();
+
+    private final Map<Integer, LinhaProcesso> linhasProcesso = new HashMap<>();
+    private final List<LinhaRecurso> linhasRecurso = new ArrayList<>();
+
+    // --- Marcações feitas pelas threads do motor ---
+    private final Set<Integer> processosSujos = ConcurrentHashMap.newKeySet();
+    private final Set<Integer> recursosSujos = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean estruturaAlterada = new AtomicBoolean(true);
+
+    PainelStatus(MotorDeadlock motor) {
+        this.motor = motor;
+        processosStatusList.setCellFactory(lv -> new CelulaVinculada<>(LinhaProcesso::descricao));
+        recursosStatusList.setCellFactory(lv -> new CelulaVinculada<>(LinhaRecurso::descricao));
+    }
+
+    ListView<LinhaProcesso> getProcessosStatusList() {
+        return processosStatusList;
+    }
+
+    ListView<LinhaRecurso> getRecursosStatusList() {
+        return recursosStatusList;
+    }
+
+    // --- Chamados de qualquer thread ---
+
+    void marcarProcesso(int idProcesso) {
+        processosSujos.add(idProcesso);
+    }
+
+    void marcarRecurso(int indiceRecurso) {
+        recursosSujos.add(indiceRecurso);
+    }
+
+    void marcarEstrutura() {
+        estruturaAlterada.set(true);
+    }
+
+    // --- Chamado na thread da interface, uma vez por pulso ---
+
+    void atualizar() {
+        if (estruturaAlterada.getAndSet(false)) {
+            processosSujos.clear();
+            recursosSujos.clear();
+            reconstruir();
+            return;
+        }
+        for (Iterator<Integer> it = processosSujos.iterator(); it.hasNext(); ) {
+            LinhaProcesso linha = linhasProcesso.get(it.next());
+            it.remove();
+            if (linha != null) {
+                linha.atualizar(motor);
+            }
+        }
+        for (Iterator<Integer> it = recursosSujos.iterator(); it.hasNext(); ) {
+            int indice = it.next();
+            it.remove();
+            if (indice < linhasRecurso.size()) {
+                linhasRecurso.get(indice).atualizar(motor);
+            }
+        }
+    }
+
+    private void reconstruir() {
+        List<Processo> ordenados = new ArrayList<>(motor.getProcessos());
+        ordenados.sort(Comparator.comparingInt(p -> p.idProcesso));
+        Map<Integer, LinhaProcesso> anteriores = new HashMap<>(linhasProcesso);
+        linhasProcesso.clear();
+        List<LinhaProcesso> itensProcesso = new ArrayList<>(ordenados.size());
+        for (Processo p : ordenados) {
+            LinhaProcesso linha = anteriores.get(p.idProcesso);
+            if (linha == null) {
+                linha = new LinhaProcesso(p.idProcesso);
+            }
+            linha.atualizar(motor);
+            linhasProcesso.put(p.idProcesso, linha);
+            itensProcesso.add(linha);
+        }
+        processosStatusList.getItems().setAll(itensProcesso);
+
+        linhasRecurso.clear();
+        for (int i = 0; i < motor.getNumTiposRecurso(); i++) {
+            LinhaRecurso linha = new LinhaRecurso(i, motor.getTipoRecurso(i));
+            linha.atualizar(motor);
+            linhasRecurso.add(linha);
+        }
+        recursosStatusList.getItems().setAll(linhasRecurso);
+    }
+
+    // =================================================================================
+    // CÉLULA VINCULADA AO MODELO
+    // =================================================================================
+    // Liga o texto da célula às propriedades do item; mudar o modelo redesenha só essa célula.
+    private static class CelulaVinculada<T> extends ListCell<T> {
+        private final Function<T, ObservableValue<String>> descricao;
+
+        CelulaVinculada(Function<T, ObservableValue<String>> descricao) {
+            this.descricao = descricao;
+        }
+
+        @Override
+        protected void updateItem(T item, boolean empty) {
+            super.updateItem(item, empty);
+            textProperty().unbind();
+            if (empty || item == null) {
+                setText(null);
+            } else {
+                textProperty().bind(descricao.apply(item));
+            }
+        }
+    }
+}
+
+// =================================================================================
+// MODELO DA LINHA DE PROCESSO
+// =================================================================================
+class LinhaProcesso {
+    final int idProcesso;
+    final ObjectProperty<StatusProcesso> status = new SimpleObjectProperty<>();
+    final StringProperty alocados = new SimpleStringProperty("");
+    final StringProperty esperandoPor = new SimpleStringProperty("");
+    private final ObservableValue<String> descricao;
+
+    LinhaProcesso(int idProcesso) {
+        this.idProcesso = idProcesso;
+        this.descricao = Bindings.createStringBinding(() -> {
+            StringBuilder sb = new StringBuilder("P").append(idProcesso).append(" - Status: ").append(status.get());
+            if (!alocados.get().isEmpty()) {
+                sb.append(" | Alocado: ").append(alocados.get());
+            }
+            if (status.get() == StatusProcesso.BLOQUEADO) {
+                sb.append(" | Esperando por: ").append(esperandoPor.get());
+            }
+            return sb.toString();
+        }, status, alocados, esperandoPor);
+    }
+
+    void atualizar(MotorDeadlock motor) {
+        Processo p = motor.getProcesso(idProcesso);
+        if (p == null) {
+            return;
+        }
+        status.set(p.getStatus());
+        alocados.set(motor.getRecursosAlocadosString(idProcesso));
+        esperandoPor.set(p.getStatus() == StatusProcesso.BLOQUEADO ? motor.getNomeRecurso(p.getRecursoEsperado()) : "");
+    }
+
+    ObservableValue<String> descricao() {
+        return descricao;
+    }
+}
+
+// =================================================================================
+// MODELO DA LINHA DE RECURSO
+// =================================================================================
+class LinhaRecurso {
+    final int indiceRecurso;
+    final Recurso recurso;
+    // -1 enquanto a alocação ainda não foi preparada.
+    final IntegerProperty disponivel = new SimpleIntegerProperty(-1);
+    private final ObservableValue<String> descricao;
+
+    LinhaRecurso(int indiceRecurso, Recurso recurso) {
+        this.indiceRecurso = indiceRecurso;
+        this.recurso = recurso;
+        this.descricao = Bindings.createStringBinding(() -> {
+            String texto = recurso.nome + " (ID: " + recurso.id + ") | Total: " + recurso.quantidadeTotal;
+            return disponivel.get() >= 0 ? texto + " | Disponível: " + disponivel.get() : texto;
+        }, disponivel);
+    }
+
+    void atualizar(MotorDeadlock motor) {
+        disponivel.set(motor.getDisponivel(indiceRecurso));
+    }
+
+    ObservableValue<String> descricao() {
+        return descricao;
+    }
+}
@@ -0,0 +1,189 @@
+package com.example;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fila de mensagens de log limitada e sem travas: vários produtores (threads dos
+ * processos) publicam e um único consumidor drena em lotes. Quando a fila está
+ * cheia a mensagem é descartada e contada, de modo que o produtor nunca bloqueia.
+ * Opcionalmente os lotes drenados também são gravados num arquivo rotativo.
+ */
+public class PipelineLog {
+
+    private final AtomicReferenceArray<String> buffer;
+    private final int mascara;
+
+    // Próxima posição a ser reservada pelos produtores.
+    private final AtomicLong cauda = new AtomicLong();
+    // Próxima posição a ser lida; só o consumidor escreve.
+    private volatile long cabeca;
+
+    private final LongAdder descartadas = new LongAdder();
+    private long descartadasReportadas;
+
+    private ArquivoLogRotativo arquivo;
+    private ExecutorService escritor;
+
+    // A capacidade é arredondada para a próxima potência de dois.
+    public PipelineLog(int capacidade) {
+        int tamanho = Integer.highestOneBit(Math.max(2, capacidade - 1)) << 1;
+        this.buffer = new AtomicReferenceArray<>(tamanho);
+        this.mascara = tamanho - 1;
+    }
+
+    // Passa a copiar cada lote drenado para o arquivo indicado, rotacionando ao atingir o limite.
+    public void gravarEmArquivo(Path caminho, long limiteBytes, int arquivosRetidos) throws IOException {
+        arquivo = new ArquivoLogRotativo(caminho, limiteBytes, arquivosRetidos);
+        escritor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "log-arquivo");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    // Retorna false se a mensagem foi descartada por falta de espaço.
+    public boolean publicar(String mensagem) {
+        while (true) {
+            long posicao = cauda.get();
+            if (posicao - cabeca >= buffer.length()) {
+                descartadas.increment();
+                return false;
+            }
+            if (cauda.compareAndSet(posicao, posicao + 1)) {
+                buffer.lazySet((int) posicao & mascara, mensagem);
+                return true;
+            }
+        }
+    }
+
+    // Move para o destino, uma por linha, as mensagens já publicadas. Só o consumidor chama.
+    // Retorna o número de linhas acrescentadas.
+    public int drenar(StringBuilder destino) {
+        int inicioLote = destino.length();
+        int linhas = 0;
+        long descartadasAgora = descartadas.sum();
+        if (descartadasAgora > descartadasReportadas) {
+            destino.append("AVISO: ").append(descartadasAgora - descartadasReportadas)
+                   .append(" mensagens de log descartadas (fila cheia).\n");
+            descartadasReportadas = descartadasAgora;
+            linhas++;
+        }
+        long posicao = cabeca;
+        // No máximo uma volta do buffer por chamada, mesmo com produtores publicando sem parar.
+        for (int lidas = 0; lidas < buffer.length(); lidas++) {
+            int indice = (int) posicao & mascara;
+            String mensagem = buffer.get(indice);
+            // Posição reservada mas ainda não escrita: fica para o próximo lote.
+            if (mensagem == null) {
+                break;
+            }
+            buffer.lazySet(indice, null);
+            posicao++;
+            cabeca = posicao;
+            destino.append(mensagem).append('\n');
+            linhas++;
+        }
+        if (linhas > 0 && arquivo != null) {
+            String lote = destino.substring(inicioLote);
+            escritor.execute(() -> arquivo.escrever(lote));
+        }
+        return linhas;
+    }
+
+    public long getDescartadas() {
+        return descartadas.sum();
+    }
+
+    public void fechar() {
+        if (escritor != null) {
+            escritor.execute(arquivo::fechar);
+            escritor.shutdown();
+        }
+    }
+}
+
+// =================================================================================
+// CLASSE ARQUIVO DE LOG ROTATIVO
+// =================================================================================
+// Grava em 'caminho'; ao passar do limite, renomeia para caminho.1, caminho.1 para caminho.2 etc.
+// O limite conta os bytes gravados em UTF-8, não os caracteres do texto.
+class ArquivoLogRotativo {
+    private final Path caminho;
+    private final long limiteBytes;
+    private final int arquivosRetidos;
+    // null se a última abertura falhou; a próxima escrita tenta de novo.
+    private OutputStream saida;
+    private long tamanho;
+
+    ArquivoLogRotativo(Path caminho, long limiteBytes, int arquivosRetidos) throws IOException {
+        this.caminho = caminho;
+        this.limiteBytes = limiteBytes;
+        this.arquivosRetidos = arquivosRetidos;
+        abrir();
+    }
+
+    void escrever(String lote) {
+        byte[] bytes = lote.getBytes(StandardCharsets.UTF_8);
+        try {
+            if (saida == null) {
+                abrir();
+            }
+            if (tamanho > 0 && tamanho + bytes.length > limiteBytes) {
+                rotacionar();
+            }
+            saida.write(bytes);
+            saida.flush();
+            tamanho += bytes.length;
+        } catch (IOException e) {
+            System.err.println("Falha ao gravar log em " + caminho + ": " + e.getMessage());
+        }
+    }
+
+    void fechar() {
+        if (saida == null) {
+            return;
+        }
+        try {
+            saida.close();
+        } catch (IOException e) {
+            System.err.println("Falha ao fechar log em " + caminho + ": " + e.getMessage());
+        }
+    }
+
+    private void abrir() throws IOException {
+        saida = Files.newOutputStream(caminho, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        tamanho = Files.size(caminho);
+    }
+
+    // Se alguma renomeação falha o lote continua no arquivo atual, que é sempre reaberto.
+    private void rotacionar() throws IOException {
+        OutputStream anterior = saida;
+        saida = null;
+        try {
+            anterior.close();
+            for (int i = arquivosRetidos - 1; i >= 1; i--) {
+                Path origem = caminho.resolveSibling(caminho.getFileName() + "." + i);
+                if (Files.exists(origem)) {
+                    Files.move(origem, caminho.resolveSibling(caminho.getFileName() + "." + (i + 1)),
+                            StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            Files.move(caminho, caminho.resolveSibling(caminho.getFileName() + ".1"), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            System.err.println("Falha ao rotacionar log em " + caminho + ": " + e.getMessage());
+        } finally {
+            abrir();
+        }
+    }
+}
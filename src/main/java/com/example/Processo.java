@@ -0,0 +1,308 @@
+package com.example;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Processo simulado. A cada ΔTs solicita um tipo de recurso que ainda não usa e
+ * o segura por ΔTu; os eventos correm no {@link AgendadorProcessos} do motor, e
+ * um processo bloqueado não ocupa thread até ser acordado.
+ */
+public class Processo {
+    final int idProcesso;
+    private final long tempoSolicitacao; // ΔTs em segundos
+    private final long tempoUtilizacao;  // ΔTu em segundos
+    private final MotorDeadlock motor;
+
+    private volatile StatusProcesso status;
+    private volatile boolean rodando = true;
+    private volatile AgendadorProcessos agendador;
+    private SplittableRandom aleatorio;
+    // Continuações entregues ao agendador, criadas uma vez para não alocar a cada evento.
+    private final Runnable evento = this::executarEvento;
+    private final Runnable continuacao = this::retomar;
+
+    private final Semaphore semaforoBloqueio = new Semaphore(0);
+    // Lido sem trava pela verificação incremental, por isso é escrito antes de status.
+    private volatile int recursoEsperado = -1;
+    // Bloqueado por uma solicitação em lote: recursoEsperado é só um dos recursos que faltam.
+    private volatile boolean emLote;
+    // Necessidade máxima declarada para o modo banqueiro; null equivale a uma unidade de cada tipo.
+    private volatile int[] necessidadeMaxima;
+    // Instante do bloqueio, no relógio do agendador, para medir o tempo bloqueado.
+    private volatile long instanteBloqueio;
+    // Início da execução atual (criação, início da simulação ou última preempção), para a idade.
+    private volatile long instanteInicio = System.nanoTime();
+    // Vezes em que o processo foi vítima de preempção; só alterado com as travas do motor.
+    private volatile int reinicios;
+    // Marcado pela preempção: a continuação descarta a solicitação pendente e os recursos em uso.
+    private volatile boolean preemptado;
+
+    // Slot no EstadoAlocacao, para leituras de exibição que não passam pelo mapa de IDs.
+    volatile int slot = -1;
+
+    // Os eventos de um processo nunca rodam ao mesmo tempo: há no máximo um agendado, ou nenhum
+    // enquanto ele está bloqueado. A passagem pela fila do agendador publica o estado abaixo.
+    // Recursos em uso como vetores paralelos (recurso, instante de liberação), na ordem de alocação,
+    // e o mesmo conjunto em bitset para sortear entre os que faltam. Um processo usa no máximo uma
+    // unidade de cada tipo, então a capacidade é o número de tipos.
+    private int[] recursosEmUso = new int[0];
+    private long[] liberacoes = new long[0];
+    private int numEmUso;
+    private long[] emUso = new long[0];
+    // Tipos com necessidade máxima zero (modo banqueiro), que nunca são sorteados; refeito quando
+    // o vetor de necessidades é trocado.
+    private long[] semNecessidade = new long[0];
+    private int[] maximosAplicados;
+    private long proximaSolicitacao;
+    private int recursoPendente = -1;
+
+    public Processo(int id, long ts, long tu, MotorDeadlock motor) {
+        this.idProcesso = id;
+        this.tempoSolicitacao = ts;
+        this.tempoUtilizacao = tu;
+        this.motor = motor;
+        this.status = StatusProcesso.EXECUTANDO;
+    }
+
+    void iniciar(AgendadorProcessos agendador) {
+        this.agendador = agendador;
+        this.aleatorio = agendador.criarAleatorio(idProcesso);
+        int numTipos = motor.getNumTiposRecurso();
+        if (recursosEmUso.length != numTipos) {
+            recursosEmUso = new int[numTipos];
+            liberacoes = new long[numTipos];
+            emUso = new long[(numTipos + 63) >>> 6];
+            semNecessidade = new long[emUso.length];
+            maximosAplicados = null;
+            numEmUso = 0;
+        }
+        this.instanteInicio = agendador.agora();
+        this.proximaSolicitacao = agendador.agora() + TimeUnit.SECONDS.toNanos(tempoSolicitacao);
+        agendador.agendar(proximaSolicitacao, evento);
+    }
+
+    // Disparado no instante do próximo evento: libera o que venceu e, se for a hora, solicita um recurso.
+    private void executarEvento() {
+        if (!rodando) {
+            return;
+        }
+        long agora = agendador.agora();
+
+        // 1. LIBERA OS RECURSOS CUJO TEMPO DE USO TERMINOU (compactando, para manter a ordem)
+        int restantes = 0;
+        for (int k = 0; k < numEmUso; k++) {
+            int r = recursosEmUso[k];
+            if (agora - liberacoes[k] >= 0) {
+                emUso[r >>> 6] &= ~(1L << r);
+                motor.liberarRecurso(idProcesso, r);
+            } else {
+                recursosEmUso[restantes] = r;
+                liberacoes[restantes++] = liberacoes[k];
+            }
+        }
+        numEmUso = restantes;
+
+        // 2. SOLICITA NOVO RECURSO SE CHEGOU A HORA
+        if (agora - proximaSolicitacao >= 0) {
+            int[] maximos = necessidadeMaxima;
+            if (maximos != maximosAplicados) {
+                Arrays.fill(semNecessidade, 0L);
+                for (int r = 0; maximos != null && r < maximos.length; r++) {
+                    if (maximos[r] == 0) {
+                        semNecessidade[r >>> 6] |= 1L << r;
+                    }
+                }
+                maximosAplicados = maximos;
+            }
+            int solicitaveis = 0;
+            for (int w = 0; w < emUso.length; w++) {
+                solicitaveis += Long.bitCount(livresNaPalavra(w));
+            }
+
+            if (solicitaveis > 0) {
+                // Escolhe um recurso aleatório entre os solicitáveis
+                int indiceRecursoSolicitado = escolher(aleatorio.nextInt(solicitaveis));
+                recursoPendente = indiceRecursoSolicitado;
+
+                // Bloqueado: nada mais é agendado até acordar() despachar retomar().
+                if (!motor.solicitarRecurso(idProcesso, indiceRecursoSolicitado) && !semaforoBloqueio.tryAcquire()) {
+                    return;
+                }
+                concluirSolicitacao();
+                return;
+            } else if (motor.logAtivo()) {
+                motor.log("PROCESSO " + idProcesso + " já possui todos os tipos de recursos. Nenhuma nova solicitação será feita por enquanto.");
+            }
+            proximaSolicitacao = agora + TimeUnit.SECONDS.toNanos(tempoSolicitacao);
+        }
+        agendarProximoEvento();
+    }
+
+    // Tipos da palavra w que o processo não usa e pode solicitar.
+    private long livresNaPalavra(int w) {
+        int resto = recursosEmUso.length - (w << 6);
+        long validos = resto >= 64 ? -1L : (1L << resto) - 1;
+        return ~(emUso[w] | semNecessidade[w]) & validos;
+    }
+
+    // Índice do n-ésimo (base 0) tipo solicitável.
+    private int escolher(int n) {
+        for (int w = 0; ; w++) {
+            long livres = livresNaPalavra(w);
+            int quantos = Long.bitCount(livres);
+            if (n < quantos) {
+                for (; n > 0; n--) {
+                    livres &= livres - 1;
+                }
+                return (w << 6) + Long.numberOfTrailingZeros(livres);
+            }
+            n -= quantos;
+        }
+    }
+
+    // Continuação após o desbloqueio; o semáforo garante que só um dos lados prossegue.
+    private void retomar() {
+        if (rodando && semaforoBloqueio.tryAcquire()) {
+            concluirSolicitacao();
+        }
+    }
+
+    private void concluirSolicitacao() {
+        long agora = agendador.agora();
+        if (preemptado) {
+            // Recomeça do zero: o motor já devolveu tudo o que estava em uso.
+            preemptado = false;
+            numEmUso = 0;
+            Arrays.fill(emUso, 0L);
+        } else if (status == StatusProcesso.EXECUTANDO) {
+            int r = recursoPendente;
+            recursosEmUso[numEmUso] = r;
+            liberacoes[numEmUso++] = agora + TimeUnit.SECONDS.toNanos(tempoUtilizacao);
+            emUso[r >>> 6] |= 1L << r;
+            motor.logUsoRecurso(idProcesso, r);
+        }
+        recursoPendente = -1;
+        // Agenda a próxima solicitação independentemente de ter conseguido ou não
+        proximaSolicitacao = agora + TimeUnit.SECONDS.toNanos(tempoSolicitacao);
+        agendarProximoEvento();
+    }
+
+    private void agendarProximoEvento() {
+        if (!rodando) {
+            return;
+        }
+        long proximo = proximaSolicitacao;
+        for (int k = 0; k < numEmUso; k++) {
+            if (liberacoes[k] - proximo < 0) {
+                proximo = liberacoes[k];
+            }
+        }
+        agendador.agendar(proximo, evento);
+    }
+
+    public void parar() {
+        this.rodando = false;
+    }
+
+    // Tempo virtual quando a simulação é de eventos discretos; senão, o relógio monotônico.
+    private long agora() {
+        AgendadorProcessos a = agendador;
+        return a != null ? a.agora() : System.nanoTime();
+    }
+
+    public void bloquear(int indiceRecurso) {
+        this.instanteBloqueio = agora();
+        this.recursoEsperado = indiceRecurso;
+        this.status = StatusProcesso.BLOQUEADO;
+        motor.getMetricas().bloqueadosAgora.increment();
+    }
+
+    void bloquearEmLote(int indiceRecurso) {
+        this.emLote = true;
+        bloquear(indiceRecurso);
+    }
+
+    // O lote passou à fila de outro recurso que ainda falta, que vira o recurso esperado.
+    void esperarPor(int indiceRecurso) {
+        this.recursoEsperado = indiceRecurso;
+    }
+
+    public void acordar() {
+        motor.getMetricas().tempoBloqueado.registrar(agora() - instanteBloqueio);
+        motor.getMetricas().bloqueadosAgora.decrement();
+        this.status = StatusProcesso.EXECUTANDO;
+        this.recursoEsperado = -1;
+        this.emLote = false;
+        semaforoBloqueio.release();
+        if (agendador != null) {
+            agendador.despachar(continuacao);
+        }
+    }
+
+    // Vítima da recuperação: o motor já devolveu as alocações e descartou a requisição. Como em
+    // acordar(), a continuação passa pelo semáforo e só um dos lados prossegue.
+    void preemptar() {
+        motor.getMetricas().tempoBloqueado.registrar(agora() - instanteBloqueio);
+        if (status == StatusProcesso.BLOQUEADO) {
+            motor.getMetricas().bloqueadosAgora.decrement();
+        }
+        reinicios++;
+        instanteInicio = agora();
+        preemptado = true;
+        this.status = StatusProcesso.EXECUTANDO;
+        this.recursoEsperado = -1;
+        this.emLote = false;
+        semaforoBloqueio.release();
+        if (agendador != null) {
+            agendador.despachar(continuacao);
+        }
+    }
+
+    // Usado por quem dirige o motor sem a thread do processo: espera até ser acordado.
+    public void aguardarDesbloqueio() throws InterruptedException {
+        semaforoBloqueio.acquire();
+    }
+
+    public StatusProcesso getStatus() {
+        return status;
+    }
+
+    public int getRecursoEsperado() {
+        return recursoEsperado;
+    }
+
+    boolean isEmLote() {
+        return emLote;
+    }
+
+    long getInstanteBloqueio() {
+        return instanteBloqueio;
+    }
+
+    int[] getNecessidadeMaxima() {
+        return necessidadeMaxima;
+    }
+
+    void setNecessidadeMaxima(int[] necessidadeMaxima) {
+        this.necessidadeMaxima = necessidadeMaxima;
+    }
+
+    int getReinicios() {
+        return reinicios;
+    }
+
+    long getIdade() {
+        return agora() - instanteInicio;
+    }
+
+    public long getTempoSolicitacao() {
+        return tempoSolicitacao;
+    }
+
+    public long getTempoUtilizacao() {
+        return tempoUtilizacao;
+    }
+}
@@ -0,0 +1,17 @@
+package com.example;
+
+/**
+ * Tipo de recurso do {@link MotorDeadlock}: nome, ID e quantidade total de
+ * instâncias.
+ */
+public class Recurso {
+    final String nome;
+    final int id;
+    final int quantidadeTotal;
+
+    public Recurso(String nome, int id, int quantidadeTotal) {
+        this.nome = nome;
+        this.id = id;
+        this.quantidadeTotal = quantidadeTotal;
+    }
+}
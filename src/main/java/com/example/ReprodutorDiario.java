@@ -0,0 +1,214 @@
+package com.example;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reproduz um diário de {@link DiarioEventos} num motor sem threads: carrega o
+ * estado de partida e reaplica as solicitações, liberações, remoções e
+ * preempções na ordem gravada, o mais rápido possível. Bloqueios e despertares
+ * são consequências que o próprio motor decide; a reprodução só confere se ele
+ * decidiu igual e conta as divergências (esperadas ao mudar a política de
+ * alocação, por exemplo).
+ *
+ * Os registros são lidos por janelas mapeadas. Um registro incompleto no fim
+ * (queda antes do último fsync) é ignorado.
+ */
+final class ReprodutorDiario {
+
+    private static final int REGISTROS_POR_JANELA = (1 << 24) / DiarioEventos.TAMANHO_REGISTRO;
+
+    private final MotorDeadlock motor;
+
+    private long eventos;
+    private long divergencias;
+    private long primeiraDivergencia = -1;
+    private int deteccoes;
+    private int deteccoesComDeadlock;
+    private long tempoDeteccaoNs;
+    private long tempoTotalNs;
+    private long primeiroInstante;
+    private long ultimoInstante;
+    private List<Integer> ultimoDeadlock = new ArrayList<>();
+    // Unidades pendentes de lotes ainda não fechados, por processo.
+    private final Map<Integer, int[]> lotesAbertos = new HashMap<>();
+
+    // O motor deve estar parado; a configuração dele é substituída pela do diário.
+    ReprodutorDiario(MotorDeadlock motor) {
+        this.motor = motor;
+    }
+
+    // Detecta a cada 'detectarACada' eventos (0 = só nos pontos), depois dos eventos de número
+    // indicado em 'pontos' e ao final.
+    void reproduzir(Path diario, long detectarACada, long[] pontos) throws IOException {
+        long[] pontosOrdenados = pontos.clone();
+        Arrays.sort(pontosOrdenados);
+        motor.carregarEstado(DiarioEventos.instantaneoInicial(diario));
+
+        long inicio = System.nanoTime();
+        try (FileChannel canal = FileChannel.open(diario, StandardOpenOption.READ)) {
+            if (canal.size() < DiarioEventos.TAMANHO_CABECALHO) {
+                throw new IOException("Diário truncado: " + diario);
+            }
+            ByteBuffer cabecalho = canal.map(MapMode.READ_ONLY, 0, DiarioEventos.TAMANHO_CABECALHO)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            if (cabecalho.getInt() != DiarioEventos.MAGICO) {
+                throw new IOException("Arquivo não é um diário de eventos: " + diario);
+            }
+            int versao = cabecalho.getInt();
+            if (versao != DiarioEventos.VERSAO) {
+                throw new IOException("Versão de diário não suportada: " + versao);
+            }
+
+            long total = (canal.size() - DiarioEventos.TAMANHO_CABECALHO) / DiarioEventos.TAMANHO_REGISTRO;
+            int proximoPonto = 0;
+            for (long base = 0; base < total; base += REGISTROS_POR_JANELA) {
+                int quantidade = (int) Math.min(REGISTROS_POR_JANELA, total - base);
+                ByteBuffer janela = canal.map(MapMode.READ_ONLY,
+                        DiarioEventos.TAMANHO_CABECALHO + base * DiarioEventos.TAMANHO_REGISTRO,
+                        (long) quantidade * DiarioEventos.TAMANHO_REGISTRO).order(ByteOrder.LITTLE_ENDIAN);
+                for (int k = 0; k < quantidade; k++) {
+                    long instante = janela.getLong();
+                    int idProcesso = janela.getInt();
+                    int campo = janela.getInt();
+                    int recurso = campo & DiarioEventos.SEM_RECURSO;
+                    aplicar(campo >>> 24, idProcesso, recurso == DiarioEventos.SEM_RECURSO ? -1 : recurso);
+                    if (eventos == 0) {
+                        primeiroInstante = instante;
+                    }
+                    ultimoInstante = instante;
+                    eventos++;
+
+                    boolean detectar = detectarACada > 0 && eventos % detectarACada == 0;
+                    while (proximoPonto < pontosOrdenados.length && pontosOrdenados[proximoPonto] <= eventos) {
+                        detectar |= pontosOrdenados[proximoPonto++] == eventos;
+                    }
+                    if (detectar) {
+                        detectar();
+                    }
+                }
+            }
+        }
+        detectar();
+        tempoTotalNs = System.nanoTime() - inicio;
+    }
+
+    private void aplicar(int tipo, int idProcesso, int indiceRecurso) throws IOException {
+        Processo p = motor.getProcesso(idProcesso);
+        switch (tipo) {
+            case DiarioEventos.SOLICITACAO:
+                if (p == null || !motor.solicitarRecurso(idProcesso, indiceRecurso)) {
+                    divergiu();
+                }
+                break;
+            case DiarioEventos.BLOQUEIO:
+                int[] lote = lotesAbertos.remove(idProcesso);
+                if (lote != null) {
+                    lote[indiceRecurso]++;
+                    if (p == null || motor.solicitarRecursos(idProcesso, lote)) {
+                        divergiu();
+                    }
+                } else if (p == null || motor.solicitarRecurso(idProcesso, indiceRecurso)) {
+                    divergiu();
+                }
+                break;
+            case DiarioEventos.LOTE:
+                lotesAbertos.computeIfAbsent(idProcesso, id -> new int[motor.getNumTiposRecurso()])[indiceRecurso]++;
+                break;
+            case DiarioEventos.LIBERACAO:
+                if (p == null) {
+                    divergiu();
+                } else {
+                    motor.liberarRecurso(idProcesso, indiceRecurso);
+                }
+                break;
+            case DiarioEventos.ACORDAR:
+                // O despertar já aconteceu na liberação ou remoção que veio antes. Um lote adiado
+                // por uma trava ocupada na gravação pode ser atendido em outro ponto aqui.
+                if (p == null || p.getStatus() != StatusProcesso.EXECUTANDO && !p.isEmLote()) {
+                    divergiu();
+                }
+                break;
+            case DiarioEventos.REMOCAO:
+                if (p == null) {
+                    divergiu();
+                } else {
+                    motor.removerProcesso(idProcesso);
+                }
+                break;
+            case DiarioEventos.PREEMPCAO:
+                if (p == null) {
+                    divergiu();
+                } else {
+                    motor.preemptarProcesso(idProcesso);
+                }
+                break;
+            default:
+                throw new IOException("Diário inválido: tipo de evento " + tipo + " no registro " + eventos + ".");
+        }
+    }
+
+    private void divergiu() {
+        if (divergencias++ == 0) {
+            primeiraDivergencia = eventos;
+        }
+    }
+
+    private void detectar() {
+        long inicio = System.nanoTime();
+        ultimoDeadlock = motor.detectarDeadlock();
+        tempoDeteccaoNs += System.nanoTime() - inicio;
+        deteccoes++;
+        if (!ultimoDeadlock.isEmpty()) {
+            deteccoesComDeadlock++;
+        }
+    }
+
+    long getEventos() {
+        return eventos;
+    }
+
+    long getDivergencias() {
+        return divergencias;
+    }
+
+    // Índice (base 0) do primeiro evento divergente, ou -1.
+    long getPrimeiraDivergencia() {
+        return primeiraDivergencia;
+    }
+
+    int getDeteccoes() {
+        return deteccoes;
+    }
+
+    int getDeteccoesComDeadlock() {
+        return deteccoesComDeadlock;
+    }
+
+    long getTempoDeteccaoNs() {
+        return tempoDeteccaoNs;
+    }
+
+    long getTempoTotalNs() {
+        return tempoTotalNs;
+    }
+
+    // Intervalo coberto pelo diário no relógio de quem gravou.
+    long getDuracaoGravadaNs() {
+        return ultimoInstante - primeiroInstante;
+    }
+
+    List<Integer> getUltimoDeadlock() {
+        return ultimoDeadlock;
+    }
+}
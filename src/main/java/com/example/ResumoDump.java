@@ -0,0 +1,38 @@
+package com.example;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Resultado da análise de um dump pelo {@link AnalisadorDumps}: onde está, o
+ * tamanho do grafo e as threads em deadlock.
+ */
+final class ResumoDump {
+    final Path arquivo;
+    final int ordemArquivo;
+    // Posição da linha "Full thread dump" no arquivo.
+    final long deslocamento;
+    // Data e hora escritas antes do cabeçalho, ou vazio.
+    final String instante;
+    final int threads;
+    final int travas;
+    final int esperas;
+    // O próprio jstack acrescentou um relatório de deadlock.
+    final boolean relatorioJvm;
+    // Uma linha por thread em deadlock: nome, trava esperada e quem a detém.
+    final List<String> emDeadlock;
+
+    ResumoDump(Path arquivo, int ordemArquivo, long deslocamento, String instante, int threads, int travas,
+               int esperas, boolean relatorioJvm, List<String> emDeadlock) {
+        this.arquivo = arquivo;
+        this.ordemArquivo = ordemArquivo;
+        this.deslocamento = deslocamento;
+        this.instante = instante;
+        this.threads = threads;
+        this.travas = travas;
+        this.esperas = esperas;
+        this.relatorioJvm = relatorioJvm;
+        this.emDeadlock = Collections.unmodifiableList(emDeadlock);
+    }
+}
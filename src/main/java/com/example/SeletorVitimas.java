@@ -0,0 +1,175 @@
+package com.example;
+
+import java.util.Arrays;
+
+/**
+ * Escolhe, entre os processos em deadlock, as vítimas da recuperação. Os
+ * demais processos conseguem terminar, então o trabalho de partida é o total
+ * de cada recurso menos o que os candidatos detêm, e a redução só precisa
+ * olhar os candidatos.
+ *
+ * Achar o conjunto de custo mínimo exato é NP-difícil (conjunto de vértices de
+ * realimentação), então a escolha é gulosa: sacrifica o candidato mais barato
+ * ainda preso e continua a redução com o que ele devolveu, até ninguém ficar
+ * preso. Depois, do mais caro para o mais barato, dispensa as vítimas sem as
+ * quais os outros ainda conseguem terminar; o resultado não tem vítimas
+ * supérfluas.
+ */
+class SeletorVitimas {
+
+    private final int[] trabalhoInicial;
+
+    private int n;
+    private int[] ids = new int[8];
+    private long[] custos = new long[8];
+    private int[] reinicios = new int[8];
+    private int[][] recursosAlocados = new int[8][];
+    private int[][] quantidadesAlocadas = new int[8][];
+    private int[][] recursosRequisitados = new int[8][];
+    private int[][] quantidadesRequisitadas = new int[8][];
+
+    SeletorVitimas(int[] quantidadesTotais) {
+        this.trabalhoInicial = quantidadesTotais.clone();
+    }
+
+    // Copia as linhas do candidato; chamado com o estado travado.
+    void adicionar(int idProcesso, long custo, int numReinicios, LinhaEsparsa alocacao, LinhaEsparsa requisicao) {
+        if (n == ids.length) {
+            int capacidade = n * 2;
+            ids = Arrays.copyOf(ids, capacidade);
+            custos = Arrays.copyOf(custos, capacidade);
+            reinicios = Arrays.copyOf(reinicios, capacidade);
+            recursosAlocados = Arrays.copyOf(recursosAlocados, capacidade);
+            quantidadesAlocadas = Arrays.copyOf(quantidadesAlocadas, capacidade);
+            recursosRequisitados = Arrays.copyOf(recursosRequisitados, capacidade);
+            quantidadesRequisitadas = Arrays.copyOf(quantidadesRequisitadas, capacidade);
+        }
+        ids[n] = idProcesso;
+        custos[n] = custo;
+        reinicios[n] = numReinicios;
+        synchronized (alocacao) {
+            recursosAlocados[n] = new int[alocacao.tamanho()];
+            quantidadesAlocadas[n] = new int[alocacao.tamanho()];
+            for (int k = 0; k < alocacao.tamanho(); k++) {
+                recursosAlocados[n][k] = alocacao.recursoNa(k);
+                quantidadesAlocadas[n][k] = alocacao.quantidadeNa(k);
+                trabalhoInicial[alocacao.recursoNa(k)] -= alocacao.quantidadeNa(k);
+            }
+        }
+        synchronized (requisicao) {
+            recursosRequisitados[n] = new int[requisicao.tamanho()];
+            quantidadesRequisitadas[n] = new int[requisicao.tamanho()];
+            for (int k = 0; k < requisicao.tamanho(); k++) {
+                recursosRequisitados[n][k] = requisicao.recursoNa(k);
+                quantidadesRequisitadas[n][k] = requisicao.quantidadeNa(k);
+            }
+        }
+        n++;
+    }
+
+    // Retorna os IDs das vítimas; vazio se nenhum candidato continua em deadlock.
+    int[] escolher() {
+        boolean[] vitima = new boolean[n];
+        boolean[] terminado = new boolean[n];
+        int[] trabalho = trabalhoInicial.clone();
+        reduzir(terminado, trabalho);
+        while (true) {
+            int escolhido = -1;
+            for (int i = 0; i < n; i++) {
+                if (!terminado[i] && (escolhido < 0 || maisBarato(i, escolhido))) {
+                    escolhido = i;
+                }
+            }
+            if (escolhido < 0) {
+                break;
+            }
+            vitima[escolhido] = true;
+            terminado[escolhido] = true;
+            devolver(escolhido, trabalho);
+            reduzir(terminado, trabalho);
+        }
+
+        Integer[] ordem = new Integer[n];
+        int numVitimas = 0;
+        for (int i = 0; i < n; i++) {
+            if (vitima[i]) {
+                ordem[numVitimas++] = i;
+            }
+        }
+        Arrays.sort(ordem, 0, numVitimas, (a, b) -> maisBarato(a, b) ? 1 : maisBarato(b, a) ? -1 : 0);
+        for (int k = 0; k < numVitimas; k++) {
+            int v = ordem[k];
+            vitima[v] = false;
+            if (!resolve(vitima)) {
+                vitima[v] = true;
+            }
+        }
+
+        int[] resultado = new int[n];
+        int total = 0;
+        for (int i = 0; i < n; i++) {
+            if (vitima[i]) {
+                resultado[total++] = ids[i];
+            }
+        }
+        return Arrays.copyOf(resultado, total);
+    }
+
+    // Menor custo; no empate, menos reinícios e depois o ID maior (o processo mais recente).
+    private boolean maisBarato(int a, int b) {
+        if (custos[a] != custos[b]) {
+            return custos[a] < custos[b];
+        }
+        if (reinicios[a] != reinicios[b]) {
+            return reinicios[a] < reinicios[b];
+        }
+        return ids[a] > ids[b];
+    }
+
+    private boolean resolve(boolean[] vitima) {
+        boolean[] terminado = vitima.clone();
+        int[] trabalho = trabalhoInicial.clone();
+        for (int i = 0; i < n; i++) {
+            if (vitima[i]) {
+                devolver(i, trabalho);
+            }
+        }
+        reduzir(terminado, trabalho);
+        for (boolean t : terminado) {
+            if (!t) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Passadas sobre os candidatos até nenhum mais poder terminar com o trabalho atual.
+    private void reduzir(boolean[] terminado, int[] trabalho) {
+        boolean progrediu;
+        do {
+            progrediu = false;
+            for (int i = 0; i < n; i++) {
+                if (!terminado[i] && podeTerminar(i, trabalho)) {
+                    terminado[i] = true;
+                    devolver(i, trabalho);
+                    progrediu = true;
+                }
+            }
+        } while (progrediu);
+    }
+
+    private boolean podeTerminar(int i, int[] trabalho) {
+        for (int k = 0; k < recursosRequisitados[i].length; k++) {
+            if (quantidadesRequisitadas[i][k] > trabalho[recursosRequisitados[i][k]]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void devolver(int i, int[] trabalho) {
+        for (int k = 0; k < recursosAlocados[i].length; k++) {
+            trabalho[recursosAlocados[i][k]] += quantidadesAlocadas[i][k];
+        }
+    }
+}
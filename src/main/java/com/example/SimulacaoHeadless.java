@@ -0,0 +1,296 @@
+package com.example;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executa o {@link MotorDeadlock} sem interface gráfica para medir a vazão de
+ * solicitações/liberações. Cada thread faz o papel de um processo que segura no
+ * máximo um recurso por vez, portanto a carga nunca entra em deadlock.
+ *
+ * Uso: java -cp target/classes com.example.SimulacaoHeadless [processos] [recursos] [instancias] [operacoes] [modo]
+ *      java -cp target/classes com.example.SimulacaoHeadless virtual [processos] [recursos] [instancias] [horas] [semente] [dt] [alocacao] [recuperacao]
+ *      java -cp target/classes com.example.SimulacaoHeadless reproduzir diario [detectarACada] [algoritmo]
+ *      java -cp target/classes com.example.SimulacaoHeadless dumps arquivo...
+ *
+ * O segundo simula as horas indicadas num relógio virtual; ΔTs e ΔTu de cada processo são sorteados
+ * a partir da semente, e a impressão digital final é a mesma sempre que a semente se repete.
+ * Com alocacao = BANQUEIRO as concessões passam pela verificação de estado seguro; com recuperacao =
+ * PREEMPCAO ou TERMINO cada deadlock detectado é desfeito sacrificando as vítimas de menor custo.
+ * O terceiro reaplica um diário de eventos num motor novo, detectando a cada 'detectarACada' eventos
+ * (padrão 0: só ao final), e mostra a vazão da reprodução e as divergências em relação ao gravado.
+ * O quarto analisa arquivos de thread dumps (jstack -l, jcmd Thread.print -l) com {@link AnalisadorDumps}, em
+ * paralelo em todos os núcleos, e mostra os dumps com deadlock e a vazão da leitura.
+ * Com -Ddeadlock.diario=arquivo a primeira e a segunda forma gravam as operações nesse diário.
+ *
+ * As métricas do motor ficam no MBean com.example:type=MotorDeadlock,name=headless; com
+ * -Ddeadlock.metricas.csv=arquivo também são gravadas em CSV a cada deadlock.metricas.intervalo segundos.
+ */
+public class SimulacaoHeadless {
+
+    public static void main(String[] args) throws InterruptedException {
+        if (args.length > 0 && args[0].equals("virtual")) {
+            int numProcessos = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+            int numRecursos = args.length > 2 ? Integer.parseInt(args[2]) : 50;
+            int instancias = args.length > 3 ? Integer.parseInt(args[3]) : 100;
+            long horas = args.length > 4 ? Long.parseLong(args[4]) : 24;
+            long semente = args.length > 5 ? Long.parseLong(args[5]) : 42;
+            long dt = args.length > 6 ? Long.parseLong(args[6]) : 60;
+            ModoAlocacao alocacao = args.length > 7 ? ModoAlocacao.valueOf(args[7]) : ModoAlocacao.IMEDIATA;
+            ModoRecuperacao recuperacao = args.length > 8 ? ModoRecuperacao.valueOf(args[8]) : ModoRecuperacao.MANUAL;
+            simularTempoVirtual(numProcessos, numRecursos, instancias, horas, semente, dt, alocacao, recuperacao);
+            return;
+        }
+
+        if (args.length > 1 && args[0].equals("reproduzir")) {
+            long detectarACada = args.length > 2 ? Long.parseLong(args[2]) : 0;
+            AlgoritmoDeteccao algoritmo = args.length > 3 ? AlgoritmoDeteccao.valueOf(args[3]) : AlgoritmoDeteccao.LISTA_TRABALHO;
+            try {
+                reproduzirDiario(Paths.get(args[1]), detectarACada, algoritmo);
+            } catch (IOException e) {
+                System.err.println("Falha na reprodução: " + e.getMessage());
+            }
+            return;
+        }
+
+        if (args.length > 1 && args[0].equals("dumps")) {
+            List<Path> arquivos = new ArrayList<>();
+            for (int i = 1; i < args.length; i++) {
+                arquivos.add(Paths.get(args[i]));
+            }
+            try {
+                analisarDumps(arquivos);
+            } catch (IOException e) {
+                System.err.println("Falha na análise: " + e.getMessage());
+            }
+            return;
+        }
+
+        int numProcessos = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        int numRecursos = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int instancias = args.length > 2 ? Integer.parseInt(args[2]) : 2;
+        long operacoes = args.length > 3 ? Long.parseLong(args[3]) : 1_000_000L;
+        ModoConcorrencia modo = args.length > 4 ? ModoConcorrencia.valueOf(args[4]) : ModoConcorrencia.SEMAFORO_GLOBAL;
+
+        MotorDeadlock motor = criarMotor(modo, numProcessos, numRecursos, instancias);
+        motor.getMetricas().exportar("headless");
+        iniciarDiarioSeConfigurado(motor);
+        long porProcesso = operacoes / numProcessos;
+        long duracaoNs = executar(motor, numRecursos, porProcesso);
+        encerrarDiario(motor);
+
+        // Cada ciclo é uma solicitação e uma liberação.
+        long total = porProcesso * numProcessos * 2;
+        System.out.printf("%s, %d processos, %d recursos x %d instâncias: %d operações em %.1f ms (%.0f ops/s)%n",
+                modo, numProcessos, numRecursos, instancias, total, duracaoNs / 1e6, total / (duracaoNs / 1e9));
+
+        List<Integer> deadlock = motor.detectarDeadlock();
+        System.out.println("Processos em deadlock ao final: " + deadlock);
+        imprimirMetricas(motor.getMetricas());
+    }
+
+    static void imprimirMetricas(MetricasMotor m) {
+        System.out.printf("Espera pela trava: p50 %.1f us, p99 %.1f us, máx %.1f us%n",
+                m.getEsperaTravaP50Us(), m.getEsperaTravaP99Us(), m.getEsperaTravaMaxUs());
+        System.out.printf("Tempo bloqueado: p50 %.1f us, p99 %.1f us, máx %.1f us (%d bloqueios)%n",
+                m.getTempoBloqueadoP50Us(), m.getTempoBloqueadoP99Us(), m.getTempoBloqueadoMaxUs(), m.getBloqueios());
+        System.out.printf("Detecção: %d execuções, p50 %.1f us, p99 %.1f us; trava p99 %.1f us; %d com deadlock%n",
+                m.getDeteccoes(), m.getDeteccaoP50Us(), m.getDeteccaoP99Us(), m.getTravaDeteccaoP99Us(),
+                m.getDeteccoesComDeadlock());
+        if (m.getRecuperacoes() > 0) {
+            System.out.printf("Recuperação: %d execuções, %d vítimas, p50 %.1f us, p99 %.1f us; %d operações desfeitas "
+                            + "(%.2f%% da vazão), %.0f s de trabalho desfeito%n",
+                    m.getRecuperacoes(), m.getVitimas(), m.getRecuperacaoP50Us(), m.getRecuperacaoP99Us(),
+                    m.getOperacoesDesfeitas(), 100.0 * m.getOperacoesDesfeitas() / Math.max(1, m.getOperacoes()),
+                    m.getTrabalhoDesfeitoS());
+        }
+        m.fechar();
+    }
+
+    static void simularTempoVirtual(int numProcessos, int numRecursos, int instancias, long horas, long semente, long dt,
+                                    ModoAlocacao alocacao, ModoRecuperacao recuperacao) {
+        MotorDeadlock motor = new MotorDeadlock();
+        motor.setModoAlocacao(alocacao);
+        motor.setModoRecuperacao(recuperacao);
+        for (int r = 0; r < numRecursos; r++) {
+            motor.adicionarRecurso("R" + (r + 1), r + 1, instancias);
+        }
+        Random sorteio = new Random(semente);
+        for (int p = 1; p <= numProcessos; p++) {
+            motor.adicionarProcesso(p, 1 + sorteio.nextInt(60), 1 + sorteio.nextInt(120));
+        }
+        motor.getMetricas().exportar("headless");
+        long[] verificacoesComDeadlock = new long[1];
+        motor.adicionarOuvinte(new OuvinteMotor() {
+            @Override
+            public void deadlockVerificado(List<Integer> processosEmDeadlock) {
+                if (!processosEmDeadlock.isEmpty()) {
+                    verificacoesComDeadlock[0]++;
+                }
+            }
+        });
+
+        iniciarDiarioSeConfigurado(motor);
+        long inicio = System.nanoTime();
+        List<Integer> deadlock = motor.simularTempoVirtual(dt, TimeUnit.HOURS.toSeconds(horas), semente);
+        long duracaoNs = System.nanoTime() - inicio;
+        encerrarDiario(motor);
+
+        // Resume o estado final; duas execuções com a mesma semente devem dar o mesmo valor.
+        long impressao = motor.getOperacoes();
+        for (int p = 1; p <= numProcessos; p++) {
+            impressao = impressao * 31 + motor.getRecursosAlocadosString(p).hashCode();
+        }
+        impressao = impressao * 31 + deadlock.hashCode();
+
+        System.out.printf("%d h simuladas em %.2f s: %d processos, %d operações, %d verificações com deadlock, "
+                        + "%d processos em deadlock ao final, impressão digital %016x%n",
+                horas, duracaoNs / 1e9, numProcessos, motor.getOperacoes(), verificacoesComDeadlock[0],
+                deadlock.size(), impressao);
+        AvaliadorBanqueiro banqueiro = motor.getBanqueiro();
+        if (banqueiro != null) {
+            System.out.printf("Banqueiro: %d verificações imediatas, %d por prefixo, %d completas, %d recusas%n",
+                    banqueiro.verificacoesImediatas, banqueiro.verificacoesPorPrefixo,
+                    banqueiro.verificacoesCompletas, banqueiro.recusas);
+        }
+        imprimirMetricas(motor.getMetricas());
+    }
+
+    static void reproduzirDiario(Path diario, long detectarACada, AlgoritmoDeteccao algoritmo) throws IOException {
+        MotorDeadlock motor = new MotorDeadlock();
+        motor.setAlgoritmoDeteccao(algoritmo);
+        ReprodutorDiario reprodutor = new ReprodutorDiario(motor);
+        reprodutor.reproduzir(diario, detectarACada, new long[0]);
+
+        long duracaoNs = reprodutor.getTempoTotalNs();
+        System.out.printf("%d eventos reproduzidos em %.1f ms (%.0f eventos/s, %.0fx o tempo gravado de %.1f s)%n",
+                reprodutor.getEventos(), duracaoNs / 1e6, reprodutor.getEventos() / (duracaoNs / 1e9),
+                reprodutor.getDuracaoGravadaNs() / (double) duracaoNs, reprodutor.getDuracaoGravadaNs() / 1e9);
+        System.out.printf("Detecção (%s): %d execuções em %.1f ms, %d com deadlock; %d processos em deadlock ao final%n",
+                algoritmo, reprodutor.getDeteccoes(), reprodutor.getTempoDeteccaoNs() / 1e6,
+                reprodutor.getDeteccoesComDeadlock(), reprodutor.getUltimoDeadlock().size());
+        System.out.println(reprodutor.getDivergencias() == 0 ? "Nenhuma divergência em relação ao gravado."
+                : reprodutor.getDivergencias() + " divergências; a primeira no evento " + reprodutor.getPrimeiraDivergencia() + ".");
+    }
+
+    static void analisarDumps(List<Path> arquivos) throws IOException {
+        AnalisadorDumps analisador = new AnalisadorDumps(Runtime.getRuntime().availableProcessors());
+        List<ResumoDump> resumos = analisador.analisar(arquivos);
+        int comDeadlock = 0;
+        int divergentes = 0;
+        for (ResumoDump r : resumos) {
+            boolean detectou = !r.emDeadlock.isEmpty();
+            // O jstack só relata ciclos; a detecção também pega quem detém algo e espera por um ciclo.
+            if (detectou != r.relatorioJvm) {
+                divergentes++;
+            }
+            if (!detectou) {
+                continue;
+            }
+            comDeadlock++;
+            System.out.printf("%s @%d%s: %d threads, %d travas, %d esperas; %d em deadlock%s%n", r.arquivo, r.deslocamento,
+                    r.instante.isEmpty() ? "" : " (" + r.instante + ")", r.threads, r.travas, r.esperas,
+                    r.emDeadlock.size(), r.relatorioJvm ? "" : " (sem relatório do jstack)");
+            for (String linha : r.emDeadlock) {
+                System.out.println("  " + linha);
+            }
+        }
+        double segundos = analisador.getTempoNs() / 1e9;
+        System.out.printf("%d dumps em %d arquivos, %d com deadlock (%d divergem do relatório do jstack); "
+                        + "%.1f MB em %.2f s (%.0f MB/s)%n",
+                resumos.size(), arquivos.size(), comDeadlock, divergentes, analisador.getBytesLidos() / 1e6, segundos,
+                analisador.getBytesLidos() / 1e6 / segundos);
+    }
+
+    // Com -Ddeadlock.diario=arquivo as operações medidas são gravadas no diário de eventos.
+    private static void iniciarDiarioSeConfigurado(MotorDeadlock motor) {
+        String arquivo = System.getProperty("deadlock.diario");
+        if (arquivo == null) {
+            return;
+        }
+        try {
+            motor.iniciarDiario(Paths.get(arquivo));
+        } catch (IOException e) {
+            System.err.println("Falha ao iniciar o diário: " + e.getMessage());
+        }
+    }
+
+    private static void encerrarDiario(MotorDeadlock motor) {
+        DiarioEventos diario = motor.getDiario();
+        if (diario == null) {
+            return;
+        }
+        try {
+            motor.pararDiario();
+            System.out.printf("Diário: %d eventos, %d fsyncs, %d esperas com o anel cheio%n",
+                    diario.getEventos(), diario.getFsyncs(), diario.getEsperasAnelCheio());
+        } catch (IOException e) {
+            System.err.println("Falha ao fechar o diário: " + e.getMessage());
+        }
+    }
+
+    // VmRSS do Linux; em outros sistemas, o heap em uso.
+    static String memoriaResidente() {
+        try {
+            for (String linha : Files.readAllLines(Paths.get("/proc/self/status"))) {
+                if (linha.startsWith("VmRSS:")) {
+                    return "RSS " + linha.substring("VmRSS:".length()).trim();
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // Sem /proc: usa o heap.
+        }
+        Runtime rt = Runtime.getRuntime();
+        return "heap " + (rt.totalMemory() - rt.freeMemory()) / 1024 + " kB";
+    }
+
+    static MotorDeadlock criarMotor(ModoConcorrencia modo, int numProcessos, int numRecursos, int instancias) {
+        MotorDeadlock motor = new MotorDeadlock();
+        motor.setModoConcorrencia(modo);
+        for (int r = 0; r < numRecursos; r++) {
+            motor.adicionarRecurso("R" + (r + 1), r + 1, instancias);
+        }
+        for (int p = 1; p <= numProcessos; p++) {
+            motor.adicionarProcesso(p, 0, 0);
+        }
+        motor.prepararAlocacao();
+        return motor;
+    }
+
+    // Roda os ciclos de todos os processos em paralelo e retorna a duração em nanossegundos.
+    static long executar(MotorDeadlock motor, int numRecursos, long ciclosPorProcesso) throws InterruptedException {
+        List<Thread> threads = new ArrayList<>();
+        for (Processo p : motor.getProcessos()) {
+            threads.add(new Thread(() -> executarCiclos(motor, p, numRecursos, ciclosPorProcesso), "P" + p.idProcesso));
+        }
+
+        long inicio = System.nanoTime();
+        threads.forEach(Thread::start);
+        for (Thread t : threads) {
+            t.join();
+        }
+        return System.nanoTime() - inicio;
+    }
+
+    static void executarCiclos(MotorDeadlock motor, Processo p, int numRecursos, long ciclos) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        try {
+            for (long c = 0; c < ciclos; c++) {
+                int indice = random.nextInt(numRecursos);
+                if (!motor.solicitarRecurso(p.idProcesso, indice)) {
+                    p.aguardarDesbloqueio();
+                }
+                motor.liberarRecurso(p.idProcesso, indice);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
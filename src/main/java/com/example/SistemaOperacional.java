@@ -0,0 +1,157 @@
+package com.example;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Verificação de deadlock do {@link MotorDeadlock} a cada Δt (modo PERIODICA) ou
+ * em intervalos adaptados aos bloqueios recentes (modo ADAPTATIVA), seguida da
+ * recuperação configurada. Roda numa thread própria ou, no tempo virtual, como
+ * evento do agendador.
+ */
+public class SistemaOperacional implements Runnable {
+    // Limites padrão do modo ADAPTATIVA.
+    static final long INTERVALO_MINIMO_PADRAO_MS = 10;
+    static final int LIMIAR_BLOQUEIOS_PADRAO = 4;
+    static final long LIMIAR_ESPERA_PADRAO_MS = 50;
+
+    // Δt; no modo ADAPTATIVA é o teto do recuo.
+    private final long intervaloNs;
+    private final long intervaloMinimoNs;
+    private final int limiarBloqueios;
+    private final long limiarEsperaNs;
+    private final MotorDeadlock motor;
+    private volatile boolean rodando = true;
+
+    // Estado do modo ADAPTATIVA, só usado pela thread (ou pelos eventos) do SO.
+    private long intervaloAtualNs;
+    private long proximaVerificacao;
+    // Bloqueios já cobertos por uma detecção e instante em que o primeiro bloqueio seguinte foi visto (0 = nenhum).
+    private long bloqueiosVerificados;
+    private long inicioPendencia;
+    private volatile long verificacoes;
+    private volatile long antecipadas;
+    private volatile long dispensadas;
+
+    SistemaOperacional(long intervaloNs, long intervaloMinimoNs, int limiarBloqueios, long limiarEsperaNs,
+                       MotorDeadlock motor) {
+        this.intervaloNs = intervaloNs;
+        this.intervaloMinimoNs = Math.min(intervaloMinimoNs, intervaloNs);
+        this.limiarBloqueios = limiarBloqueios;
+        this.limiarEsperaNs = limiarEsperaNs;
+        this.motor = motor;
+        this.intervaloAtualNs = this.intervaloMinimoNs;
+    }
+
+    @Override
+    public void run() {
+        long atraso = primeiroAtraso(System.nanoTime());
+        while (rodando && !Thread.currentThread().isInterrupted()) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(atraso);
+                atraso = avaliar(System.nanoTime());
+            } catch (InterruptedException e) {
+                rodando = false;
+                Thread.currentThread().interrupt();
+            }
+        }
+        System.out.println("Thread do Sistema Operacional encerrada.");
+    }
+
+    // No tempo virtual não há thread: cada avaliação é um evento que agenda a seguinte.
+    void agendarVerificacao(AgendadorProcessos agendador) {
+        agendarVerificacao(agendador, primeiroAtraso(agendador.agora()));
+    }
+
+    private void agendarVerificacao(AgendadorProcessos agendador, long atraso) {
+        agendador.agendar(agendador.agora() + atraso, () -> {
+            if (rodando) {
+                agendarVerificacao(agendador, avaliar(agendador.agora()));
+            }
+        });
+    }
+
+    private long primeiroAtraso(long agora) {
+        proximaVerificacao = agora + intervaloAtualNs;
+        bloqueiosVerificados = motor.getMetricas().bloqueios.sum();
+        return motor.getModoDeteccao() == ModoDeteccao.ADAPTATIVA ? intervaloMinimoNs : intervaloNs;
+    }
+
+    // Executa o que for devido no instante 'agora' e retorna o atraso até a próxima avaliação.
+    // O modo de detecção pode mudar durante a simulação, por isso é lido a cada vez.
+    private long avaliar(long agora) {
+        switch (motor.getModoDeteccao()) {
+            case PERIODICA:
+                verificacoes++;
+                motor.recuperarDeadlock(motor.detectarDeadlock());
+                return intervaloNs;
+            case ADAPTATIVA:
+                return avaliarAdaptativa(agora);
+            default:
+                // No modo incremental os deadlocks já são reportados no momento do bloqueio.
+                return intervaloNs;
+        }
+    }
+
+    // Amostra a cada intervalo mínimo dois contadores do motor, sem trava. A redução é antecipada
+    // quando os bloqueios ainda não verificados passam do limiar, ou quando o mais antigo deles
+    // (visto na amostragem) já dura o limiar de espera. Antecipada ou no prazo, ela só roda se há
+    // processos bloqueados agora: sem eles não há deadlock a achar. Cada redução sem deadlock dobra
+    // o intervalo até Δt; um deadlock desfeito pela recuperação o volta ao mínimo, pois a saída das
+    // vítimas costuma provocar novos bloqueios.
+    private long avaliarAdaptativa(long agora) {
+        MetricasMotor metricas = motor.getMetricas();
+        long novos = metricas.bloqueios.sum() - bloqueiosVerificados;
+        if (novos > 0 && inicioPendencia == 0) {
+            inicioPendencia = agora;
+        }
+        boolean antecipar = novos >= limiarBloqueios || novos > 0 && agora - inicioPendencia >= limiarEsperaNs;
+        boolean vencida = agora - proximaVerificacao >= 0;
+        if (!antecipar && !vencida) {
+            return Math.min(intervaloMinimoNs, proximaVerificacao - agora);
+        }
+        // Contados antes da redução: bloqueios que ocorrerem durante ela ficam para a próxima.
+        bloqueiosVerificados += novos;
+        inicioPendencia = 0;
+        if (metricas.bloqueadosAgora.sum() > 0) {
+            if (!vencida) {
+                antecipadas++;
+            }
+            verificacoes++;
+            boolean desfeito = !motor.recuperarDeadlock(motor.detectarDeadlock()).isEmpty();
+            intervaloAtualNs = desfeito ? intervaloMinimoNs : Math.min(intervaloAtualNs * 2, intervaloNs);
+            proximaVerificacao = agora + intervaloAtualNs;
+        } else if (vencida) {
+            // Os bloqueios pendentes, se houve, já se desfizeram.
+            dispensadas++;
+            intervaloAtualNs = Math.min(intervaloAtualNs * 2, intervaloNs);
+            proximaVerificacao = agora + intervaloAtualNs;
+        }
+        return Math.max(1, Math.min(intervaloMinimoNs, proximaVerificacao - agora));
+    }
+
+    void parar() {
+        rodando = false;
+    }
+
+    public boolean isAlive() {
+        return rodando && !Thread.currentThread().isInterrupted();
+    }
+
+    long getVerificacoes() {
+        return verificacoes;
+    }
+
+    // Reduções disparadas pelos limiares antes do prazo.
+    long getAntecipadas() {
+        return antecipadas;
+    }
+
+    // Prazos vencidos sem processos bloqueados, em que a redução não precisou rodar.
+    long getDispensadas() {
+        return dispensadas;
+    }
+
+    long getIntervaloAtualNs() {
+        return intervaloAtualNs;
+    }
+}
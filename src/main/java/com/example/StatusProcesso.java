@@ -0,0 +1,9 @@
+package com.example;
+
+/**
+ * Situação de um {@link Processo} simulado.
+ */
+public enum StatusProcesso {
+    EXECUTANDO,
+    BLOQUEADO
+}
@@ -1,6 +1,9 @@
 module com.example {
     requires javafx.controls;
     requires javafx.fxml;
+    requires java.management;
+    requires java.management.rmi;
+    requires jdk.management;
 
     opens com.example to javafx.fxml;
     exports com.example;
@@ -0,0 +1,60 @@
+package com.example;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Grava um estado com pedidos sorteados (semente fixa) num {@link ArquivoInstantaneo}, lê-o de volta e
+ * carrega-o num motor novo: a detecção sobre o lido e sobre o motor recarregado deve dar o mesmo
+ * conjunto em deadlock do original, e as alocações de cada processo devem coincidir.
+ */
+class ArquivoInstantaneoTest {
+
+    private static final int PROCESSOS = 2000;
+    private static final int RECURSOS = 100;
+    private static final int INSTANCIAS = 5;
+
+    @Test
+    void gravarELerPreservaOEstado(@TempDir Path pasta) throws IOException {
+        MotorDeadlock motor = new MotorDeadlock();
+        for (int r = 0; r < RECURSOS; r++) {
+            motor.adicionarRecurso("R" + (r + 1), r + 1, INSTANCIAS);
+        }
+        for (int p = 1; p <= PROCESSOS; p++) {
+            motor.adicionarProcesso(p, 0, 0);
+        }
+        motor.prepararAlocacao();
+        // Em rodadas, para que os primeiros processos também esperem pelos que vieram depois.
+        Random sorteio = new Random(42);
+        for (int rodada = 0; rodada < 4; rodada++) {
+            for (int p = 1; p <= PROCESSOS; p++) {
+                if (motor.getProcesso(p).getStatus() == StatusProcesso.EXECUTANDO) {
+                    motor.solicitarRecurso(p, sorteio.nextInt(RECURSOS));
+                }
+            }
+        }
+        List<Integer> original = motor.detectarDeadlock();
+        assertFalse(original.isEmpty(), "a carga sorteada não formou deadlock");
+
+        Path arquivo = pasta.resolve("estado.dlks");
+        motor.salvarEstado(arquivo);
+        ArquivoInstantaneo lido = ArquivoInstantaneo.ler(arquivo);
+        int[] doLido = new DetectorListaTrabalho().detectar(lido.estado);
+        assertArrayEquals(original.stream().mapToInt(Integer::intValue).toArray(), doLido);
+
+        MotorDeadlock recarregado = new MotorDeadlock();
+        recarregado.carregarEstado(arquivo);
+        assertEquals(original, recarregado.detectarDeadlock());
+        for (int p = 1; p <= PROCESSOS; p++) {
+            assertEquals(motor.getRecursosAlocadosString(p), recarregado.getRecursosAlocadosString(p), "P" + p);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Confere que o ciclo solicitação/uso/liberação dos {@link Processo}s não aloca: roda uma simulação em
+ * tempo virtual sem verificações e, depois do aquecimento (as filas de espera e as linhas do estado ainda
+ * crescem até o tamanho de regime), mede os bytes alocados pela thread da simulação e grava os eventos de
+ * alocação do JFR, que apontam os pontos do código responsáveis se houver alguma.
+ */
+class CicloSemAlocacaoTest {
+
+    private static final int PROCESSOS = 200;
+    private static final int RECURSOS = 20;
+    private static final int INSTANCIAS = 60;
+    private static final int AQUECIMENTO_S = 3;
+    private static final int JANELA_S = 2;
+
+    @Test
+    void cicloDosProcessosNaoAloca() throws Exception {
+        MotorDeadlock motor = new MotorDeadlock();
+        for (int r = 0; r < RECURSOS; r++) {
+            motor.adicionarRecurso("R" + (r + 1), r + 1, INSTANCIAS);
+        }
+        Random sorteio = new Random(42);
+        for (int p = 1; p <= PROCESSOS; p++) {
+            motor.adicionarProcesso(p, 1 + sorteio.nextInt(60), 1 + sorteio.nextInt(120));
+        }
+        // Verificação e duração tão longas que a janela medida só vê o ciclo dos processos.
+        long duracao = TimeUnit.DAYS.toSeconds(365 * 1000);
+        Thread simulacao = new Thread(() -> motor.simularTempoVirtual(duracao, duracao, 42), "simulacao-virtual");
+        simulacao.setDaemon(true);
+        simulacao.start();
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        TimeUnit.SECONDS.sleep(AQUECIMENTO_S);
+        Path arquivo = Files.createTempFile("alocacoes", ".jfr");
+        long bytes;
+        long operacoes;
+        Instant inicioJanela;
+        try (Recording gravacao = new Recording()) {
+            gravacao.enable("jdk.ObjectAllocationInNewTLAB").withStackTrace();
+            gravacao.enable("jdk.ObjectAllocationOutsideTLAB").withStackTrace();
+            // O próprio JFR aloca nas threads quando a gravação começa; a janela medida vem depois.
+            gravacao.start();
+            TimeUnit.SECONDS.sleep(1);
+            inicioJanela = Instant.now();
+            long bytesAntes = threads.getThreadAllocatedBytes(simulacao.getId());
+            long operacoesAntes = motor.getOperacoes();
+            TimeUnit.SECONDS.sleep(JANELA_S);
+            gravacao.stop();
+            bytes = threads.getThreadAllocatedBytes(simulacao.getId()) - bytesAntes;
+            operacoes = motor.getOperacoes() - operacoesAntes;
+            gravacao.dump(arquivo);
+        } finally {
+            motor.getProcessos().forEach(Processo::parar);
+        }
+        try {
+            assertTrue(operacoes > 0, "a simulação parou antes da janela medida (todos os processos em deadlock?)");
+            Map<String, Long> porQuadro = alocacoesPorQuadro(arquivo, simulacao.getId(), inicioJanela);
+            assertEquals(Map.of(), porQuadro, "eventos de alocação do JFR na thread da simulação");
+            assertEquals(0, bytes, "bytes alocados pela thread da simulação em " + operacoes + " operações");
+        } finally {
+            Files.deleteIfExists(arquivo);
+        }
+    }
+
+    // Bytes alocados pela thread, agrupados pelo primeiro quadro do projeto na pilha.
+    private static Map<String, Long> alocacoesPorQuadro(Path arquivo, long idThread, Instant inicio) throws Exception {
+        Map<String, Long> porQuadro = new TreeMap<>();
+        for (RecordedEvent evento : RecordingFile.readAllEvents(arquivo)) {
+            if (evento.getThread("eventThread") == null || evento.getStartTime().isBefore(inicio)
+                    || evento.getThread("eventThread").getJavaThreadId() != idThread) {
+                continue;
+            }
+            String quadro = "(fora do projeto)";
+            for (RecordedFrame f : evento.getStackTrace() != null ? evento.getStackTrace().getFrames() : List.<RecordedFrame>of()) {
+                if (f.getMethod().getType().getName().startsWith("com.example.")) {
+                    quadro = f.getMethod().getType().getName() + "." + f.getMethod().getName() + ":" + f.getLineNumber();
+                    break;
+                }
+            }
+            porQuadro.merge(quadro, evento.getLong("allocationSize"), Long::sum);
+        }
+        return porQuadro;
+    }
+}
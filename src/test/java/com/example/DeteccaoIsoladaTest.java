@@ -0,0 +1,90 @@
+package com.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+/**
+ * Detecção contínua em cada {@link ModoIsolamento} enquanto processos ativos pedem e liberam unidades
+ * sem parar: os ativos nunca bloqueiam e os ociosos só detêm, então toda redução, concorrente ou não,
+ * deve achar exatamente o par em deadlock nos dois recursos de instância única.
+ */
+class DeteccaoIsoladaTest {
+
+    private static final int ATIVOS = 4;
+    private static final int OCIOSOS = 5000;
+    private static final int RECURSOS = 20;
+    private static final long CICLOS = 20_000;
+
+    @ParameterizedTest
+    @EnumSource(ModoIsolamento.class)
+    void detectaSoOParDuranteOsCiclos(ModoIsolamento isolamento) throws InterruptedException {
+        for (ModoConcorrencia concorrencia : ModoConcorrencia.values()) {
+            MotorDeadlock motor = criarEstadoGrande(concorrencia);
+            motor.setModoIsolamento(isolamento);
+            List<Integer> par = List.of(ATIVOS + OCIOSOS + 1, ATIVOS + OCIOSOS + 2);
+            List<List<Integer>> errados = new CopyOnWriteArrayList<>();
+            AtomicLong deteccoes = new AtomicLong();
+            AtomicBoolean ciclando = new AtomicBoolean(true);
+            Thread detector = new Thread(() -> {
+                while (ciclando.get()) {
+                    List<Integer> achados = motor.detectarDeadlock();
+                    deteccoes.incrementAndGet();
+                    if (!achados.equals(par)) {
+                        errados.add(achados);
+                    }
+                }
+            }, "detector");
+            detector.start();
+            List<Thread> ativos = new ArrayList<>();
+            for (int id = 1; id <= ATIVOS; id++) {
+                Processo p = motor.getProcesso(id);
+                ativos.add(new Thread(() -> SimulacaoHeadless.executarCiclos(motor, p, RECURSOS, CICLOS), "P" + id));
+            }
+            ativos.forEach(Thread::start);
+            for (Thread t : ativos) {
+                t.join();
+            }
+            ciclando.set(false);
+            detector.join();
+
+            assertTrue(deteccoes.get() > 0, concorrencia + ": nenhuma detecção durante os ciclos");
+            assertEquals(List.of(), errados, concorrencia + ": reduções com outro resultado");
+            assertEquals(par, motor.detectarDeadlock(), concorrencia.name());
+            motor.getMetricas().fechar();
+        }
+    }
+
+    // Processos 1..ATIVOS ficam livres para os ciclos; cada ocioso detém uma unidade e os dois
+    // últimos disputam X e Y, de instância única, que os ativos não usam.
+    private static MotorDeadlock criarEstadoGrande(ModoConcorrencia concorrencia) {
+        MotorDeadlock motor = new MotorDeadlock();
+        motor.setModoConcorrencia(concorrencia);
+        int instancias = OCIOSOS / RECURSOS + ATIVOS + 1;
+        for (int r = 0; r < RECURSOS; r++) {
+            motor.adicionarRecurso("R" + (r + 1), r + 1, instancias);
+        }
+        motor.adicionarRecurso("X", RECURSOS + 1, 1);
+        motor.adicionarRecurso("Y", RECURSOS + 2, 1);
+        int total = ATIVOS + OCIOSOS + 2;
+        for (int p = 1; p <= total; p++) {
+            motor.adicionarProcesso(p, 0, 0);
+        }
+        motor.prepararAlocacao();
+        for (int p = ATIVOS + 1; p <= ATIVOS + OCIOSOS; p++) {
+            motor.solicitarRecurso(p, p % RECURSOS);
+        }
+        motor.solicitarRecurso(total - 1, RECURSOS);
+        motor.solicitarRecurso(total, RECURSOS + 1);
+        motor.solicitarRecurso(total - 1, RECURSOS + 1);
+        motor.solicitarRecurso(total, RECURSOS);
+        return motor;
+    }
+}
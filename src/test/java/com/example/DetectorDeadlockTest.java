@@ -0,0 +1,130 @@
+package com.example;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Confere que a lista de trabalho e o detector paralelo encontram exatamente o conjunto em deadlock
+ * do {@link DetectorReducao} em estados sorteados, de poucos a centenas de processos.
+ */
+class DetectorDeadlockTest {
+
+    private static final long SEMENTE = 42;
+    private static final int ESTADOS = 20_000;
+
+    private ForkJoinPool pool;
+
+    @BeforeEach
+    void criarPool() {
+        // Várias threads, mesmo numa máquina de um núcleo, para as rodadas do detector paralelo
+        // realmente se intercalarem.
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterEach
+    void encerrarPool() {
+        pool.shutdown();
+    }
+
+    @Test
+    void listaDeTrabalhoEquivaleAReducao() {
+        conferir(new DetectorListaTrabalho());
+    }
+
+    @Test
+    void paraleloEquivaleAReducao() {
+        conferir(new DetectorParalelo(pool));
+    }
+
+    private static void conferir(DetectorDeadlock detector) {
+        SplittableRandom sorteio = new SplittableRandom(SEMENTE);
+        DetectorDeadlock referencia = new DetectorReducao();
+        int comDeadlock = 0;
+        for (int e = 0; e < ESTADOS; e++) {
+            InstantaneoAlocacao estado = sortearEstado(sorteio);
+            int[] esperado = referencia.detectar(estado);
+            if (esperado.length > 0) {
+                comDeadlock++;
+            }
+            int indice = e;
+            assertArrayEquals(esperado, detector.detectar(estado),
+                    () -> "estado " + indice + " (semente " + SEMENTE + ")\n" + descrever(estado));
+        }
+        // Sem estados com deadlock a comparação não diria nada.
+        assertTrue(comDeadlock > ESTADOS / 10, "só " + comDeadlock + " estados com deadlock");
+    }
+
+    // Quase todas as unidades ficam alocadas e a maioria dos processos pede mais, para que boa parte
+    // dos estados tenha deadlock. Os IDs saem embaralhados, como nos slots reaproveitados do estado vivo.
+    private static InstantaneoAlocacao sortearEstado(SplittableRandom sorteio) {
+        int numProcessos = sorteio.nextInt(4) == 0 ? 1 + sorteio.nextInt(400) : 1 + sorteio.nextInt(12);
+        int numRecursos = 1 + sorteio.nextInt(sorteio.nextBoolean() ? 4 : 40);
+        int[][] alocacao = new int[numProcessos][numRecursos];
+        int[] disponivel = new int[numRecursos];
+        for (int r = 0; r < numRecursos; r++) {
+            int total = 1 + sorteio.nextInt(4);
+            for (int u = 0; u < total; u++) {
+                if (sorteio.nextInt(100) < 80) {
+                    alocacao[sorteio.nextInt(numProcessos)][r]++;
+                } else {
+                    disponivel[r]++;
+                }
+            }
+        }
+        int[] ids = new int[numProcessos];
+        for (int i = 0; i < numProcessos; i++) {
+            ids[i] = i + 1;
+        }
+        for (int i = numProcessos - 1; i > 0; i--) {
+            int j = sorteio.nextInt(i + 1);
+            int t = ids[i];
+            ids[i] = ids[j];
+            ids[j] = t;
+        }
+        InstantaneoAlocacao.Construtor construtor = new InstantaneoAlocacao.Construtor(disponivel);
+        int[] pedido = new int[numRecursos];
+        for (int i = 0; i < numProcessos; i++) {
+            construtor.novoProcesso(ids[i]);
+            for (int r = 0; r < numRecursos; r++) {
+                if (alocacao[i][r] > 0) {
+                    construtor.alocacao(r, alocacao[i][r]);
+                }
+            }
+            Arrays.fill(pedido, 0);
+            if (sorteio.nextInt(100) < 50) {
+                for (int k = 1 + sorteio.nextInt(3); k > 0; k--) {
+                    pedido[sorteio.nextInt(numRecursos)] = 1 + sorteio.nextInt(3);
+                }
+            }
+            for (int r = 0; r < numRecursos; r++) {
+                if (pedido[r] > 0) {
+                    construtor.requisicao(r, pedido[r]);
+                }
+            }
+        }
+        return construtor.construir();
+    }
+
+    private static String descrever(InstantaneoAlocacao estado) {
+        StringBuilder sb = new StringBuilder("disponível ").append(Arrays.toString(estado.disponivel));
+        for (int i = 0; i < estado.numProcessos(); i++) {
+            sb.append("\nP").append(estado.ids[i]).append(" aloca");
+            for (int k = estado.inicioAlocacao[i]; k < estado.inicioAlocacao[i + 1]; k++) {
+                sb.append(' ').append(estado.recursosAlocados[k]).append('x').append(estado.quantidadesAlocadas[k]);
+            }
+            sb.append(", pede");
+            for (int k = estado.inicioRequisicao[i]; k < estado.inicioRequisicao[i + 1]; k++) {
+                sb.append(' ').append(estado.recursosRequisitados[k]).append('x')
+                        .append(estado.quantidadesRequisitadas[k]);
+            }
+        }
+        return sb.toString();
+    }
+}
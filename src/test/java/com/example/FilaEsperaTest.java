@@ -0,0 +1,53 @@
+package com.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+/**
+ * Confere a ordem de chegada nas filas de espera quando um processo bloqueado sai da fila (preemptado,
+ * ou removido e recriado com o mesmo ID) e volta a esperar pelo mesmo recurso: ele não pode passar
+ * na frente de quem já esperava.
+ */
+class FilaEsperaTest {
+
+    @ParameterizedTest
+    @EnumSource(ModoConcorrencia.class)
+    void preemptadoVoltaAoFimDaFila(ModoConcorrencia modo) {
+        MotorDeadlock motor = bloquearDoisAtrasDoPrimeiro(modo);
+        motor.preemptarProcesso(2);
+        conferirOrdem(motor);
+    }
+
+    @ParameterizedTest
+    @EnumSource(ModoConcorrencia.class)
+    void recriadoVoltaAoFimDaFila(ModoConcorrencia modo) {
+        MotorDeadlock motor = bloquearDoisAtrasDoPrimeiro(modo);
+        motor.removerProcesso(2);
+        motor.adicionarProcesso(2, 0, 0);
+        conferirOrdem(motor);
+    }
+
+    // P1 detém a única unidade de R1; P2 e P3 esperam por ela nessa ordem.
+    private static MotorDeadlock bloquearDoisAtrasDoPrimeiro(ModoConcorrencia modo) {
+        MotorDeadlock motor = new MotorDeadlock();
+        motor.setModoConcorrencia(modo);
+        motor.adicionarRecurso("R1", 1, 1);
+        for (int p = 1; p <= 3; p++) {
+            motor.adicionarProcesso(p, 0, 0);
+        }
+        motor.prepararAlocacao();
+        motor.solicitarRecurso(1, 0);
+        motor.solicitarRecurso(2, 0);
+        motor.solicitarRecurso(3, 0);
+        return motor;
+    }
+
+    private static void conferirOrdem(MotorDeadlock motor) {
+        motor.solicitarRecurso(2, 0);
+        motor.liberarRecurso(1, 0);
+        assertEquals(StatusProcesso.EXECUTANDO, motor.getProcesso(3).getStatus(), "R1 deveria ir para P3");
+        assertEquals(StatusProcesso.BLOQUEADO, motor.getProcesso(2).getStatus(), "P2 passou na frente de P3");
+    }
+}
@@ -0,0 +1,56 @@
+package com.example;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Os mesmos pedidos sorteados (semente fixa) vão a um {@link MotorDeadlock} central e a um
+ * {@link GerenciadorDistribuido} com 1, 2, 4 e 8 nós; as decisões de alocação são as mesmas, então a
+ * sondagem deve achar o mesmo conjunto em deadlock que a redução central, rodada após rodada.
+ */
+class GerenciadorDistribuidoTest {
+
+    private static final int PROCESSOS = 2000;
+    private static final int RECURSOS = 1000;
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 4, 8})
+    void sondagemAchaOMesmoQueAReducao(int numNos) throws InterruptedException {
+        MotorDeadlock central = new MotorDeadlock();
+        for (int r = 0; r < RECURSOS; r++) {
+            central.adicionarRecurso("R" + (r + 1), r + 1, 1);
+        }
+        for (int p = 1; p <= PROCESSOS; p++) {
+            central.adicionarProcesso(p, 0, 0);
+        }
+        central.prepararAlocacao();
+        int[] totais = new int[RECURSOS];
+        Arrays.fill(totais, 1);
+        GerenciadorDistribuido rede = new GerenciadorDistribuido(totais, PROCESSOS, numNos);
+        try {
+            // Duas rodadas de um pedido por processo ainda em execução.
+            Random sorteio = new Random(42);
+            for (int rodada = 0; rodada < 2; rodada++) {
+                for (int p = 1; p <= PROCESSOS; p++) {
+                    if (central.getProcesso(p).getStatus() == StatusProcesso.EXECUTANDO) {
+                        int r = sorteio.nextInt(RECURSOS);
+                        assertEquals(central.solicitarRecurso(p, r), rede.solicitar(p, r), "P" + p + " em R" + (r + 1));
+                    }
+                }
+            }
+            int[] esperado = central.detectarDeadlock().stream().mapToInt(Integer::intValue).toArray();
+            assertFalse(esperado.length == 0, "a carga sorteada não formou deadlock");
+            assertArrayEquals(esperado, rede.detectar());
+            // A segunda rodada reusa os nós e as caixas de entrada da primeira.
+            assertArrayEquals(esperado, rede.detectar());
+        } finally {
+            rede.parar();
+        }
+    }
+}
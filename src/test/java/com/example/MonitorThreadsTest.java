@@ -0,0 +1,125 @@
+package com.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Observa a própria JVM com threads reais em deadlock (um par em synchronized e um ciclo de três em
+ * ReentrantLock) e confere o resultado do {@link MonitorThreads} contra
+ * ThreadMXBean.findDeadlockedThreads. As threads do deadlock são daemon e ficam presas até o fim da JVM
+ * dos testes.
+ */
+class MonitorThreadsTest {
+
+    private static List<Integer> esperado;
+
+    @BeforeAll
+    static void criarDeadlocks() throws InterruptedException {
+        Object a = new Object();
+        Object b = new Object();
+        iniciar("sync-1", () -> { synchronized (a) { pausar(); synchronized (b) { } } });
+        iniciar("sync-2", () -> { synchronized (b) { pausar(); synchronized (a) { } } });
+        ReentrantLock[] ciclo = {new ReentrantLock(), new ReentrantLock(), new ReentrantLock()};
+        for (int i = 0; i < ciclo.length; i++) {
+            ReentrantLock primeira = ciclo[i];
+            ReentrantLock segunda = ciclo[(i + 1) % ciclo.length];
+            iniciar("lock-" + (i + 1), () -> { primeira.lock(); pausar(); segunda.lock(); });
+        }
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        long[] daJvm;
+        do {
+            TimeUnit.MILLISECONDS.sleep(50);
+            daJvm = ManagementFactory.getThreadMXBean().findDeadlockedThreads();
+        } while ((daJvm == null || daJvm.length < 5) && System.nanoTime() < limite);
+        esperado = new ArrayList<>();
+        for (long id : daJvm == null ? new long[0] : daJvm) {
+            esperado.add((int) id);
+        }
+        esperado.sort(null);
+        assertEquals(5, esperado.size(), "os deadlocks não se formaram");
+    }
+
+    @Test
+    void encontraOsMesmosDeadlocksQueAJvm() {
+        MonitorThreads monitor = MonitorThreads.local(new MotorDeadlock());
+        monitor.amostrar();
+        assertEquals(esperado, ordenados(monitor.getEmDeadlock()));
+        assertEquals(1, monitor.getMudancas());
+
+        // Arestas iguais: a segunda amostra não refaz o motor.
+        monitor.amostrar();
+        assertEquals(2, monitor.getAmostras());
+        assertEquals(1, monitor.getMudancas());
+    }
+
+    // Mais arestas do que a capacidade inicial dos vetores, numa trava que só tem fila e não forma ciclo.
+    @Test
+    void filaLongaSemCicloNaoEntraNoDeadlock() throws InterruptedException {
+        ReentrantLock disputada = new ReentrantLock();
+        CountDownLatch fim = new CountDownLatch(1);
+        CountDownLatch detida = new CountDownLatch(1);
+        iniciar("dono", () -> {
+            disputada.lock();
+            detida.countDown();
+            try {
+                fim.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                disputada.unlock();
+            }
+        });
+        detida.await();
+        List<Thread> fila = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            fila.add(iniciar("fila-" + i, () -> { disputada.lock(); disputada.unlock(); }));
+        }
+        while (disputada.getQueueLength() < fila.size()) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        try {
+            MotorDeadlock motor = new MotorDeadlock();
+            MonitorThreads monitor = MonitorThreads.local(motor);
+            monitor.amostrar();
+            assertEquals(esperado, ordenados(monitor.getEmDeadlock()));
+            // Outras threads da JVM podem estar esperando alguma trava no momento da amostra.
+            assertTrue(motor.getProcessos().size() >= esperado.size() + fila.size() + 1);
+        } finally {
+            fim.countDown();
+            for (Thread t : fila) {
+                t.join();
+            }
+        }
+    }
+
+    private static List<Integer> ordenados(List<Integer> ids) {
+        List<Integer> copia = new ArrayList<>(ids);
+        copia.sort(null);
+        return copia;
+    }
+
+    private static Thread iniciar(String nome, Runnable corpo) {
+        Thread t = new Thread(corpo, nome);
+        t.setDaemon(true);
+        t.start();
+        return t;
+    }
+
+    // Dá tempo às outras threads do ciclo de pegarem a primeira trava.
+    private static void pausar() {
+        try {
+            TimeUnit.MILLISECONDS.sleep(200);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.StampedLock;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+/**
+ * Solicitação e liberação em lote ({@link MotorDeadlock#solicitarRecursos} e
+ * {@link MotorDeadlock#liberarRecursos}): tudo ou nada, sem reter unidades enquanto o lote espera.
+ */
+class MotorDeadlockLoteTest {
+
+    @ParameterizedTest
+    @EnumSource(ModoConcorrencia.class)
+    void concedeOLoteInteiroQuandoHaUnidades(ModoConcorrencia modo) {
+        MotorDeadlock motor = criarMotor(modo, 2, 2, 1);
+
+        assertTrue(motor.solicitarRecursos(1, new int[] {2, 1}));
+        assertEquals(StatusProcesso.EXECUTANDO, motor.getProcesso(1).getStatus());
+        assertEquals("R1 (2) R2 (1)", motor.getRecursosAlocadosString(1));
+        assertEquals(0, motor.getDisponivel(0));
+        assertEquals(0, motor.getDisponivel(1));
+    }
+
+    @ParameterizedTest
+    @EnumSource(ModoConcorrencia.class)
+    void bloqueiaSemReterNada(ModoConcorrencia modo) {
+        MotorDeadlock motor = criarMotor(modo, 2, 2, 1);
+        motor.solicitarRecurso(1, 1);
+
+        assertFalse(motor.solicitarRecursos(2, new int[] {2, 1}));
+        assertEquals(StatusProcesso.BLOQUEADO, motor.getProcesso(2).getStatus());
+        assertEquals("", motor.getRecursosAlocadosString(2));
+        assertEquals(2, motor.getDisponivel(0));
+    }
+
+    // P2 espera R1 e R2. Cada liberação revê a requisição inteira: com um só dos dois livre, P2 passa
+    // à fila do outro sem reter nada, e um pedido menor leva a unidade livre nesse meio tempo.
+    @ParameterizedTest
+    @EnumSource(ModoConcorrencia.class)
+    void revisaARequisicaoInteiraAQuemChegaAFrenteDaFila(ModoConcorrencia modo) {
+        MotorDeadlock motor = criarMotor(modo, 4, 1, 1);
+        motor.solicitarRecurso(1, 0);
+        motor.solicitarRecurso(3, 1);
+        assertFalse(motor.solicitarRecursos(2, new int[] {1, 1}));
+
+        motor.liberarRecurso(1, 0);
+        assertEquals(StatusProcesso.BLOQUEADO, motor.getProcesso(2).getStatus());
+        assertEquals(1, motor.getDisponivel(0));
+        assertTrue(motor.solicitarRecurso(4, 0));
+
+        motor.liberarRecurso(3, 1);
+        assertEquals(StatusProcesso.BLOQUEADO, motor.getProcesso(2).getStatus());
+        assertEquals(1, motor.getDisponivel(1));
+        assertEquals("", motor.getRecursosAlocadosString(2));
+
+        motor.liberarRecurso(4, 0);
+        assertEquals(StatusProcesso.EXECUTANDO, motor.getProcesso(2).getStatus());
+        assertEquals("R1 (1) R2 (1)", motor.getRecursosAlocadosString(2));
+        assertEquals(0, motor.getDisponivel(0));
+        assertEquals(0, motor.getDisponivel(1));
+    }
+
+    @ParameterizedTest
+    @EnumSource(ModoConcorrencia.class)
+    void liberarRecursosDevolveODetidoEAcordaOLote(ModoConcorrencia modo) {
+        MotorDeadlock motor = criarMotor(modo, 2, 2, 1);
+        assertTrue(motor.solicitarRecursos(1, new int[] {1, 1}));
+        assertFalse(motor.solicitarRecursos(2, new int[] {2, 1}));
+
+        // Pede de volta mais do que detém de R1: só a unidade detida volta.
+        motor.liberarRecursos(1, new int[] {2, 1});
+        assertEquals("", motor.getRecursosAlocadosString(1));
+        assertEquals(StatusProcesso.EXECUTANDO, motor.getProcesso(2).getStatus());
+        assertEquals("R1 (2) R2 (1)", motor.getRecursosAlocadosString(2));
+    }
+
+    // No POR_RECURSO quem libera R1 só tenta a trava de R2; ocupada, o lote de P2 fica em lotesAdiados
+    // e é revisto depois, já sem a trava de R1, esperando pela de R2.
+    @Test
+    void loteAdiadoComTravaOcupadaEAtendidoDepois() throws Exception {
+        MotorDeadlock motor = criarMotor(ModoConcorrencia.POR_RECURSO, 2, 1, 1);
+        motor.solicitarRecurso(1, 0);
+        assertFalse(motor.solicitarRecursos(2, new int[] {1, 1}));
+        List<String> log = new CopyOnWriteArrayList<>();
+        motor.adicionarOuvinte(new OuvinteMotor() {
+            @Override
+            public void log(String mensagem) {
+                log.add(mensagem);
+            }
+        });
+
+        StampedLock travaR2 = travasRecurso(motor)[1];
+        CountDownLatch travada = new CountDownLatch(1);
+        CountDownLatch soltar = new CountDownLatch(1);
+        Thread dono = new Thread(() -> {
+            long carimbo = travaR2.writeLock();
+            travada.countDown();
+            try {
+                soltar.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                travaR2.unlockWrite(carimbo);
+            }
+        });
+        dono.start();
+        travada.await();
+
+        Thread liberacao = new Thread(() -> motor.liberarRecurso(1, 0));
+        liberacao.start();
+        // Adiado: R1 já voltou e a liberação espera a trava de R2 em revisarLotesAdiados, com a de R1,
+        // que vem antes na ordem das travas.
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (liberacao.getState() != Thread.State.WAITING && System.nanoTime() < limite) {
+            Thread.sleep(10);
+        }
+        assertEquals(Thread.State.WAITING, liberacao.getState());
+        assertTrue(log.stream().anyMatch(m -> m.startsWith("PROCESSO 2 teve a revisão do lote adiada")), log::toString);
+        assertEquals(1, motor.getDisponivel(0));
+        assertEquals(StatusProcesso.BLOQUEADO, motor.getProcesso(2).getStatus());
+
+        soltar.countDown();
+        liberacao.join(TimeUnit.SECONDS.toMillis(10));
+        dono.join();
+        assertFalse(liberacao.isAlive());
+        assertEquals(StatusProcesso.EXECUTANDO, motor.getProcesso(2).getStatus());
+        assertEquals("R1 (1) R2 (1)", motor.getRecursosAlocadosString(2));
+    }
+
+    private static MotorDeadlock criarMotor(ModoConcorrencia modo, int numProcessos, int... instancias) {
+        MotorDeadlock motor = new MotorDeadlock();
+        motor.setModoConcorrencia(modo);
+        for (int r = 0; r < instancias.length; r++) {
+            motor.adicionarRecurso("R" + (r + 1), r + 1, instancias[r]);
+        }
+        for (int p = 1; p <= numProcessos; p++) {
+            motor.adicionarProcesso(p, 0, 0);
+        }
+        motor.prepararAlocacao();
+        return motor;
+    }
+
+    private static StampedLock[] travasRecurso(MotorDeadlock motor) throws ReflectiveOperationException {
+        Field campo = MotorDeadlock.class.getDeclaredField("travasRecurso");
+        campo.setAccessible(true);
+        return (StampedLock[]) campo.get(motor);
+    }
+}
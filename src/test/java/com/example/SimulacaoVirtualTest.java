@@ -0,0 +1,52 @@
+package com.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+/**
+ * A simulação em tempo virtual é determinística: a mesma semente dá o mesmo número de operações, as
+ * mesmas alocações finais e o mesmo conjunto em deadlock; outra semente dá outra execução.
+ */
+class SimulacaoVirtualTest {
+
+    private static final int PROCESSOS = 200;
+    private static final int RECURSOS = 10;
+    private static final int INSTANCIAS = 20;
+    private static final long HORAS = 2;
+
+    @Test
+    void mesmaSementeMesmoEstadoFinal() {
+        List<String> primeira = simular(42);
+        assertTrue(primeira.size() > PROCESSOS, "a simulação não registrou o estado final");
+        assertEquals(primeira, simular(42));
+        assertNotEquals(primeira, simular(43));
+    }
+
+    // Operações, alocações de cada processo e processos em deadlock ao final.
+    private static List<String> simular(long semente) {
+        MotorDeadlock motor = new MotorDeadlock();
+        for (int r = 0; r < RECURSOS; r++) {
+            motor.adicionarRecurso("R" + (r + 1), r + 1, INSTANCIAS);
+        }
+        Random sorteio = new Random(semente);
+        for (int p = 1; p <= PROCESSOS; p++) {
+            motor.adicionarProcesso(p, 1 + sorteio.nextInt(60), 1 + sorteio.nextInt(120));
+        }
+        List<Integer> deadlock = motor.simularTempoVirtual(60, TimeUnit.HOURS.toSeconds(HORAS), semente);
+        List<String> estado = new ArrayList<>();
+        estado.add("operações " + motor.getOperacoes());
+        for (int p = 1; p <= PROCESSOS; p++) {
+            estado.add("P" + p + ": " + motor.getRecursosAlocadosString(p));
+        }
+        estado.add("deadlock " + deadlock);
+        motor.getMetricas().fechar();
+        return estado;
+    }
+}